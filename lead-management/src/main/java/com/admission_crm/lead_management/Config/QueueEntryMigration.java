@@ -0,0 +1,79 @@
+package com.admission_crm.lead_management.Config;
+
+import com.admission_crm.lead_management.Service.Queue.QueueAging;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * One-off migrations of lead_queue, run on startup: the legacy institution_queued_leads element
+ * collection is copied in while lead_queue is still empty, and rows written with a plain lead score
+ * before queue aging are converted to the aged sort score.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class QueueEntryMigration implements ApplicationRunner {
+
+    private static final String PRIORITY_VALUE =
+            "CASE l.priority WHEN 'URGENT' THEN 4 WHEN 'HIGH' THEN 3 WHEN 'MEDIUM' THEN 2 ELSE 1 END";
+
+    private static final String SORT_SCORE = String.format(QueueAging.SORT_SCORE_SQL, "COALESCE(l.lead_score, 0)", "l.created_at");
+
+    // Legacy queue rows whose lead is still QUEUED
+    private static final String MIGRATE_LEGACY_QUEUE =
+            "INSERT IGNORE INTO lead_queue (lead_id, institution_id, priority, score, created_at, enqueued_at) " +
+            "SELECT l.id, q.institution_id, " + PRIORITY_VALUE + ", " + SORT_SCORE + ", l.created_at, NOW() " +
+            "FROM institution_queued_leads q JOIN leads l ON l.id = q.lead_id " +
+            "WHERE l.status = 'QUEUED'";
+
+    // QUEUED leads that never made it into the legacy collection
+    private static final String MIGRATE_QUEUED_LEADS =
+            "INSERT IGNORE INTO lead_queue (lead_id, institution_id, priority, score, created_at, enqueued_at) " +
+            "SELECT l.id, l.institution_id, " + PRIORITY_VALUE + ", " + SORT_SCORE + ", l.created_at, NOW() " +
+            "FROM leads l WHERE l.status = 'QUEUED' AND l.institution_id IS NOT NULL";
+
+    // Lead scores are 0 to 100 while aged sort scores are far below zero, so converted rows are never touched twice
+    private static final String CONVERT_TO_SORT_SCORE =
+            "UPDATE lead_queue SET score = " + String.format(QueueAging.SORT_SCORE_SQL, "score", "created_at") +
+            " WHERE score >= 0";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        try {
+            int converted = jdbcTemplate.update(CONVERT_TO_SORT_SCORE);
+            if (converted > 0) {
+                log.info("Converted {} lead_queue rows to aged sort scores", converted);
+            }
+
+            Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM lead_queue", Long.class);
+            if (existing != null && existing > 0) {
+                return;
+            }
+
+            int migrated = 0;
+            if (legacyQueueTableExists()) {
+                migrated += jdbcTemplate.update(MIGRATE_LEGACY_QUEUE);
+            }
+            migrated += jdbcTemplate.update(MIGRATE_QUEUED_LEADS);
+
+            if (migrated > 0) {
+                log.info("Migrated {} queued leads into lead_queue. institution_queued_leads is no longer used and can be dropped", migrated);
+            }
+        } catch (Exception e) {
+            log.error("Queue migration failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private boolean legacyQueueTableExists() {
+        Long tables = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.tables WHERE table_schema = DATABASE() AND table_name = 'institution_queued_leads'",
+                Long.class);
+        return tables != null && tables > 0;
+    }
+}
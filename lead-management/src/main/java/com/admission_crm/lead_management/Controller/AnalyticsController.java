@@ -1,23 +1,32 @@
 package com.admission_crm.lead_management.Controller;
 
 import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
+import com.admission_crm.lead_management.Exception.InvalidRequestException;
 import com.admission_crm.lead_management.Payload.Response.ApiResponse;
+import com.admission_crm.lead_management.Payload.CounselorStats;
 import com.admission_crm.lead_management.Payload.CounselorWorkload;
-import com.admission_crm.lead_management.Payload.Response.LeadResponse;
+import com.admission_crm.lead_management.Payload.LeadQueueInfo;
 import com.admission_crm.lead_management.Payload.LeadStatistics;
+import com.admission_crm.lead_management.Payload.LeadStatusSnapshot;
+import com.admission_crm.lead_management.Service.Cache.AnalyticsCache;
+import com.admission_crm.lead_management.Service.CounselorStatsService;
+import com.admission_crm.lead_management.Service.Export.ExportFormat;
+import com.admission_crm.lead_management.Service.Export.LeadExportQuery;
+import com.admission_crm.lead_management.Service.Export.LeadExportService;
 import com.admission_crm.lead_management.Service.LeadService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 
 @RestController
 @RequestMapping("/api/analytics")
@@ -27,6 +36,9 @@ import java.util.Map;
 public class AnalyticsController {
 
     private final LeadService leadService;
+    private final LeadExportService exportService;
+    private final CounselorStatsService counselorStatsService;
+    private final AnalyticsCache analyticsCache;
 
     /**
      * Get comprehensive lead statistics for an institution
@@ -34,7 +46,8 @@ public class AnalyticsController {
     @GetMapping("/statistics/{institutionId}")
     public ResponseEntity<?> getLeadStatistics(@PathVariable String institutionId) {
         try {
-            LeadStatistics statistics = leadService.getLeadStatistics(institutionId);
+            LeadStatistics statistics = analyticsCache.get("statistics", institutionId, "",
+                    () -> leadService.getLeadStatistics(institutionId));
             return ResponseEntity.ok(ApiResponse.success("Lead statistics retrieved successfully", statistics));
         } catch (RuntimeException e) {
             log.warn("Institution not found: {}", e.getMessage());
@@ -53,10 +66,9 @@ public class AnalyticsController {
     @GetMapping("/funnel/{institutionId}")
     public ResponseEntity<?> getLeadConversionFunnel(@PathVariable String institutionId) {
         try {
-            Map<String, Long> funnel = leadService.getLeadConversionFunnel(institutionId);
-
             // Calculate conversion rates between stages
-            Map<String, Object> funnelWithRates = calculateConversionRates(funnel);
+            Map<String, Object> funnelWithRates = analyticsCache.get("funnel", institutionId, "",
+                    () -> calculateConversionRates(leadService.getLeadConversionFunnel(institutionId)));
 
             return ResponseEntity.ok(ApiResponse.success("Lead conversion funnel retrieved successfully", funnelWithRates));
         } catch (RuntimeException e) {
@@ -135,23 +147,24 @@ public class AnalyticsController {
     public ResponseEntity<?> exportLeadsData(@PathVariable String institutionId,
                                              @RequestParam(required = false) LeadStatus status,
                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fromDate,
-                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime toDate) {
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime toDate,
+                                             @RequestParam(defaultValue = "csv") String format,
+                                             @RequestParam(required = false) String after,
+                                             @RequestParam(required = false) Integer limit) {
         try {
-            List<LeadResponse> leadsData = leadService.exportLeadsData(institutionId, status, fromDate, toDate);
-
-            Map<String, Object> exportData = Map.of(
-                    "leads", leadsData,
-                    "exportInfo", Map.of(
-                            "totalRecords", leadsData.size(),
-                            "institutionId", institutionId,
-                            "status", status != null ? status.toString() : "ALL",
-                            "fromDate", fromDate != null ? fromDate.toString() : "N/A",
-                            "toDate", toDate != null ? toDate.toString() : "N/A",
-                            "exportedAt", LocalDateTime.now().toString()
-                    )
-            );
-
-            return ResponseEntity.ok(ApiResponse.success("Leads data exported successfully", exportData));
+            LeadExportQuery query = exportService.prepare(institutionId, status, fromDate, toDate, after, limit);
+            ExportFormat exportFormat = ExportFormat.from(format);
+
+            StreamingResponseBody body = out -> exportService.export(query, exportFormat, out);
+
+            return ResponseEntity.ok()
+                    .contentType(exportFormat.getMediaType())
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"leads-" + institutionId + "." + exportFormat.getExtension() + "\"")
+                    .body(body);
+        } catch (InvalidRequestException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid export request", e.getMessage()));
         } catch (RuntimeException e) {
             log.warn("Institution not found: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -170,56 +183,8 @@ public class AnalyticsController {
     public ResponseEntity<?> getPerformanceDashboard(@PathVariable String institutionId,
                                                      @RequestParam(defaultValue = "30") int days) {
         try {
-            // Get various analytics data
-            LeadStatistics statistics = leadService.getLeadStatistics(institutionId);
-            Map<String, Long> funnel = leadService.getLeadConversionFunnel(institutionId);
-
-            // Get daily stats as Map<LocalDate, Long> and convert to Map<String, Long>
-            Map<LocalDate, Long> dailyStatsRaw = leadService.getDailyLeadCreationStats(institutionId, days);
-            Map<String, Long> dailyStats = dailyStatsRaw.entrySet().stream()
-                    .collect(java.util.stream.Collectors.toMap(
-                            entry -> entry.getKey().toString(), // Convert LocalDate to String
-                            Map.Entry::getValue,
-                            (e1, e2) -> e1,
-                            java.util.LinkedHashMap::new // Maintain chronological order
-                    ));
-
-            var counselorWorkloads = leadService.getCounselorWorkloads(institutionId);
-
-            // Calculate trending data using the raw LocalDate map for calculations
-            double conversionTrend = calculateConversionTrend(dailyStats);
-
-            // Calculate average daily leads using raw data
-            double averageDaily = dailyStatsRaw.values().stream()
-                    .mapToLong(Long::longValue)
-                    .average()
-                    .orElse(0.0);
-
-            Map<String, Object> dashboard = Map.of(
-                    "overview", Map.of(
-                            "totalLeads", statistics.getTotalLeads(),
-                            "conversionRate", statistics.getConversionRate(),
-                            "newLeads", statistics.getNewLeads(),
-                            "convertedLeads", statistics.getConvertedLeads()
-                    ),
-                    "funnel", funnel,
-                    "trends", Map.of(
-                            "dailyStats", dailyStats, // Now properly converted to Map<String, Long>
-                            "conversionTrend", Math.round(conversionTrend * 100.0) / 100.0,
-                            "averageDaily", Math.round(averageDaily * 100.0) / 100.0
-                    ),
-                    "counselorSummary", Map.of(
-                            "totalCounselors", counselorWorkloads.size(),
-                            "availableCounselors", counselorWorkloads.stream()
-                                    .filter(w -> "AVAILABLE".equals(w.getStatus()))
-                                    .count(),
-                            "averageUtilization", Math.round(counselorWorkloads.stream()
-                                    .mapToDouble(CounselorWorkload::getUtilizationPercentage)
-                                    .average()
-                                    .orElse(0.0) * 100.0) / 100.0
-                    ),
-                    "generatedAt", LocalDateTime.now().toString()
-            );
+            Map<String, Object> dashboard = analyticsCache.get("dashboard", institutionId, "days=" + days,
+                    () -> buildDashboard(institutionId, days));
 
             return ResponseEntity.ok(ApiResponse.success("Performance dashboard data retrieved successfully", dashboard));
         } catch (RuntimeException e) {
@@ -233,6 +198,62 @@ public class AnalyticsController {
         }
     }
 
+    // Computed on a cache miss
+    private Map<String, Object> buildDashboard(String institutionId, int days) {
+        // Get various analytics data
+        // Statistics and funnel share one aggregated status count
+        LeadStatusSnapshot snapshot = leadService.getStatusSnapshot(institutionId);
+        LeadStatistics statistics = snapshot.toStatistics();
+        Map<String, Long> funnel = snapshot.toFunnel();
+
+        // Get daily stats as Map<LocalDate, Long> and convert to Map<String, Long>
+        Map<LocalDate, Long> dailyStatsRaw = leadService.getDailyLeadCreationStats(institutionId, days);
+        Map<String, Long> dailyStats = dailyStatsRaw.entrySet().stream()
+                .collect(java.util.stream.Collectors.toMap(
+                        entry -> entry.getKey().toString(), // Convert LocalDate to String
+                        Map.Entry::getValue,
+                        (e1, e2) -> e1,
+                        java.util.LinkedHashMap::new // Maintain chronological order
+                ));
+
+        var counselorWorkloads = leadService.getCounselorWorkloads(institutionId);
+
+        // Calculate trending data using the raw LocalDate map for calculations
+        double conversionTrend = calculateConversionTrend(dailyStats);
+
+        // Calculate average daily leads using raw data
+        double averageDaily = dailyStatsRaw.values().stream()
+                .mapToLong(Long::longValue)
+                .average()
+                .orElse(0.0);
+
+        return Map.of(
+                "overview", Map.of(
+                        "totalLeads", statistics.getTotalLeads(),
+                        "conversionRate", statistics.getConversionRate(),
+                        "newLeads", statistics.getNewLeads(),
+                        "convertedLeads", statistics.getConvertedLeads()
+                ),
+                "funnel", funnel,
+                "trends", Map.of(
+                        "dailyStats", dailyStats, // Now properly converted to Map<String, Long>
+                        "conversionTrend", Math.round(conversionTrend * 100.0) / 100.0,
+                        "averageDaily", Math.round(averageDaily * 100.0) / 100.0
+                ),
+                "counselorSummary", Map.of(
+                        "totalCounselors", counselorWorkloads.size(),
+                        "availableCounselors", counselorWorkloads.stream()
+                                .filter(w -> "AVAILABLE".equals(w.getStatus()))
+                                .count(),
+                        "averageUtilization", Math.round(counselorWorkloads.stream()
+                                .mapToDouble(CounselorWorkload::getUtilizationPercentage)
+                                .average()
+                                .orElse(0.0) * 100.0) / 100.0
+                ),
+                "generatedAt", LocalDateTime.now().toString()
+        );
+    }
+
     /**
      * Calculate conversion trend (updated to handle LocalDate keys)
      */
@@ -255,28 +276,23 @@ public class AnalyticsController {
     public ResponseEntity<?> getLeadSourceAnalysis(@PathVariable String institutionId,
                                                    @RequestParam(defaultValue = "30") int days) {
         try {
-            // This would require additional service methods, or we can derive from existing data
-            List<LeadResponse> leads = leadService.exportLeadsData(institutionId, null,
-                    LocalDateTime.now().minusDays(days), LocalDateTime.now());
-
-            Map<String, Long> sourceCount = leads.stream()
-                    .collect(java.util.stream.Collectors.groupingBy(
-                            lead -> lead.getSource() != null ? lead.getSource() : "UNKNOWN",
-                            java.util.stream.Collectors.counting()
-                    ));
-
-            // Calculate conversion rates by source
-            Map<String, Double> sourceConversion = leads.stream()
-                    .collect(java.util.stream.Collectors.groupingBy(
-                            lead -> lead.getSource() != null ? lead.getSource() : "UNKNOWN",
-                            java.util.stream.Collectors.averagingDouble(lead ->
-                                    "COMPLETED".equals(lead.getStatus()) ? 1.0 : 0.0)
-                    ));
+            Map<String, Map<LeadStatus, Long>> breakdown = leadService.getLeadSourceBreakdown(institutionId, days);
+
+            Map<String, Long> sourceCount = new LinkedHashMap<>();
+            Map<String, Double> sourceConversion = new LinkedHashMap<>();
+            breakdown.forEach((source, statusCounts) -> {
+                long total = statusCounts.values().stream().mapToLong(Long::longValue).sum();
+                long converted = statusCounts.getOrDefault(LeadStatus.COMPLETED, 0L);
+                sourceCount.put(source, total);
+                // Conversion rates by source
+                sourceConversion.put(source, total > 0 ? (double) converted / total : 0.0);
+            });
+            long totalLeads = sourceCount.values().stream().mapToLong(Long::longValue).sum();
 
             Map<String, Object> analysis = Map.of(
                     "sourceDistribution", sourceCount,
                     "sourceConversionRates", sourceConversion,
-                    "totalLeads", leads.size(),
+                    "totalLeads", totalLeads,
                     "periodDays", days,
                     "topPerformingSource", sourceConversion.entrySet().stream()
                             .max(Map.Entry.comparingByValue())
@@ -303,33 +319,18 @@ public class AnalyticsController {
     public ResponseEntity<?> getCounselorPerformanceAnalytics(@PathVariable String institutionId,
                                                               @RequestParam(defaultValue = "30") int days) {
         try {
-            var counselorWorkloads = leadService.getCounselorWorkloads(institutionId);
-
-            // Get detailed performance for each counselor
-            List<Map<String, Object>> counselorPerformance = counselorWorkloads.stream()
-                    .map(workload -> {
-                        // Get counselor's leads for performance calculation
-                        var counselorLeads = leadService.getLeadsByCounselor(workload.getCounselorId(),
-                                org.springframework.data.domain.Pageable.unpaged());
-
-                        long totalHandled = counselorLeads.getTotalElements();
-                        long completed = counselorLeads.getContent().stream()
-                                .filter(lead -> "COMPLETED".equals(lead.getStatus().name()) ||
-                                        "REJECTED".equals(lead.getStatus().name()))
-                                .count();
-
-                        double completionRate = totalHandled > 0 ? (double) completed / totalHandled * 100 : 0.0;
-
-                        return Map.<String, Object>of(
-                                "counselorId", workload.getCounselorId(),
-                                "counselorName", workload.getCounselorName(),
-                                "currentLoad", workload.getCurrentLeadCount(),
-                                "utilization", workload.getUtilizationPercentage(),
-                                "totalHandled", totalHandled,
-                                "completionRate", Math.round(completionRate * 100.0) / 100.0,
-                                "status", workload.getStatus()
-                        );
-                    })
+            List<CounselorStats> counselorStats = counselorStatsService.getInstitutionStats(institutionId);
+
+            List<Map<String, Object>> counselorPerformance = counselorStats.stream()
+                    .map(stats -> Map.<String, Object>of(
+                            "counselorId", stats.getCounselorId(),
+                            "counselorName", stats.getCounselorName(),
+                            "currentLoad", stats.getActiveLeads(),
+                            "utilization", stats.getUtilizationPercentage(),
+                            "totalHandled", stats.getTotalLeads(),
+                            "completionRate", stats.getCompletionRate(),
+                            "status", stats.getStatus()
+                    ))
                     .toList();
 
             // Calculate team averages
@@ -375,24 +376,16 @@ public class AnalyticsController {
     public ResponseEntity<?> getTimeBasedAnalytics(@PathVariable String institutionId,
                                                    @RequestParam(defaultValue = "30") int days) {
         try {
-            List<LeadResponse> leads = leadService.exportLeadsData(institutionId, null,
-                    LocalDateTime.now().minusDays(days), LocalDateTime.now());
-
-            // Group by hour of days
-            Map<Integer, Long> hourlyDistribution = leads.stream()
-                    .filter(lead -> lead.getCreatedAt() != null)
-                    .collect(java.util.stream.Collectors.groupingBy(
-                            lead -> java.time.LocalDateTime.parse(lead.getCreatedAt().toString()).getHour(),
-                            java.util.stream.Collectors.counting()
-                    ));
+            SortedMap<LocalDateTime, Long> hourlyStats = leadService.getHourlyLeadCreationStats(institutionId, days);
 
-            // Group by day of weeks
-            Map<String, Long> weeklyDistribution = leads.stream()
-                    .filter(lead -> lead.getCreatedAt() != null)
-                    .collect(java.util.stream.Collectors.groupingBy(
-                            lead -> java.time.LocalDateTime.parse(lead.getCreatedAt().toString()).getDayOfWeek().toString(),
-                            java.util.stream.Collectors.counting()
-                    ));
+            // Group by hour of days and by day of weeks
+            Map<Integer, Long> hourlyDistribution = new TreeMap<>();
+            Map<String, Long> weeklyDistribution = new LinkedHashMap<>();
+            hourlyStats.forEach((hour, count) -> {
+                hourlyDistribution.merge(hour.getHour(), count, Long::sum);
+                weeklyDistribution.merge(hour.getDayOfWeek().toString(), count, Long::sum);
+            });
+            long totalLeads = hourlyStats.values().stream().mapToLong(Long::longValue).sum();
 
             // Find peak hours and days
             String peakHour = hourlyDistribution.entrySet().stream()
@@ -411,7 +404,7 @@ public class AnalyticsController {
                     "insights", Map.of(
                             "peakHour", peakHour,
                             "peakDay", peakDay,
-                            "totalLeadsAnalyzed", leads.size(),
+                            "totalLeadsAnalyzed", totalLeads,
                             "periodDays", days
                     )
             );
@@ -434,32 +427,8 @@ public class AnalyticsController {
     @GetMapping("/realtime/{institutionId}")
     public ResponseEntity<?> getRealtimeAnalytics(@PathVariable String institutionId) {
         try {
-            LeadStatistics stats = leadService.getLeadStatistics(institutionId);
-            var queueStatus = leadService.getQueueStatus(institutionId);
-            var counselorWorkloads = leadService.getCounselorWorkloads(institutionId);
-
-            Map<String, Object> realtime = Map.of(
-                    "currentStats", Map.of(
-                            "totalLeads", stats.getTotalLeads(),
-                            "newLeads", stats.getNewLeads(),
-                            "queuedLeads", stats.getQueuedLeads(),
-                            "assignedLeads", stats.getAssignedLeads()
-                    ),
-                    "queueInfo", Map.of(
-                            "currentQueueSize", queueStatus.size(),
-                            "nextInQueue", queueStatus.isEmpty() ? "None" : queueStatus.getFirst().getLeadName()
-                    ),
-                    "counselorStatus", Map.of(
-                            "totalCounselors", counselorWorkloads.size(),
-                            "availableCounselors", counselorWorkloads.stream()
-                                    .filter(w -> "AVAILABLE".equals(w.getStatus()))
-                                    .count(),
-                            "busyCounselors", counselorWorkloads.stream()
-                                    .filter(w -> "BUSY".equals(w.getStatus()))
-                                    .count()
-                    ),
-                    "timestamp", LocalDateTime.now().toString()
-            );
+            Map<String, Object> realtime = analyticsCache.get("realtime", institutionId, "",
+                    () -> buildRealtime(institutionId));
 
             return ResponseEntity.ok(ApiResponse.success("Real-time analytics retrieved successfully", realtime));
         } catch (RuntimeException e) {
@@ -473,6 +442,33 @@ public class AnalyticsController {
         }
     }
 
+    // Computed on a cache miss
+    private Map<String, Object> buildRealtime(String institutionId) {
+        LeadStatusSnapshot snapshot = leadService.getStatusSnapshot(institutionId);
+        int queueSize = leadService.getQueueSize(institutionId);
+        // Only the head is shown, the rest of the queue is not loaded
+        var head = queueSize > 0 ? leadService.getQueueStatus(institutionId, 1) : List.<LeadQueueInfo>of();
+        var counselorWorkloads = leadService.getCounselorWorkloads(institutionId);
+
+        return Map.of(
+                "currentStats", snapshot.toRealtimeSummary(),
+                "queueInfo", Map.of(
+                        "currentQueueSize", queueSize,
+                        "nextInQueue", head.isEmpty() ? "None" : head.getFirst().getLeadName()
+                ),
+                "counselorStatus", Map.of(
+                        "totalCounselors", counselorWorkloads.size(),
+                        "availableCounselors", counselorWorkloads.stream()
+                                .filter(w -> "AVAILABLE".equals(w.getStatus()))
+                                .count(),
+                        "busyCounselors", counselorWorkloads.stream()
+                                .filter(w -> "BUSY".equals(w.getStatus()))
+                                .count()
+                ),
+                "timestamp", LocalDateTime.now().toString()
+        );
+    }
+
     /**
      * Clean up old completed leads (maintenance operation)
      */
@@ -1,11 +1,16 @@
 package com.admission_crm.lead_management.Controller;
 
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
 import com.admission_crm.lead_management.Payload.Response.ApiResponse;
+import com.admission_crm.lead_management.Payload.CounselorStats;
 import com.admission_crm.lead_management.Payload.CounselorWorkload;
 import com.admission_crm.lead_management.Payload.Response.LeadResponse;
+import com.admission_crm.lead_management.Service.CounselorStatsService;
 import com.admission_crm.lead_management.Service.LeadService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -22,6 +27,7 @@ import java.util.Map;
 public class CounselorController {
 
     private final LeadService leadService;
+    private final CounselorStatsService counselorStatsService;
 
     /**
      * Get counselor workloads for institution
@@ -109,40 +115,22 @@ public class CounselorController {
                                                      @RequestParam String institutionId,
                                                      @RequestParam(defaultValue = "30") int days) {
         try {
-            // Get counselor's leads
-            var counselorLeads = leadService.getLeadsByCounselor(counselorId,
-                    org.springframework.data.domain.Pageable.unpaged());
+            CounselorStats stats = counselorStatsService.getCounselorStats(counselorId, institutionId);
 
-            // Get workload information
-            List<CounselorWorkload> workloads = leadService.getCounselorWorkloads(institutionId);
-            CounselorWorkload counselorWorkload = workloads.stream()
-                    .filter(w -> w.getCounselorId().equals(counselorId))
-                    .findFirst()
-                    .orElse(null);
-
-            if (counselorWorkload == null) {
+            if (stats == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(ApiResponse.error("Counselor not found", "Counselor not found in this institution"));
             }
 
-            // Calculate performance metrics
-            long totalLeads = counselorLeads.getTotalElements();
-            long completedLeads = counselorLeads.getContent().stream()
-                    .filter(lead -> lead.getStatus().name().contains("COMPLETED") ||
-                            lead.getStatus().name().contains("REJECTED"))
-                    .count();
-
-            double completionRate = totalLeads > 0 ? (double) completedLeads / totalLeads * 100 : 0.0;
-
             Map<String, Object> performance = Map.of(
-                    "counselorInfo", counselorWorkload,
-                    "totalLeadsHandled", totalLeads,
-                    "completedLeads", completedLeads,
-                    "activeLeads", counselorWorkload.getCurrentLeadCount(),
-                    "completionRate", Math.round(completionRate * 100.0) / 100.0,
-                    "utilizationPercentage", counselorWorkload.getUtilizationPercentage(),
-                    "status", counselorWorkload.getStatus(),
-                    "capacity", counselorWorkload.getMaxCapacity()
+                    "counselorInfo", stats,
+                    "totalLeadsHandled", stats.getTotalLeads(),
+                    "completedLeads", stats.getCompletedLeads(),
+                    "activeLeads", stats.getActiveLeads(),
+                    "completionRate", stats.getCompletionRate(),
+                    "utilizationPercentage", stats.getUtilizationPercentage(),
+                    "status", stats.getStatus(),
+                    "capacity", stats.getMaxCapacity()
             );
 
             return ResponseEntity.ok(ApiResponse.success("Counselor performance retrieved successfully", performance));
@@ -164,50 +152,34 @@ public class CounselorController {
     public ResponseEntity<?> getCounselorDashboard(@PathVariable String counselorId,
                                                    @RequestParam String institutionId) {
         try {
-            // Get counselor's current leads
-            var counselorLeads = leadService.getLeadsByCounselor(counselorId,
-                    org.springframework.data.domain.PageRequest.of(0, 100));
+            CounselorStats stats = counselorStatsService.getCounselorStats(counselorId, institutionId);
 
-            // Get workload
-            List<CounselorWorkload> workloads = leadService.getCounselorWorkloads(institutionId);
-            CounselorWorkload workload = workloads.stream()
-                    .filter(w -> w.getCounselorId().equals(counselorId))
-                    .findFirst()
-                    .orElse(null);
-
-            if (workload == null) {
+            if (stats == null) {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(ApiResponse.error("Counselor not found", "Counselor not found in this institution"));
             }
 
-            // Count leads by status
-            Map<String, Long> leadsByStatus = counselorLeads.getContent().stream()
-                    .collect(java.util.stream.Collectors.groupingBy(
-                            lead -> lead.getStatus().name(),
-                            java.util.stream.Collectors.counting()
-                    ));
+            // Most recently assigned leads
+            var recentLeads = leadService.getLeadsByCounselor(counselorId,
+                    PageRequest.of(0, 5, Sort.by(Sort.Direction.DESC, "assignedAt")));
 
-            // Get pending follow-ups (this would require additional service method)
-            long pendingFollowUps = counselorLeads.getContent().stream()
-                    .filter(lead -> lead.getStatus().name().equals("FOLLOW_UP"))
-                    .count();
+            long pendingFollowUps = stats.getLeadsByStatus().getOrDefault(LeadStatus.FOLLOW_UP.name(), 0L);
 
             Map<String, Object> dashboard = Map.of(
                     "counselorInfo", Map.of(
-                            "id", workload.getCounselorId(),
-                            "name", workload.getCounselorName(),
-                            "email", workload.getCounselorEmail()
+                            "id", stats.getCounselorId(),
+                            "name", stats.getCounselorName(),
+                            "email", stats.getCounselorEmail()
                     ),
                     "workloadSummary", Map.of(
-                            "currentLeads", workload.getCurrentLeadCount(),
-                            "maxCapacity", workload.getMaxCapacity(),
-                            "utilization", workload.getUtilizationPercentage(),
-                            "status", workload.getStatus()
+                            "currentLeads", stats.getActiveLeads(),
+                            "maxCapacity", stats.getMaxCapacity(),
+                            "utilization", stats.getUtilizationPercentage(),
+                            "status", stats.getStatus()
                     ),
-                    "leadsByStatus", leadsByStatus,
+                    "leadsByStatus", stats.getLeadsByStatus(),
                     "pendingFollowUps", pendingFollowUps,
-                    "recentLeads", counselorLeads.getContent().stream()
-                            .limit(5)
+                    "recentLeads", recentLeads.getContent().stream()
                             .map(lead -> Map.of(
                                     "id", lead.getId(),
                                     "name", lead.getFirstName() + " " + lead.getLastName(),
@@ -0,0 +1,138 @@
+package com.admission_crm.lead_management.Controller;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadDuplicateCluster.ReviewStatus;
+import com.admission_crm.lead_management.Exception.InvalidRequestException;
+import com.admission_crm.lead_management.Exception.LeadNotFoundException;
+import com.admission_crm.lead_management.Exception.ResourceNotFoundException;
+import com.admission_crm.lead_management.Payload.Request.ClusterMergeRequest;
+import com.admission_crm.lead_management.Payload.Response.ApiResponse;
+import com.admission_crm.lead_management.Payload.Response.DuplicateClusterResponse;
+import com.admission_crm.lead_management.Service.Dedupe.ClusterRunSummary;
+import com.admission_crm.lead_management.Service.Dedupe.DuplicateClusterService;
+import com.admission_crm.lead_management.Service.Dedupe.LeadClusteringJob;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/leads/duplicates")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class DuplicateClusterController {
+
+    private final DuplicateClusterService clusterService;
+    private final LeadClusteringJob clusteringJob;
+
+    /**
+     * Get duplicate clusters of an institution, most confident first
+     */
+    @GetMapping("/institution/{institutionId}")
+    public ResponseEntity<?> getClusters(@PathVariable String institutionId,
+                                         @RequestParam(defaultValue = "PENDING") ReviewStatus status,
+                                         Pageable pageable) {
+        try {
+            Page<DuplicateClusterResponse> clusters = clusterService.getClusters(institutionId, status, pageable);
+            return ResponseEntity.ok(ApiResponse.success("Duplicate clusters retrieved successfully", clusters));
+        } catch (Exception e) {
+            log.error("Error retrieving duplicate clusters: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to retrieve duplicate clusters", "An unexpected error occurred"));
+        }
+    }
+
+    /**
+     * Cluster the institution's leads now instead of waiting for the scheduled run
+     */
+    @PostMapping("/institution/{institutionId}/scan")
+    public ResponseEntity<?> scan(@PathVariable String institutionId) {
+        try {
+            ClusterRunSummary summary = clusteringJob.run(institutionId);
+            return ResponseEntity.ok(ApiResponse.success("Duplicate scan completed successfully", summary));
+        } catch (IllegalStateException e) {
+            log.warn("Duplicate scan rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("Duplicate scan already running", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error scanning for duplicate leads: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to scan for duplicate leads", "An unexpected error occurred"));
+        }
+    }
+
+    /**
+     * Merge a cluster into one lead, its suggested primary lead unless another member is given
+     */
+    @PostMapping("/{clusterId}/merge")
+    public ResponseEntity<?> merge(@PathVariable String clusterId,
+                                   @RequestParam(required = false) String primaryLeadId,
+                                   Authentication authentication) {
+        try {
+            DuplicateClusterResponse cluster = clusterService.merge(clusterId, primaryLeadId, authentication.getName());
+            return ResponseEntity.ok(ApiResponse.success("Duplicate cluster merged successfully", cluster));
+        } catch (ResourceNotFoundException | LeadNotFoundException e) {
+            log.warn("Duplicate cluster merge failed: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("Not found", e.getMessage()));
+        } catch (InvalidRequestException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid merge request", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error merging duplicate cluster: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to merge duplicate cluster", "An unexpected error occurred"));
+        }
+    }
+
+    /**
+     * Merge several clusters at once, each into its suggested primary lead
+     */
+    @PostMapping("/merge")
+    public ResponseEntity<?> mergeAll(@Valid @RequestBody ClusterMergeRequest request,
+                                      Authentication authentication) {
+        try {
+            List<DuplicateClusterResponse> clusters = clusterService.mergeAll(request.getClusterIds(), authentication.getName());
+            return ResponseEntity.ok(ApiResponse.success("Duplicate clusters merged successfully", clusters));
+        } catch (ResourceNotFoundException | LeadNotFoundException e) {
+            log.warn("Bulk duplicate merge failed: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("Not found", e.getMessage()));
+        } catch (InvalidRequestException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid merge request", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error merging duplicate clusters: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to merge duplicate clusters", "An unexpected error occurred"));
+        }
+    }
+
+    /**
+     * Mark a cluster as not duplicates, later scans will not propose it again
+     */
+    @PostMapping("/{clusterId}/dismiss")
+    public ResponseEntity<?> dismiss(@PathVariable String clusterId, Authentication authentication) {
+        try {
+            DuplicateClusterResponse cluster = clusterService.dismiss(clusterId, authentication.getName());
+            return ResponseEntity.ok(ApiResponse.success("Duplicate cluster dismissed successfully", cluster));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("Duplicate cluster not found", e.getMessage()));
+        } catch (InvalidRequestException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid dismiss request", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error dismissing duplicate cluster: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to dismiss duplicate cluster", "An unexpected error occurred"));
+        }
+    }
+}
@@ -8,19 +8,34 @@ import com.admission_crm.lead_management.Payload.Request.LeadUpdateRequest;
 import com.admission_crm.lead_management.Payload.Response.ApiResponse;
 import com.admission_crm.lead_management.Payload.Request.BulkAssignRequest;
 import com.admission_crm.lead_management.Payload.Request.LeadRequest;
+import com.admission_crm.lead_management.Payload.Response.BatchIngestResponse;
 import com.admission_crm.lead_management.Payload.Response.LeadResponse;
+import com.admission_crm.lead_management.Payload.Response.LeadWindowResponse;
+import com.admission_crm.lead_management.Service.LeadIngestionService;
+import com.admission_crm.lead_management.Service.Export.ExportFormat;
+import com.admission_crm.lead_management.Service.Export.LeadExportQuery;
+import com.admission_crm.lead_management.Service.Export.LeadExportService;
 import com.admission_crm.lead_management.Service.LeadService;
+import com.admission_crm.lead_management.Service.Paging.LeadListingFilter;
+import com.admission_crm.lead_management.Service.Paging.LeadWindow;
+import com.admission_crm.lead_management.Service.Paging.ListingMode;
+import com.admission_crm.lead_management.Service.Search.LeadSearchIndex;
+import com.admission_crm.lead_management.Service.Search.LeadSuggestIndex;
+import com.admission_crm.lead_management.Service.Search.LeadSuggestion;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +48,10 @@ import java.util.Map;
 public class LeadController {
 
     private final LeadService leadService;
+    private final LeadExportService exportService;
+    private final LeadIngestionService ingestionService;
+    private final LeadSearchIndex searchIndex;
+    private final LeadSuggestIndex suggestIndex;
 
     // Create a new lead
     @PostMapping
@@ -56,6 +75,37 @@ public class LeadController {
         }
     }
 
+    // Create leads in bulk from a JSON array
+    @PostMapping("/batch")
+    public ResponseEntity<?> createLeadsBatch(@RequestBody List<LeadRequest> leadRequests,
+                                              Authentication authentication) {
+        try {
+            BatchIngestResponse result = ingestionService.ingest(leadRequests, currentUser(authentication));
+            return batchResponse(result);
+        } catch (Exception e) {
+            log.error("Error importing lead batch: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to import leads", "An unexpected error occurred"));
+        }
+    }
+
+    // Create leads in bulk from a streamed NDJSON or CSV body
+    @PostMapping(value = "/batch/stream", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<?> createLeadsBatchStream(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                    InputStream body,
+                                                    Authentication authentication) {
+        try {
+            BatchIngestResponse result = contentType.startsWith("text/csv")
+                    ? ingestionService.ingestCsv(body, currentUser(authentication))
+                    : ingestionService.ingestNdjson(body, currentUser(authentication));
+            return batchResponse(result);
+        } catch (Exception e) {
+            log.error("Error importing streamed lead batch: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to import leads", "An unexpected error occurred"));
+        }
+    }
+
     // Get a lead by ID
     @GetMapping("/{id}")
     public ResponseEntity<?> getLeadById(@PathVariable String id) {
@@ -73,14 +123,25 @@ public class LeadController {
         }
     }
 
-    // Get all leads with pagination and filtering
+    // Get all leads with pagination and filtering, mode=slice skips the count and mode=cursor pages by keyset
     @GetMapping
     public ResponseEntity<?> getAllLeads(
             Pageable pageable,
             @RequestParam(required = false) String searchTerm,
             @RequestParam(required = false) String institutionId,
-            @RequestParam(required = false) LeadStatus status) {
+            @RequestParam(required = false) LeadStatus status,
+            @RequestParam(defaultValue = "page") String mode,
+            @RequestParam(required = false) String cursor) {
         try {
+            ListingMode listingMode = modeOf(mode, cursor);
+            if (listingMode != ListingMode.PAGE) {
+                if (searchTerm != null && !searchTerm.isBlank()) {
+                    throw new InvalidRequestException("Search results are ranked by relevance and only available in page mode");
+                }
+                Object leads = listWithoutCount(listingMode, new LeadListingFilter(institutionId, status, null), cursor, pageable);
+                return ResponseEntity.ok(ApiResponse.success("Leads retrieved successfully", leads));
+            }
+
             Page<Lead> leads;
             if (searchTerm != null || institutionId != null || status != null) {
                 leads = leadService.getLeadsByFilter(searchTerm, institutionId, status, pageable);
@@ -90,6 +151,9 @@ public class LeadController {
 
             Page<LeadResponse> leadResponses = leads.map(LeadResponse::fromEntity);
             return ResponseEntity.ok(ApiResponse.success("Leads retrieved successfully", leadResponses));
+        } catch (InvalidRequestException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid listing request", e.getMessage()));
         } catch (Exception e) {
             log.error("Error retrieving leads: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -97,14 +161,59 @@ public class LeadController {
         }
     }
 
+    // Typeahead: leads of an institution whose name, last name, email or phone start with the prefix
+    @GetMapping("/suggest")
+    public ResponseEntity<?> suggestLeads(@RequestParam String institutionId,
+                                          @RequestParam String prefix,
+                                          @RequestParam(defaultValue = "10") int limit) {
+        List<LeadSuggestion> suggestions = suggestIndex.suggest(institutionId, prefix, limit);
+        return ResponseEntity.ok(ApiResponse.success("Lead suggestions retrieved successfully", suggestions));
+    }
+
+    // Get the state of the lead search index and its last rebuild
+    @GetMapping("/search-index")
+    public ResponseEntity<?> getSearchIndexStatus() {
+        return ResponseEntity.ok(ApiResponse.success("Lead search index status retrieved successfully",
+                searchIndex.status()));
+    }
+
+    // Rebuild the lead search index in the background
+    @PostMapping("/search-index/rebuild")
+    public ResponseEntity<?> rebuildSearchIndex() {
+        try {
+            searchIndex.startRebuild();
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success("Lead search index rebuild started", searchIndex.status()));
+        } catch (IllegalStateException e) {
+            log.warn("Search index rebuild rejected: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error("Search index rebuild already running", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error rebuilding lead search index: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to rebuild lead search index", "An unexpected error occurred"));
+        }
+    }
+
     // Get leads by institution
     @GetMapping("/institution/{institutionId}")
     public ResponseEntity<?> getLeadsByInstitution(@PathVariable String institutionId,
-                                                   Pageable pageable) {
+                                                   Pageable pageable,
+                                                   @RequestParam(defaultValue = "page") String mode,
+                                                   @RequestParam(required = false) String cursor) {
         try {
+            ListingMode listingMode = modeOf(mode, cursor);
+            if (listingMode != ListingMode.PAGE) {
+                Object leads = listWithoutCount(listingMode, new LeadListingFilter(institutionId, null, null), cursor, pageable);
+                return ResponseEntity.ok(ApiResponse.success("Institution leads retrieved successfully", leads));
+            }
+
             Page<Lead> leads = leadService.getLeadsByInstitution(institutionId, pageable);
             Page<LeadResponse> leadResponses = leads.map(LeadResponse::fromEntity);
             return ResponseEntity.ok(ApiResponse.success("Institution leads retrieved successfully", leadResponses));
+        } catch (InvalidRequestException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid listing request", e.getMessage()));
         } catch (Exception e) {
             log.error("Error retrieving institution leads: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -115,11 +224,22 @@ public class LeadController {
     // Get leads by counselor
     @GetMapping("/counselor/{counselorId}")
     public ResponseEntity<?> getLeadsByCounselor(@PathVariable String counselorId,
-                                                 Pageable pageable) {
+                                                 Pageable pageable,
+                                                 @RequestParam(defaultValue = "page") String mode,
+                                                 @RequestParam(required = false) String cursor) {
         try {
+            ListingMode listingMode = modeOf(mode, cursor);
+            if (listingMode != ListingMode.PAGE) {
+                Object leads = listWithoutCount(listingMode, new LeadListingFilter(null, null, counselorId), cursor, pageable);
+                return ResponseEntity.ok(ApiResponse.success("Counselor leads retrieved successfully", leads));
+            }
+
             Page<Lead> leads = leadService.getLeadsByCounselor(counselorId, pageable);
             Page<LeadResponse> leadResponses = leads.map(LeadResponse::fromEntity);
             return ResponseEntity.ok(ApiResponse.success("Counselor leads retrieved successfully", leadResponses));
+        } catch (InvalidRequestException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid listing request", e.getMessage()));
         } catch (Exception e) {
             log.error("Error retrieving counselor leads: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -127,6 +247,21 @@ public class LeadController {
         }
     }
 
+    // A cursor always means cursor mode
+    private static ListingMode modeOf(String mode, String cursor) {
+        return cursor != null && !cursor.isBlank() ? ListingMode.CURSOR : ListingMode.from(mode);
+    }
+
+    // Slice and cursor listings, page mode stays with each endpoint
+    private Object listWithoutCount(ListingMode mode, LeadListingFilter filter, String cursor, Pageable pageable) {
+        if (mode == ListingMode.SLICE) {
+            return leadService.getLeadSlice(filter, pageable).map(LeadResponse::fromEntity);
+        }
+        LeadWindow window = leadService.scrollLeads(filter, cursor, pageable);
+        List<LeadResponse> leads = window.leads().stream().map(LeadResponse::fromEntity).toList();
+        return new LeadWindowResponse(leads, leads.size(), window.nextCursor() != null, window.nextCursor());
+    }
+
     // Update lead
     @PutMapping("/{id}")
     public ResponseEntity<?> updateLead(@PathVariable String id,
@@ -381,10 +516,28 @@ public class LeadController {
     public ResponseEntity<?> exportLeadsData(@PathVariable String institutionId,
                                              @RequestParam(required = false) LeadStatus status,
                                              @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime fromDate,
-                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime toDate) {
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime toDate,
+                                             @RequestParam(defaultValue = "csv") String format,
+                                             @RequestParam(required = false) String after,
+                                             @RequestParam(required = false) Integer limit) {
         try {
-            List<LeadResponse> leadsData = leadService.exportLeadsData(institutionId, status, fromDate, toDate);
-            return ResponseEntity.ok(ApiResponse.success("Leads data exported successfully", leadsData));
+            LeadExportQuery query = exportService.prepare(institutionId, status, fromDate, toDate, after, limit);
+            ExportFormat exportFormat = ExportFormat.from(format);
+
+            StreamingResponseBody body = out -> exportService.export(query, exportFormat, out);
+
+            return ResponseEntity.ok()
+                    .contentType(exportFormat.getMediaType())
+                    .header(HttpHeaders.CONTENT_DISPOSITION,
+                            "attachment; filename=\"leads-" + institutionId + "." + exportFormat.getExtension() + "\"")
+                    .body(body);
+        } catch (InvalidRequestException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid export request", e.getMessage()));
+        } catch (RuntimeException e) {
+            log.warn("Institution not found: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("Institution not found", e.getMessage()));
         } catch (Exception e) {
             log.error("Error exporting leads data: ", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -410,4 +563,27 @@ public class LeadController {
                     .body(ApiResponse.error("Failed to retrieve daily statistics", "An unexpected error occurred"));
         }
     }
-}
\ No newline at end of file
+
+    private ResponseEntity<?> batchResponse(BatchIngestResponse result) {
+        if (result.getRejectedRows() == 0) {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ApiResponse.success("Leads imported successfully", result));
+        }
+        if (result.getAcceptedRows() > 0) {
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ApiResponse.warning("Leads imported with rejected rows", result));
+        }
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.builder()
+                        .success(false)
+                        .message("No leads imported")
+                        .data(result)
+                        .timestamp(LocalDateTime.now().toString())
+                        .code(400)
+                        .build());
+    }
+
+    private String currentUser(Authentication authentication) {
+        return authentication != null ? authentication.getName() : "SYSTEM";
+    }
+}
@@ -0,0 +1,99 @@
+package com.admission_crm.lead_management.Controller;
+
+import com.admission_crm.lead_management.Exception.InvalidRequestException;
+import com.admission_crm.lead_management.Payload.Request.NotificationReadRequest;
+import com.admission_crm.lead_management.Payload.Response.ApiResponse;
+import com.admission_crm.lead_management.Payload.Response.NotificationPageResponse;
+import com.admission_crm.lead_management.Service.Notification.NotificationInbox;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/notifications")
+@RequiredArgsConstructor
+@Slf4j
+@CrossOrigin(origins = "*")
+public class NotificationController {
+
+    private final NotificationInbox notificationInbox;
+
+    /**
+     * Get a page of the current user's notifications, newest first
+     */
+    @GetMapping
+    public ResponseEntity<?> getNotifications(@RequestParam(required = false) String after,
+                                              @RequestParam(defaultValue = "20") int limit,
+                                              @RequestParam(defaultValue = "false") boolean unreadOnly,
+                                              Authentication authentication) {
+        try {
+            NotificationPageResponse page = notificationInbox.list(authentication.getName(), after, limit, unreadOnly);
+            return ResponseEntity.ok(ApiResponse.success("Notifications retrieved successfully", page));
+        } catch (InvalidRequestException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Invalid notification request", e.getMessage()));
+        } catch (RuntimeException e) {
+            log.warn("User not found: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("User not found", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error retrieving notifications: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to retrieve notifications", "An unexpected error occurred"));
+        }
+    }
+
+    /**
+     * Get the current user's unread notification count
+     */
+    @GetMapping("/unread-count")
+    public ResponseEntity<?> getUnreadCount(Authentication authentication) {
+        int unread = notificationInbox.unreadCount(authentication.getName());
+        return ResponseEntity.ok(ApiResponse.success("Unread count retrieved successfully", Map.of("unreadCount", unread)));
+    }
+
+    /**
+     * Mark notifications of the current user as read
+     */
+    @PutMapping("/read")
+    public ResponseEntity<?> markRead(@Valid @RequestBody NotificationReadRequest request,
+                                      Authentication authentication) {
+        try {
+            int updated = notificationInbox.markRead(authentication.getName(), request.getNotificationIds());
+            return ResponseEntity.ok(ApiResponse.success("Notifications marked as read", Map.of("updated", updated)));
+        } catch (RuntimeException e) {
+            log.warn("User not found: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("User not found", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error marking notifications as read: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to mark notifications as read", "An unexpected error occurred"));
+        }
+    }
+
+    /**
+     * Mark all notifications of the current user as read
+     */
+    @PutMapping("/read-all")
+    public ResponseEntity<?> markAllRead(Authentication authentication) {
+        try {
+            int updated = notificationInbox.markAllRead(authentication.getName());
+            return ResponseEntity.ok(ApiResponse.success("All notifications marked as read", Map.of("updated", updated)));
+        } catch (RuntimeException e) {
+            log.warn("User not found: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error("User not found", e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error marking all notifications as read: ", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to mark notifications as read", "An unexpected error occurred"));
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.admission_crm.lead_management.Controller;
+
+import com.admission_crm.lead_management.Service.Realtime.RealtimeAnalyticsPublisher;
+import lombok.RequiredArgsConstructor;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+import java.util.Map;
+
+@Controller
+@RequiredArgsConstructor
+public class RealtimeAnalyticsController {
+
+    private final RealtimeAnalyticsPublisher realtimePublisher;
+
+    /**
+     * Snapshot sent once to a client subscribing to /app/institutions/{institutionId}/realtime,
+     * deltas follow on /topic/institutions/{institutionId}/realtime
+     */
+    @SubscribeMapping("/institutions/{institutionId}/realtime")
+    public Map<String, Object> realtimeSnapshot(@DestinationVariable String institutionId) {
+        return realtimePublisher.snapshot(institutionId);
+    }
+}
@@ -0,0 +1,49 @@
+package com.admission_crm.lead_management.Entity.AnalyticsAndReporting;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Number of leads of an institution created in one hour, per source and current status. Lead
+ * creation and status or source changes move the count between rows incrementally; the rollup
+ * backfill rebuilds the rows from the leads table.
+ */
+@Entity
+@Table(name = "lead_rollups", indexes = {
+        @Index(name = "idx_lead_rollups_institution_day", columnList = "institution_id, bucket_day, bucket_hour")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadRollup {
+    // institutionId:day:hour:source:status, the upsert key
+    @Id
+    @Column(name = "rollup_key", length = 120)
+    private String rollupKey;
+
+    @Column(name = "institution_id", nullable = false, length = 36)
+    private String institutionId;
+
+    @Column(name = "bucket_day", nullable = false)
+    private LocalDate bucketDay;
+
+    @Column(name = "bucket_hour", nullable = false)
+    private Integer bucketHour;
+
+    @Column(nullable = false, length = 32)
+    private String source;
+
+    @Column(nullable = false, length = 32)
+    private String status;
+
+    @Column(nullable = false)
+    private Long count;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
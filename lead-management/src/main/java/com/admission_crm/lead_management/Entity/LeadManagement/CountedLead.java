@@ -0,0 +1,15 @@
+package com.admission_crm.lead_management.Entity.LeadManagement;
+
+import java.time.LocalDateTime;
+
+/**
+ * The counted attributes of a lead as last read from or written to the database
+ */
+public record CountedLead(String institutionId, LeadStatus status, Lead.LeadSource source, Lead.LeadPriority priority,
+                          String assignedCounselor, LocalDateTime createdAt) {
+
+    public static CountedLead of(Lead lead) {
+        return new CountedLead(lead.getInstitutionId(), lead.getStatus(), lead.getLeadSource(), lead.getPriority(),
+                lead.getAssignedCounselor(), lead.getCreatedAt());
+    }
+}
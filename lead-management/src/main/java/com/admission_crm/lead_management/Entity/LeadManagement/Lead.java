@@ -6,6 +6,8 @@ import com.admission_crm.lead_management.Entity.Communication.Communication;
 import com.admission_crm.lead_management.Entity.CoreEntities.Institution;
 import com.admission_crm.lead_management.Entity.CoreEntities.User;
 import com.admission_crm.lead_management.Entity.FollowUp.LeadFollowUp;
+import com.admission_crm.lead_management.Entity.Listener.LeadCounterListener;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -20,7 +22,14 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "leads")
+@Table(name = "leads", indexes = {
+        @Index(name = "idx_leads_counselor_status", columnList = "assigned_counselor, status"),
+        // Seek paths of the cursor listings in their default createdAt order
+        @Index(name = "idx_leads_created", columnList = "created_at, id"),
+        @Index(name = "idx_leads_institution_created", columnList = "institution_id, created_at, id"),
+        @Index(name = "idx_leads_counselor_created", columnList = "assigned_counselor, created_at, id")
+})
+@EntityListeners(LeadCounterListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -43,6 +52,11 @@ public class Lead {
     @Column(nullable = false, length = 15)
     private String phone;
 
+    // Digits of the phone number, matched by the lead search index regardless of formatting
+    @JsonIgnore
+    @Column(name = "phone_digits", length = 15)
+    private String phoneDigits;
+
     @Column(length = 15)
     private String alternatePhone;
 
@@ -78,11 +92,22 @@ public class Lead {
 
     private Double leadScore = 0.0;
 
+    // Existing lead with the same email or phone when this one was flagged as a duplicate on intake
+    @Column(name = "duplicate_of", length = 36)
+    private String duplicateOf;
+
+    // Derived from the in-memory queue index on read, never written to the database
+    @Transient
     private Integer queuePosition;
 
     @Enumerated(EnumType.STRING)
     private LeadPriority priority = LeadPriority.LOW;
 
+    // Values the lead counters last saw for this lead, maintained by LeadCounterListener
+    @Transient
+    @JsonIgnore
+    private CountedLead counted;
+
     @Column(length = 100)
     private String qualification;
 
@@ -121,6 +146,12 @@ public class Lead {
 
     private LocalDateTime completedAt;
 
+    @PrePersist
+    @PreUpdate
+    void normalizePhone() {
+        phoneDigits = phone != null ? phone.replaceAll("[^0-9]", "") : null;
+    }
+
     public String getFullName() {
         return firstName + " " + lastName;
     }
@@ -0,0 +1,43 @@
+package com.admission_crm.lead_management.Entity.LeadManagement;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Materialized lead histogram: number of leads of an institution per status, source or priority.
+ * Rows are only changed through increments applied in the transaction that changed the leads, and
+ * repaired by the periodic reconciliation against the leads table.
+ */
+@Entity
+@Table(name = "lead_counters", indexes = {
+        @Index(name = "idx_lead_counters_institution", columnList = "institution_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadCounter {
+    // institutionId:dimension:bucket, the upsert key
+    @Id
+    @Column(name = "counter_key", length = 80)
+    private String counterKey;
+
+    @Column(name = "institution_id", nullable = false, length = 36)
+    private String institutionId;
+
+    // STATUS, SOURCE or PRIORITY
+    @Column(nullable = false, length = 16)
+    private String dimension;
+
+    @Column(nullable = false, length = 32)
+    private String bucket;
+
+    @Column(nullable = false)
+    private Long count;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,58 @@
+package com.admission_crm.lead_management.Entity.LeadManagement;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Leads of one institution the clustering job considers the same person, waiting for an admin to
+ * merge or dismiss them. Written by the job with JDBC, read and reviewed through JPA.
+ */
+@Entity
+@Table(name = "lead_duplicate_clusters", indexes = {
+        @Index(name = "idx_duplicate_clusters_review", columnList = "institution_id, status, confidence")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadDuplicateCluster {
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(name = "institution_id", nullable = false, length = 36)
+    private String institutionId;
+
+    // Mean similarity of the matched pairs, 0 to 1
+    @Column(nullable = false)
+    private Double confidence;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ReviewStatus status = ReviewStatus.PENDING;
+
+    // Oldest lead of the cluster, kept when merging without an explicit choice
+    @Column(name = "primary_lead_id", length = 36)
+    private String primaryLeadId;
+
+    @ElementCollection
+    @CollectionTable(name = "lead_duplicate_cluster_members", joinColumns = @JoinColumn(name = "cluster_id"))
+    @Column(name = "lead_id", length = 36)
+    private List<String> leadIds = new ArrayList<>();
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    private String reviewedBy;
+
+    private LocalDateTime reviewedAt;
+
+    public enum ReviewStatus {
+        PENDING, MERGED, DISMISSED
+    }
+}
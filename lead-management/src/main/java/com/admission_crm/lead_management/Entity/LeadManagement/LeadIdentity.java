@@ -0,0 +1,38 @@
+package com.admission_crm.lead_management.Entity.LeadManagement;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A normalized email or phone of a lead, hashed together with its institution. The primary key makes
+ * "is this person already a lead of the institution" one index lookup.
+ */
+@Entity
+@Table(name = "lead_identities", indexes = {
+        @Index(name = "idx_lead_identities_lead", columnList = "lead_id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadIdentity {
+    // SHA-256 of institution id, kind and normalized value, hex encoded
+    @Id
+    @Column(name = "key_hash", length = 64)
+    private String keyHash;
+
+    @Column(name = "institution_id", nullable = false, length = 36)
+    private String institutionId;
+
+    @Column(nullable = false, length = 8)
+    private String kind;
+
+    @Column(name = "lead_id", nullable = false, length = 36)
+    private String leadId;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,56 @@
+package com.admission_crm.lead_management.Entity.LeadManagement;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Side effect of a lead change, written in the same transaction as the change and delivered by the
+ * outbox relay once that transaction has committed. The auto-increment id is the delivery order.
+ */
+@Entity
+@Table(name = "lead_outbox", indexes = {
+        @Index(name = "idx_lead_outbox_pending", columnList = "dispatched_at, id"),
+        @Index(name = "idx_lead_outbox_order", columnList = "order_key, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadOutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // The lead the event belongs to, or null for counselor and institution level events
+    @Column(name = "lead_id", length = 36)
+    private String leadId;
+
+    @Column(name = "institution_id", length = 36)
+    private String institutionId;
+
+    // Events with the same key are delivered in id order: the lead, else the recipient or audited entity
+    @Column(name = "order_key", length = 80)
+    private String orderKey;
+
+    @Column(name = "event_type", nullable = false, length = 32)
+    private String eventType;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "dispatched_at")
+    private LocalDateTime dispatchedAt;
+
+    // Relay instance delivering the event, the claim lapses at claimedUntil
+    @Column(name = "claimed_by", length = 36)
+    private String claimedBy;
+
+    @Column(name = "claimed_until")
+    private LocalDateTime claimedUntil;
+}
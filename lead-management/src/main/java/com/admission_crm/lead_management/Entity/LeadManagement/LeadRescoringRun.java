@@ -0,0 +1,69 @@
+package com.admission_crm.lead_management.Entity.LeadManagement;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One pass of the rescoring job over the leads table. The checkpoint is the last lead id of the
+ * longest run of written chunks, so a crashed run resumes right after it. The owning instance
+ * refreshes updatedAt as a heartbeat, which tells a crashed run from one still in progress.
+ */
+@Entity
+@Table(name = "lead_rescoring_runs", indexes = {
+        @Index(name = "idx_rescoring_runs_status", columnList = "status, calculation_version")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_rescoring_runs_running", columnNames = "running_slot")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadRescoringRun {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "calculation_version", nullable = false, length = 10)
+    private String calculationVersion;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private RunStatus status;
+
+    // Leads up to and including this id are rescored, empty before the first chunk
+    @Column(name = "checkpoint_lead_id", nullable = false, length = 36)
+    private String checkpointLeadId;
+
+    @Column(name = "processed_leads", nullable = false)
+    private Long processedLeads;
+
+    @Column(name = "total_leads")
+    private Long totalLeads;
+
+    @Column(name = "started_at", nullable = false)
+    private LocalDateTime startedAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    @Column(length = 500)
+    private String error;
+
+    // Instance executing the run, workers only commit while it is theirs
+    @Column(name = "owner", length = 36)
+    private String owner;
+
+    // 1 while RUNNING and null afterwards, the unique constraint allows one running run at a time
+    @Column(name = "running_slot")
+    private Integer runningSlot;
+
+    public enum RunStatus {
+        RUNNING, COMPLETED, FAILED
+    }
+}
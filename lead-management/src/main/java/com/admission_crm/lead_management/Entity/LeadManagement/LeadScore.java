@@ -10,7 +10,10 @@ import org.hibernate.annotations.UpdateTimestamp;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "lead_scores")
+// One row per lead, upserted by the rescoring job
+@Table(name = "lead_scores", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_lead_scores_lead", columnNames = "lead_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -19,7 +22,7 @@ public class LeadScore {
     @GeneratedValue(strategy = GenerationType.UUID)
     private String id;
 
-    @Column(name = "lead_id")
+    @Column(name = "lead_id", length = 36)
     private String leadId;
 
     @Column(name = "total_score")
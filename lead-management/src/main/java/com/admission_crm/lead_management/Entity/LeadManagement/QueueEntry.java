@@ -0,0 +1,70 @@
+package com.admission_crm.lead_management.Entity.LeadManagement;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row per queued lead. The row carries its own sort key (priority, score, createdAt, sequence)
+ * so manual moves survive restarts, and the composite index matches the dequeue order.
+ */
+@Entity
+@Table(name = "lead_queue", indexes = {
+        @Index(name = "idx_lead_queue_dequeue", columnList = "institution_id, priority DESC, score DESC, created_at ASC, sort_sequence ASC")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class QueueEntry implements Persistable<String> {
+    @Id
+    @Column(name = "lead_id", length = 36)
+    private String leadId;
+
+    @Column(name = "institution_id", nullable = false, length = 36)
+    private String institutionId;
+
+    @Column(nullable = false)
+    private Integer priority;
+
+    // Aged sort score, the lead score minus an amount growing with createdAt, see QueueAging
+    @Column(nullable = false)
+    private Double score;
+
+    // The lead's creation time, kept at microseconds like QueueKey
+    @Column(name = "created_at", nullable = false, columnDefinition = "datetime(6)")
+    private LocalDateTime createdAt;
+
+    // Places manually moved leads among the leads sharing the fields above, 0 otherwise
+    @Column(name = "sort_sequence", nullable = false, columnDefinition = "bigint not null default 0")
+    private Long sortSequence = 0L;
+
+    @CreationTimestamp
+    @Column(name = "enqueued_at")
+    private LocalDateTime enqueuedAt;
+
+    // Rows are only ever inserted fresh; reporting them as new lets save/saveAll persist (and
+    // JDBC-batch) them without the SELECT a merge on an assigned id would issue first
+    @Transient
+    private boolean newEntry = true;
+
+    @Override
+    public String getId() {
+        return leadId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newEntry;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        this.newEntry = false;
+    }
+}
@@ -0,0 +1,106 @@
+package com.admission_crm.lead_management.Entity.Listener;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.CountedLead;
+import com.admission_crm.lead_management.Entity.LeadManagement.Lead;
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
+import com.admission_crm.lead_management.Service.Aggregate.LeadDeltaAggregate;
+import com.admission_crm.lead_management.Service.Capacity.CounselorCapacityTracker;
+import com.admission_crm.lead_management.Service.Event.LeadChangeType;
+import com.admission_crm.lead_management.Service.Event.LeadChangedEvent;
+import com.admission_crm.lead_management.Service.Search.LeadSuggestIndex;
+import jakarta.persistence.*;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Turns lead inserts, updates and deletes into deltas of every {@link LeadDeltaAggregate} (lead
+ * counters and rollups), counselor capacity changes, typeahead index updates and
+ * {@link LeadChangedEvent}s.
+ * Each lead remembers the values it was last counted with, so an update only moves it between the
+ * buckets that actually changed.
+ */
+@Component
+public class LeadCounterListener {
+
+    // Resolved on first use, Hibernate creates the listener while the EntityManagerFactory the services need is still starting
+    private final ObjectProvider<LeadDeltaAggregate<?>> aggregates;
+    private final ObjectProvider<CounselorCapacityTracker> capacityTracker;
+    private final ObjectProvider<LeadSuggestIndex> suggestIndex;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public LeadCounterListener(ObjectProvider<LeadDeltaAggregate<?>> aggregates,
+                               ObjectProvider<CounselorCapacityTracker> capacityTracker,
+                               ObjectProvider<LeadSuggestIndex> suggestIndex,
+                               ApplicationEventPublisher eventPublisher) {
+        this.aggregates = aggregates;
+        this.capacityTracker = capacityTracker;
+        this.suggestIndex = suggestIndex;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostLoad
+    void onLoad(Lead lead) {
+        lead.setCounted(CountedLead.of(lead));
+        aggregates.forEach(LeadDeltaAggregate::track);
+    }
+
+    @PrePersist
+    void beforeInsert(Lead lead) {
+        aggregates.forEach(LeadDeltaAggregate::track);
+    }
+
+    @PostPersist
+    void onInsert(Lead lead) {
+        CountedLead counted = CountedLead.of(lead);
+        aggregates.forEach(aggregate -> aggregate.recordCreated(counted));
+        capacityTracker.getObject().recordChange(null, counted);
+        suggestIndex.getObject().recordChange(lead);
+        lead.setCounted(counted);
+        publish(lead, LeadChangeType.CREATED);
+    }
+
+    @PostUpdate
+    void onUpdate(Lead lead) {
+        CountedLead counted = CountedLead.of(lead);
+        // Without a baseline the delta is unknown, reconciliation and the capacity rebuild repair it
+        if (lead.getCounted() != null) {
+            CountedLead before = lead.getCounted();
+            aggregates.forEach(aggregate -> aggregate.recordChange(before, counted));
+            capacityTracker.getObject().recordChange(lead.getCounted(), counted);
+        }
+        suggestIndex.getObject().recordChange(lead);
+        LeadChangeType type = changeType(lead.getCounted(), counted);
+        lead.setCounted(counted);
+        publish(lead, type);
+    }
+
+    @PostRemove
+    void onDelete(Lead lead) {
+        CountedLead counted = lead.getCounted() != null ? lead.getCounted() : CountedLead.of(lead);
+        aggregates.forEach(aggregate -> aggregate.recordRemoved(counted));
+        capacityTracker.getObject().recordChange(counted, null);
+        suggestIndex.getObject().recordRemoved(lead);
+        publish(lead, LeadChangeType.DELETED);
+    }
+
+    private void publish(Lead lead, LeadChangeType type) {
+        eventPublisher.publishEvent(new LeadChangedEvent(lead.getInstitutionId(), lead.getId(), type, lead.getStatus()));
+    }
+
+    private static LeadChangeType changeType(CountedLead before, CountedLead after) {
+        if (before == null) {
+            return LeadChangeType.UPDATED;
+        }
+        if (before.status() != after.status()) {
+            if (after.status() == LeadStatus.COMPLETED) {
+                return LeadChangeType.COMPLETED;
+            }
+            return after.status() == LeadStatus.ASSIGNED ? LeadChangeType.ASSIGNED : LeadChangeType.STATUS_CHANGED;
+        }
+        if (after.assignedCounselor() != null && !after.assignedCounselor().equals(before.assignedCounselor())) {
+            return LeadChangeType.ASSIGNED;
+        }
+        return LeadChangeType.UPDATED;
+    }
+}
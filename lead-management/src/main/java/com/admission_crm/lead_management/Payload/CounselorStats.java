@@ -0,0 +1,23 @@
+package com.admission_crm.lead_management.Payload;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CounselorStats {
+    private String counselorId;
+    private String counselorName;
+    private String counselorEmail;
+    private Long totalLeads;
+    private Long activeLeads;
+    private Long completedLeads; // COMPLETED or REJECTED
+    private Double completionRate;
+    private Integer maxCapacity;
+    private Double utilizationPercentage;
+    private String status; // AVAILABLE, BUSY
+    private Map<String, Long> leadsByStatus;
+}
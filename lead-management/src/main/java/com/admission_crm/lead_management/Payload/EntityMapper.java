@@ -8,11 +8,16 @@ import com.admission_crm.lead_management.Payload.Request.UniversityCreateRequest
 import com.admission_crm.lead_management.Payload.Request.UniversityUpdateRequest;
 import com.admission_crm.lead_management.Payload.Response.InstitutionResponseDTO;
 import com.admission_crm.lead_management.Payload.Response.UniversityResponseDTO;
+import com.admission_crm.lead_management.Service.Queue.LeadQueueEngine;
+import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 @Component
+@RequiredArgsConstructor
 public class EntityMapper {
 
+    private final LeadQueueEngine queueEngine;
+
     // Institution Mappers
     public Institution toEntity(InstitutionCreateRequest dto) {
         Institution institution = new Institution();
@@ -49,7 +54,7 @@ public class EntityMapper {
         dto.setDepartments(institution.getDepartments());
         dto.setCourses(institution.getCourses());
         dto.setLeads(institution.getLeads());
-        dto.setQueueSize(institution.getQueueSize());
+        dto.setQueueSize(institution.getId() != null ? queueEngine.queueFor(institution.getId()).size() : 0);
         dto.setAvailableCounselorSlots(institution.getAvailableCounselorSlots());
         dto.setCreatedAt(institution.getCreatedAt());
         dto.setUpdatedAt(institution.getUpdatedAt());
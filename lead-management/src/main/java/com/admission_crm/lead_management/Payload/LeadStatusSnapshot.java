@@ -0,0 +1,88 @@
+package com.admission_crm.lead_management.Payload;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lead counts of one institution per status, source and priority, read from the lead counters in
+ * one lookup. Statistics, the conversion funnel and the realtime summary are all derived from the
+ * same snapshot, so a dashboard request needs one query instead of one count per status and view.
+ */
+@Getter
+public class LeadStatusSnapshot {
+
+    private final String institutionId;
+    private final Map<LeadStatus, Long> counts;
+    private final Map<String, Long> sourceCounts;
+    private final Map<String, Long> priorityCounts;
+    private final long totalLeads;
+    private final LocalDateTime calculatedAt;
+
+    public LeadStatusSnapshot(String institutionId, Map<LeadStatus, Long> counts,
+                              Map<String, Long> sourceCounts, Map<String, Long> priorityCounts) {
+        this.institutionId = institutionId;
+        Map<LeadStatus, Long> copy = new EnumMap<>(LeadStatus.class);
+        copy.putAll(counts);
+        this.counts = Collections.unmodifiableMap(copy);
+        this.sourceCounts = Collections.unmodifiableMap(new LinkedHashMap<>(sourceCounts));
+        this.priorityCounts = Collections.unmodifiableMap(new LinkedHashMap<>(priorityCounts));
+        this.totalLeads = copy.values().stream().mapToLong(Long::longValue).sum();
+        this.calculatedAt = LocalDateTime.now();
+    }
+
+    public long count(LeadStatus status) {
+        return counts.getOrDefault(status, 0L);
+    }
+
+    public LeadStatistics toStatistics() {
+        long convertedLeads = count(LeadStatus.COMPLETED);
+        double conversionRate = totalLeads > 0 ? ((double) convertedLeads / totalLeads) * 100 : 0.0;
+
+        Map<String, Long> leadsByStatus = new LinkedHashMap<>();
+        counts.forEach((status, count) -> leadsByStatus.put(status.name(), count));
+
+        return LeadStatistics.builder()
+                .totalLeads(totalLeads)
+                .newLeads(count(LeadStatus.NEW))
+                .queuedLeads(count(LeadStatus.QUEUED))
+                .assignedLeads(count(LeadStatus.ASSIGNED))
+                .convertedLeads(convertedLeads)
+                .rejectedLeads(count(LeadStatus.REJECTED))
+                .conversionRate(conversionRate)
+                .leadsByStatus(leadsByStatus)
+                .leadsBySource(sourceCounts)
+                .leadsByPriority(priorityCounts)
+                .calculatedAt(calculatedAt)
+                .build();
+    }
+
+    public Map<String, Long> toFunnel() {
+        Map<String, Long> funnel = new LinkedHashMap<>();
+
+        funnel.put("NEW", count(LeadStatus.NEW));
+        funnel.put("QUEUED", count(LeadStatus.QUEUED));
+        funnel.put("ASSIGNED", count(LeadStatus.ASSIGNED));
+        funnel.put("IN_PROGRESS", count(LeadStatus.IN_PROGRESS));
+        funnel.put("CONTACTED", count(LeadStatus.CONTACTED));
+        funnel.put("QUALIFIED", count(LeadStatus.FOLLOW_UP));
+        funnel.put("CONVERTED", count(LeadStatus.COMPLETED));
+        funnel.put("REJECTED", count(LeadStatus.REJECTED));
+
+        return funnel;
+    }
+
+    public Map<String, Object> toRealtimeSummary() {
+        return Map.of(
+                "totalLeads", totalLeads,
+                "newLeads", count(LeadStatus.NEW),
+                "queuedLeads", count(LeadStatus.QUEUED),
+                "assignedLeads", count(LeadStatus.ASSIGNED)
+        );
+    }
+}
@@ -1,10 +1,14 @@
 package com.admission_crm.lead_management.Payload.Request;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class LeadRequest {
 
     private String firstName;
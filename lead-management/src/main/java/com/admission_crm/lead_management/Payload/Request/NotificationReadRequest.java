@@ -0,0 +1,19 @@
+package com.admission_crm.lead_management.Payload.Request;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationReadRequest {
+
+    @NotEmpty(message = "Notification IDs list cannot be empty")
+    private List<String> notificationIds;
+}
@@ -0,0 +1,31 @@
+package com.admission_crm.lead_management.Payload.Response;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchIngestResponse {
+    private Integer totalRows;
+    private Integer acceptedRows;
+    private Integer rejectedRows;
+    private Map<String, Integer> queuedByInstitution = new HashMap<>();
+    private List<RowError> errors = new ArrayList<>();
+    private Long durationMillis;
+    private LocalDateTime completedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private Integer row; // 1-based row (or line) number in the submitted batch
+        private String email;
+        private String message;
+    }
+}
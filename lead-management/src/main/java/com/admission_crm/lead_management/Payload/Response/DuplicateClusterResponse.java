@@ -0,0 +1,24 @@
+package com.admission_crm.lead_management.Payload.Response;
+
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DuplicateClusterResponse {
+    private String id;
+    private String institutionId;
+    private Double confidence;
+    private String status;
+    private String primaryLeadId;
+    @Builder.Default
+    private List<LeadResponse> leads = new ArrayList<>();
+    private LocalDateTime createdAt;
+    private String reviewedBy;
+    private LocalDateTime reviewedAt;
+}
@@ -36,6 +36,7 @@ public class LeadResponse {
     private String assignedCounselorName;
     private Double leadScore;
     private Integer queuePosition;
+    private String duplicateOf;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
     private LocalDateTime assignedAt;
@@ -66,6 +67,7 @@ public class LeadResponse {
                 .assignedCounselorId(lead.getAssignedCounselor())
                 .leadScore(lead.getLeadScore())
                 .queuePosition(lead.getQueuePosition())
+                .duplicateOf(lead.getDuplicateOf())
                 .createdAt(lead.getCreatedAt())
                 .updatedAt(lead.getUpdatedAt())
                 .assignedAt(lead.getAssignedAt())
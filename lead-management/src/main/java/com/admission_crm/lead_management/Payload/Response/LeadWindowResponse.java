@@ -0,0 +1,16 @@
+package com.admission_crm.lead_management.Payload.Response;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LeadWindowResponse {
+    private List<LeadResponse> leads = new ArrayList<>();
+    private Integer size;
+    private Boolean hasNext;
+    private String nextCursor; // pass back as cursor to get the following page
+}
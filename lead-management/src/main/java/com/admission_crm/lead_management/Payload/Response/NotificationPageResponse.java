@@ -0,0 +1,16 @@
+package com.admission_crm.lead_management.Payload.Response;
+
+import com.admission_crm.lead_management.Entity.Notification.Notification;
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPageResponse {
+    private List<Notification> notifications = new ArrayList<>();
+    private String nextCursor; // null on the last page
+    private Integer unreadCount;
+}
@@ -0,0 +1,13 @@
+package com.admission_crm.lead_management.Repository;
+
+import com.admission_crm.lead_management.Entity.SettingsAndConfigs.InstituteSettings;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface InstituteSettingsRepository extends JpaRepository<InstituteSettings, String> {
+
+    Optional<InstituteSettings> findByInstitutionId(String institutionId);
+}
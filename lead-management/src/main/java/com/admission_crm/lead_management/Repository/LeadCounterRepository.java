@@ -0,0 +1,13 @@
+package com.admission_crm.lead_management.Repository;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface LeadCounterRepository extends JpaRepository<LeadCounter, String> {
+
+    List<LeadCounter> findByInstitutionId(String institutionId);
+}
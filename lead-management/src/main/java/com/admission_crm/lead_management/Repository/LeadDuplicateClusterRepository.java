@@ -0,0 +1,15 @@
+package com.admission_crm.lead_management.Repository;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadDuplicateCluster;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface LeadDuplicateClusterRepository extends JpaRepository<LeadDuplicateCluster, String> {
+
+    // Review order, served by idx_duplicate_clusters_review
+    Page<LeadDuplicateCluster> findByInstitutionIdAndStatusOrderByConfidenceDesc(
+            String institutionId, LeadDuplicateCluster.ReviewStatus status, Pageable pageable);
+}
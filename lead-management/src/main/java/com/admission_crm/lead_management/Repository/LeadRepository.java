@@ -4,18 +4,22 @@ import com.admission_crm.lead_management.Entity.LeadManagement.Lead;
 import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 
 @Repository
-public interface LeadRepository extends JpaRepository<Lead, String> {
+public interface LeadRepository extends JpaRepository<Lead, String>, JpaSpecificationExecutor<Lead> {
 
     // Basic CRUD enhancements
     Optional<Lead> findByEmail(String email);
@@ -24,12 +28,35 @@ public interface LeadRepository extends JpaRepository<Lead, String> {
     Page<Lead> findByAssignedCounselor(String counselorId, Pageable pageable);
     Page<Lead> findByInstitutionIdAndStatus(String institutionId, LeadStatus status, Pageable pageable);
 
+    // Listing without the count query of a Page, the slice only looks one row ahead
+    @Query("SELECT l FROM Lead l WHERE " +
+            "(:institutionId IS NULL OR l.institutionId = :institutionId) AND " +
+            "(:status IS NULL OR l.status = :status) AND " +
+            "(:counselorId IS NULL OR l.assignedCounselor = :counselorId)")
+    Slice<Lead> findSlice(@Param("institutionId") String institutionId,
+                          @Param("status") LeadStatus status,
+                          @Param("counselorId") String counselorId,
+                          Pageable pageable);
+
     // Queue management queries
     List<Lead> findByInstitutionIdAndStatusOrderByCreatedAtAsc(String institutionId, LeadStatus status);
 
-    @Query("SELECT l FROM Lead l WHERE l.institutionId = :institutionId AND l.status = :status ORDER BY l.priority DESC, l.leadScore DESC, l.createdAt ASC")
+    // q.score is the aged sort score, so this is the queue order at any point in time
+    @Query("SELECT l FROM Lead l, QueueEntry q WHERE q.leadId = l.id AND q.institutionId = :institutionId AND l.status = :status " +
+            "ORDER BY q.priority DESC, q.score DESC, q.createdAt ASC, q.sortSequence ASC, q.leadId ASC")
     List<Lead> findQueuedLeadsByPriority(@Param("institutionId") String institutionId, @Param("status") LeadStatus status);
 
+    // Conditional claim: only one caller can move a given lead out of QUEUED, returns the number of rows updated.
+    // Bypasses the persistence context, the caller refreshes the claimed lead if it was already loaded
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Lead l SET l.status = :assigned, l.assignedCounselor = :counselorId, l.assignedAt = :assignedAt " +
+            "WHERE l.id = :leadId AND l.status = :queued")
+    int claimQueuedLead(@Param("leadId") String leadId,
+                        @Param("counselorId") String counselorId,
+                        @Param("assignedAt") LocalDateTime assignedAt,
+                        @Param("queued") LeadStatus queued,
+                        @Param("assigned") LeadStatus assigned);
+
     // Analytics queries
     @Query("SELECT COUNT(l) FROM Lead l WHERE l.institutionId = :institutionId AND (:status IS NULL OR l.status = :status)")
     Long countByInstitutionIdAndStatus(@Param("institutionId") String institutionId, @Param("status") LeadStatus status);
@@ -37,6 +64,12 @@ public interface LeadRepository extends JpaRepository<Lead, String> {
     @Query("SELECT COUNT(l) FROM Lead l WHERE l.assignedCounselor = :counselorId AND l.status IN :statuses")
     Long countActiveLeadsByCounselor(@Param("counselorId") String counselorId, @Param("statuses") List<LeadStatus> statuses);
 
+    @Query("SELECT l.assignedCounselor, COUNT(l) FROM Lead l WHERE l.assignedCounselor IS NOT NULL AND l.status IN :statuses GROUP BY l.assignedCounselor")
+    List<Object[]> countActiveLeadsPerCounselor(@Param("statuses") Collection<LeadStatus> statuses);
+
+    @Query("SELECT l.assignedCounselor, l.status, COUNT(l) FROM Lead l WHERE l.assignedCounselor IN :counselorIds GROUP BY l.assignedCounselor, l.status")
+    List<Object[]> countLeadsPerCounselorAndStatus(@Param("counselorIds") Collection<String> counselorIds);
+
     // Export and reporting queries
     List<Lead> findByInstitutionIdOrderByCreatedAtAsc(String institutionId);
 
@@ -0,0 +1,33 @@
+package com.admission_crm.lead_management.Repository;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.QueueEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface QueueEntryRepository extends JpaRepository<QueueEntry, String> {
+
+    // Dequeue order, served by idx_lead_queue_dequeue
+    List<QueueEntry> findByInstitutionIdOrderByPriorityDescScoreDescCreatedAtAsc(String institutionId);
+
+    long countByInstitutionId(String institutionId);
+
+    @Modifying
+    @Query("DELETE FROM QueueEntry q WHERE q.leadId = :leadId")
+    int deleteEntry(@Param("leadId") String leadId);
+
+    @Modifying
+    @Query("UPDATE QueueEntry q SET q.priority = :priority, q.score = :score, q.createdAt = :createdAt, " +
+            "q.sortSequence = :sequence WHERE q.leadId = :leadId")
+    int updateSortKey(@Param("leadId") String leadId,
+                      @Param("priority") Integer priority,
+                      @Param("score") Double score,
+                      @Param("createdAt") LocalDateTime createdAt,
+                      @Param("sequence") Long sequence);
+}
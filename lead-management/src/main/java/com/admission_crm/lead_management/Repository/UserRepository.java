@@ -4,6 +4,7 @@ import com.admission_crm.lead_management.Entity.CoreEntities.Role;
 import com.admission_crm.lead_management.Entity.CoreEntities.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,4 +13,6 @@ public interface UserRepository extends JpaRepository<User, String> {
     public List<User> findByRole(Role role);
 
     public Optional<User> findByEmail(String email);
+
+    public List<User> findByEmailIn(Collection<String> emails);
 }
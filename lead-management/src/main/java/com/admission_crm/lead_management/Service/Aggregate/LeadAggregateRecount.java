@@ -0,0 +1,118 @@
+package com.admission_crm.lead_management.Service.Aggregate;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Recounts the rows of a {@link LeadDeltaAggregate} from the leads table, one institution per
+ * transaction. The institution's rows are locked first, so deltas of transactions still in flight
+ * land on the recounted values, and only rows whose count differs are written.
+ *
+ * @param <R> a recounted row
+ */
+@Slf4j
+public abstract class LeadAggregateRecount<R extends LeadAggregateRecount.Row> {
+
+    protected final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final String name;
+    private final String institutionsSql;
+    private final String lockRowsSql;
+
+    /**
+     * @param table     table of the count rows, with institution_id and count columns
+     * @param keyColumn unique key of a row, as built by {@link LeadDeltaAggregate#rowKey}
+     */
+    protected LeadAggregateRecount(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                   String table, String keyColumn) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.name = table;
+        this.institutionsSql = "SELECT institution_id FROM leads WHERE institution_id IS NOT NULL GROUP BY institution_id " +
+                "UNION SELECT institution_id FROM " + table;
+        this.lockRowsSql = "SELECT " + keyColumn + ", count FROM " + table + " WHERE institution_id = ? FOR UPDATE";
+    }
+
+    public interface Row {
+        long count();
+    }
+
+    /**
+     * Recount every institution. Returns the number of changed rows.
+     */
+    protected int recountAll(List<String> institutionIds) {
+        int changed = 0;
+        for (String institutionId : institutionIds) {
+            try {
+                Integer rows = transactionTemplate.execute(status -> recount(institutionId));
+                changed += rows != null ? rows : 0;
+            } catch (Exception e) {
+                log.error("Failed to recount {} of institution {}: ", name, institutionId, e);
+            }
+        }
+        return changed;
+    }
+
+    protected List<String> institutionIds() {
+        return jdbcTemplate.queryForList(institutionsSql, String.class);
+    }
+
+    /**
+     * Recount one institution and overwrite every row that differs. Returns the number of changed rows.
+     */
+    protected int recount(String institutionId) {
+        Map<String, Long> stored = new HashMap<>();
+        jdbcTemplate.query(lockRowsSql, rs -> {
+            stored.put(rs.getString(1), rs.getLong(2));
+        }, institutionId);
+
+        Map<String, R> actual = count(institutionId);
+
+        Set<String> keys = new HashSet<>(stored.keySet());
+        keys.addAll(actual.keySet());
+
+        int changed = 0;
+        for (String key : keys) {
+            long storedCount = stored.getOrDefault(key, 0L);
+            R row = actual.get(key);
+            long actualCount = row != null ? row.count() : 0L;
+            if (storedCount == actualCount) {
+                continue;
+            }
+
+            drifted(key, storedCount, actualCount);
+            if (row != null) {
+                write(institutionId, key, row);
+            } else {
+                clear(key);
+            }
+            changed++;
+        }
+        return changed;
+    }
+
+    /**
+     * The actual rows of an institution by row key
+     */
+    protected abstract Map<String, R> count(String institutionId);
+
+    /**
+     * Overwrite the count of a row
+     */
+    protected abstract void write(String institutionId, String key, R row);
+
+    /**
+     * A stored row no longer has any leads
+     */
+    protected abstract void clear(String key);
+
+    protected void drifted(String key, long storedCount, long actualCount) {
+    }
+}
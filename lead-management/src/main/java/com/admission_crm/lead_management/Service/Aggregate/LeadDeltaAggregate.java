@@ -0,0 +1,137 @@
+package com.admission_crm.lead_management.Service.Aggregate;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.CountedLead;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Lead counts kept in a table of count rows, such as lead_counters and lead_rollups.
+ * <p>
+ * Lead changes report deltas through the lead entity listener. Deltas are summed per transaction
+ * and written as one batch of upserts right before commit, in the same transaction as the lead
+ * changes, so the counts commit or roll back together with them and hot rows are only locked for
+ * the duration of the commit. Subclasses map a lead to its rows and bind the upsert.
+ *
+ * @param <K> key of one count row
+ */
+public abstract class LeadDeltaAggregate<K> {
+
+    private final JdbcTemplate jdbcTemplate;
+    // Adds the delta to the row's count, the delta is bound last
+    private final String upsertDeltaSql;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    protected LeadDeltaAggregate(JdbcTemplate jdbcTemplate, String upsertDeltaSql) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.upsertDeltaSql = upsertDeltaSql;
+    }
+
+    /**
+     * Make sure deltas of the current transaction get written before it commits. Called when a lead
+     * enters the persistence context, so the registration exists before the commit-time flush.
+     */
+    public void track() {
+        pendingDeltas();
+    }
+
+    public void recordCreated(CountedLead lead) {
+        apply(lead, 1);
+    }
+
+    public void recordRemoved(CountedLead lead) {
+        apply(lead, -1);
+    }
+
+    public void recordChange(CountedLead before, CountedLead after) {
+        if (!moves(before, after)) {
+            return;
+        }
+        apply(before, -1);
+        apply(after, 1);
+    }
+
+    /**
+     * Whether the lead left any of its rows, by default when any counted attribute changed
+     */
+    protected boolean moves(CountedLead before, CountedLead after) {
+        return !before.equals(after);
+    }
+
+    /**
+     * Add {@code delta} to every row the lead is counted in
+     */
+    protected abstract void apply(CountedLead lead, long delta);
+
+    /**
+     * Unique value of the row, concurrent transactions lock rows in this order
+     */
+    protected abstract String rowKey(K key);
+
+    /**
+     * Bind the upsert of one row
+     */
+    protected abstract void bind(PreparedStatement ps, K key, long delta) throws SQLException;
+
+    protected void add(K key, long delta) {
+        Map<K, Long> pending = pendingDeltas();
+        if (pending != null) {
+            pending.merge(key, delta, Long::sum);
+        } else {
+            write(Map.of(key, delta));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<K, Long> pendingDeltas() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+
+        Map<K, Long> pending = (Map<K, Long>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null) {
+            return pending;
+        }
+
+        Map<K, Long> created = new HashMap<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                // Lead changes still pending in the persistence context report their deltas here
+                if (!readOnly) {
+                    entityManager.flush();
+                }
+                write(created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(LeadDeltaAggregate.this);
+            }
+        });
+        return created;
+    }
+
+    private void write(Map<K, Long> deltas) {
+        // Sorted so concurrent transactions lock rows in the same order
+        List<Map.Entry<K, Long>> changes = deltas.entrySet().stream()
+                .filter(entry -> entry.getValue() != 0)
+                .sorted(Map.Entry.comparingByKey(Comparator.comparing(this::rowKey)))
+                .toList();
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        jdbcTemplate.batchUpdate(upsertDeltaSql, changes, changes.size(),
+                (ps, change) -> bind(ps, change.getKey(), change.getValue()));
+    }
+}
@@ -0,0 +1,10 @@
+package com.admission_crm.lead_management.Service.Audit;
+
+import java.time.LocalDateTime;
+
+/**
+ * Audit entry carried by the lead outbox. The actor is the user's email (or "SYSTEM"); it is
+ * resolved to a user id when the batch is written, one lookup per batch instead of one per event.
+ */
+public record AuditEvent(String actor, String action, String entityId, String entityType, LocalDateTime timestamp) {
+}
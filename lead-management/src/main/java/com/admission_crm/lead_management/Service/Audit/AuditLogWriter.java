@@ -0,0 +1,81 @@
+package com.admission_crm.lead_management.Service.Audit;
+
+import com.admission_crm.lead_management.Entity.CoreEntities.User;
+import com.admission_crm.lead_management.Repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Writes audit events into the logs table with one JDBC batch insert per call. Events reach it
+ * through the lead outbox, whose relay redelivers a batch when writing it fails.
+ */
+@Component
+public class AuditLogWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO logs (id, user_id, action, entity_type, entity_id, timestamp) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String SYSTEM_USER = "SYSTEM";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+
+    private final Timer flushTimer;
+    private final Counter writtenCounter;
+
+    public AuditLogWriter(JdbcTemplate jdbcTemplate,
+                          UserRepository userRepository,
+                          MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+
+        this.flushTimer = Timer.builder("audit.flush.latency")
+                .description("Time to write one batch of audit events")
+                .register(meterRegistry);
+        this.writtenCounter = meterRegistry.counter("audit.events.written");
+    }
+
+    /**
+     * Write events right away in the caller's transaction, failures are thrown to the caller
+     */
+    public void writeNow(List<AuditEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        flushTimer.record(() -> write(events));
+        writtenCounter.increment(events.size());
+    }
+
+    private void write(List<AuditEvent> batch) {
+        Map<String, String> userIds = resolveUserIds(batch);
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, event) -> {
+            ps.setString(1, UUID.randomUUID().toString());
+            ps.setString(2, userIds.getOrDefault(event.actor(), SYSTEM_USER));
+            ps.setString(3, event.action());
+            ps.setString(4, event.entityType());
+            ps.setString(5, event.entityId());
+            ps.setTimestamp(6, Timestamp.valueOf(event.timestamp()));
+        });
+    }
+
+    // One query for all distinct actors of the batch
+    private Map<String, String> resolveUserIds(List<AuditEvent> batch) {
+        Set<String> emails = batch.stream()
+                .map(AuditEvent::actor)
+                .filter(actor -> actor != null && !SYSTEM_USER.equals(actor))
+                .collect(Collectors.toSet());
+        if (emails.isEmpty()) {
+            return Map.of();
+        }
+        return userRepository.findByEmailIn(emails).stream()
+                .collect(Collectors.toMap(User::getEmail, User::getId, (first, second) -> first));
+    }
+}
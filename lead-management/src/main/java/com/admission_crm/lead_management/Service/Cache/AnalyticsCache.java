@@ -0,0 +1,164 @@
+package com.admission_crm.lead_management.Service.Cache;
+
+import com.admission_crm.lead_management.Service.Event.LeadChangedEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of computed analytics payloads per institution, view and request parameters.
+ * <p>
+ * Every institution has a version that is bumped by each committed lead change, and an entry is
+ * only served while it was computed at the current version and is younger than the TTL. Changes
+ * made by other instances are therefore picked up after at most one TTL. The cache holds a bounded
+ * number of entries and evicts the least recently used one. Concurrent misses for the same entry
+ * wait for a single computation instead of each running it.
+ */
+@Component
+@Slf4j
+public class AnalyticsCache {
+
+    private final int maxEntries;
+    private final long ttlMillis;
+    private final MeterRegistry meterRegistry;
+    private final Counter evictionCounter;
+
+    private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+    private final Map<LoadKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final LinkedHashMap<CacheKey, CachedValue> entries;
+
+    public AnalyticsCache(MeterRegistry meterRegistry,
+                          @Value("${analytics.cache.max-entries:1000}") int maxEntries,
+                          @Value("${analytics.cache.ttl-ms:30000}") long ttlMillis) {
+        this.meterRegistry = meterRegistry;
+        this.maxEntries = maxEntries;
+        this.ttlMillis = ttlMillis;
+        this.evictionCounter = meterRegistry.counter("analytics.cache.evictions");
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedValue> eldest) {
+                if (size() > AnalyticsCache.this.maxEntries) {
+                    evictionCounter.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        Gauge.builder("analytics.cache.size", this, AnalyticsCache::size)
+                .description("Cached analytics payloads")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Cached value of a view, computed by the loader on a miss. Loader exceptions are passed on
+     * to every waiting caller and nothing is cached.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String view, String institutionId, String params, Supplier<T> loader) {
+        CacheKey key = new CacheKey(view, institutionId, params);
+        long version = versionOf(institutionId).get();
+
+        CachedValue cached = lookup(key, version);
+        if (cached != null) {
+            meterRegistry.counter("analytics.cache.hits", "view", view).increment();
+            return (T) cached.value();
+        }
+        meterRegistry.counter("analytics.cache.misses", "view", view).increment();
+
+        LoadKey loadKey = new LoadKey(key, version);
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(loadKey, load);
+        if (running != null) {
+            return (T) await(running);
+        }
+
+        try {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            T value = loader.get();
+            sample.stop(meterRegistry.timer("analytics.cache.load", "view", view));
+
+            synchronized (entries) {
+                entries.put(key, new CachedValue(value, version, System.currentTimeMillis()));
+            }
+            load.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(loadKey, load);
+        }
+    }
+
+    /**
+     * Outdate every cached payload of the institution once the lead change is committed
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLeadChanged(LeadChangedEvent event) {
+        if (event.institutionId() != null) {
+            invalidate(event.institutionId());
+        }
+    }
+
+    public void invalidate(String institutionId) {
+        versionOf(institutionId).incrementAndGet();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private AtomicLong versionOf(String institutionId) {
+        return versions.computeIfAbsent(institutionId, id -> new AtomicLong());
+    }
+
+    private CachedValue lookup(CacheKey key, long version) {
+        synchronized (entries) {
+            CachedValue cached = entries.get(key);
+            if (cached == null) {
+                return null;
+            }
+            if (cached.version() != version || System.currentTimeMillis() - cached.loadedAt() > ttlMillis) {
+                entries.remove(key);
+                return null;
+            }
+            return cached;
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record CacheKey(String view, String institutionId, String params) {
+    }
+
+    private record LoadKey(CacheKey key, long version) {
+    }
+
+    private record CachedValue(Object value, long version, long loadedAt) {
+    }
+}
@@ -0,0 +1,265 @@
+package com.admission_crm.lead_management.Service.Capacity;
+
+import com.admission_crm.lead_management.Entity.CoreEntities.User;
+import com.admission_crm.lead_management.Entity.LeadManagement.CountedLead;
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
+import com.admission_crm.lead_management.Entity.SettingsAndConfigs.InstituteSettings;
+import com.admission_crm.lead_management.Repository.InstituteSettingsRepository;
+import com.admission_crm.lead_management.Repository.LeadRepository;
+import com.admission_crm.lead_management.Repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory view of every counselor's active lead count and lead limit, so availability checks
+ * need no database access. The limit of a counselor is the lower of {@code User.maxLeadsAssignment}
+ * and the institution's {@code InstituteSettings.maxLeadsPerCounselor}.
+ * <p>
+ * Counts move with committed lead changes reported by the lead entity listener (assign, complete,
+ * transfer, delete) and by the queue claim. The whole view is rebuilt from one aggregate query on
+ * startup and periodically afterwards, which also picks up changes made by other instances and
+ * edits to users, settings or institution membership.
+ */
+@Component
+@Slf4j
+public class CounselorCapacityTracker {
+
+    // Statuses that occupy a counselor slot
+    public static final Set<LeadStatus> ACTIVE_STATUSES = Collections.unmodifiableSet(EnumSet.of(
+            LeadStatus.ASSIGNED,
+            LeadStatus.IN_PROGRESS,
+            LeadStatus.CONTACTED,
+            LeadStatus.FOLLOW_UP
+    ));
+
+    private static final String INSTITUTION_COUNSELORS =
+            "SELECT institution_id, counselor_id FROM institution_counselors";
+
+    private static final String COUNSELORS_OF_INSTITUTION =
+            "SELECT counselor_id FROM institution_counselors WHERE institution_id = ?";
+
+    private final LeadRepository leadRepository;
+    private final UserRepository userRepository;
+    private final InstituteSettingsRepository settingsRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final int defaultMaxLeads;
+
+    private final Map<String, CounselorSlot> slots = new ConcurrentHashMap<>();
+    private volatile Map<String, List<String>> institutionCounselors = new ConcurrentHashMap<>();
+    private volatile Map<String, Integer> institutionLimits = new ConcurrentHashMap<>();
+
+    public CounselorCapacityTracker(LeadRepository leadRepository,
+                                    UserRepository userRepository,
+                                    InstituteSettingsRepository settingsRepository,
+                                    JdbcTemplate jdbcTemplate,
+                                    @Value("${counselor.capacity.default-max-leads:50}") int defaultMaxLeads) {
+        this.leadRepository = leadRepository;
+        this.userRepository = userRepository;
+        this.settingsRepository = settingsRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.defaultMaxLeads = defaultMaxLeads;
+    }
+
+    /**
+     * Rebuild the whole view: institution membership, settings, counselors and one GROUP BY for the
+     * active lead counts
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${counselor.capacity.refresh-interval-ms:300000}",
+            fixedDelayString = "${counselor.capacity.refresh-interval-ms:300000}")
+    public synchronized void rebuild() {
+        Map<String, List<String>> membership = new ConcurrentHashMap<>();
+        jdbcTemplate.query(INSTITUTION_COUNSELORS, rs -> {
+            membership.computeIfAbsent(rs.getString(1), id -> new ArrayList<>()).add(rs.getString(2));
+        });
+
+        Map<String, Integer> limits = new ConcurrentHashMap<>();
+        for (InstituteSettings settings : settingsRepository.findAll()) {
+            if (settings.getInstitutionId() != null && settings.getMaxLeadsPerCounselor() != null) {
+                limits.put(settings.getInstitutionId(), settings.getMaxLeadsPerCounselor());
+            }
+        }
+
+        // Deltas applied while the count query runs are added on top of its result instead of being overwritten
+        Map<String, Long> deltasAtQuery = new HashMap<>();
+        slots.forEach((counselorId, slot) -> deltasAtQuery.put(counselorId, slot.appliedDeltas.get()));
+
+        Map<String, Long> activeCounts = new HashMap<>();
+        for (Object[] row : leadRepository.countActiveLeadsPerCounselor(ACTIVE_STATUSES)) {
+            activeCounts.put((String) row[0], ((Number) row[1]).longValue());
+        }
+
+        Set<String> counselorIds = new HashSet<>();
+        membership.values().forEach(counselorIds::addAll);
+
+        Set<String> known = new HashSet<>();
+        for (User user : userRepository.findAllById(counselorIds)) {
+            CounselorSlot slot = slots.computeIfAbsent(user.getId(), id -> new CounselorSlot());
+            slot.update(user);
+            slot.recount(activeCounts.getOrDefault(user.getId(), 0L).intValue(), deltasAtQuery.get(user.getId()));
+            known.add(user.getId());
+        }
+        slots.keySet().retainAll(known);
+
+        institutionCounselors = membership;
+        institutionLimits = limits;
+
+        log.info("Counselor capacity rebuilt: {} counselors in {} institutions", known.size(), membership.size());
+    }
+
+    public boolean isAvailable(String counselorId, String institutionId) {
+        CounselorSlot slot = slotFor(counselorId);
+        return slot != null && slot.active && slot.activeLeads.get() < capacity(slot, institutionId);
+    }
+
+    /**
+     * Counselors of an institution that can take another lead, in membership order
+     */
+    public List<String> availableCounselors(String institutionId) {
+        List<String> available = new ArrayList<>();
+        for (String counselorId : counselorsOf(institutionId)) {
+            CounselorSlot slot = slots.get(counselorId);
+            if (slot != null && slot.active && slot.activeLeads.get() < capacity(slot, institutionId)) {
+                available.add(counselorId);
+            }
+        }
+        return available;
+    }
+
+    public List<String> counselorsOf(String institutionId) {
+        // Institutions created after the last rebuild are loaded once
+        return institutionCounselors.computeIfAbsent(institutionId,
+                id -> jdbcTemplate.queryForList(COUNSELORS_OF_INSTITUTION, String.class, id));
+    }
+
+    public int activeLeads(String counselorId) {
+        CounselorSlot slot = slotFor(counselorId);
+        return slot != null ? slot.activeLeads.get() : 0;
+    }
+
+    public int capacity(String counselorId, String institutionId) {
+        CounselorSlot slot = slotFor(counselorId);
+        return slot != null ? capacity(slot, institutionId) : 0;
+    }
+
+    public int remainingCapacity(String counselorId, String institutionId) {
+        CounselorSlot slot = slotFor(counselorId);
+        if (slot == null || !slot.active) {
+            return 0;
+        }
+        return Math.max(0, capacity(slot, institutionId) - slot.activeLeads.get());
+    }
+
+    /**
+     * Apply a lead change once its transaction commits
+     */
+    public void recordChange(CountedLead before, CountedLead after) {
+        String released = occupiedCounselor(before);
+        String occupied = occupiedCounselor(after);
+        if (Objects.equals(released, occupied)) {
+            return;
+        }
+        afterCommit(() -> {
+            adjust(released, -1);
+            adjust(occupied, 1);
+        });
+    }
+
+    /**
+     * A queue claim assigned a lead, applied once the transaction commits
+     */
+    public void recordAssigned(String counselorId) {
+        afterCommit(() -> adjust(counselorId, 1));
+    }
+
+    private int capacity(CounselorSlot slot, String institutionId) {
+        int institutionLimit = institutionId != null
+                ? institutionLimits.getOrDefault(institutionId, defaultMaxLeads)
+                : defaultMaxLeads;
+        return slot.maxLeads != null ? Math.min(slot.maxLeads, institutionLimit) : institutionLimit;
+    }
+
+    // Counselors that joined after the last rebuild are loaded once
+    private CounselorSlot slotFor(String counselorId) {
+        CounselorSlot slot = slots.get(counselorId);
+        if (slot != null || counselorId == null) {
+            return slot;
+        }
+
+        User user = userRepository.findById(counselorId).orElse(null);
+        if (user == null) {
+            return null;
+        }
+        CounselorSlot loaded = new CounselorSlot();
+        loaded.update(user);
+        loaded.activeLeads.set(leadRepository.countActiveLeadsByCounselor(counselorId,
+                List.copyOf(ACTIVE_STATUSES)).intValue());
+        CounselorSlot existing = slots.putIfAbsent(counselorId, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private void adjust(String counselorId, int delta) {
+        if (counselorId == null) {
+            return;
+        }
+        CounselorSlot slot = slots.get(counselorId);
+        if (slot != null) {
+            slot.adjust(delta);
+        }
+    }
+
+    private static String occupiedCounselor(CountedLead lead) {
+        return lead != null && lead.assignedCounselor() != null && ACTIVE_STATUSES.contains(lead.status())
+                ? lead.assignedCounselor()
+                : null;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static final class CounselorSlot {
+        private final AtomicInteger activeLeads = new AtomicInteger();
+        // Sum of every delta applied, lets a recount tell which deltas arrived after its query
+        private final AtomicLong appliedDeltas = new AtomicLong();
+        private volatile Integer maxLeads;
+        private volatile boolean active;
+
+        private void update(User user) {
+            this.maxLeads = user.getMaxLeadsAssignment();
+            this.active = Boolean.TRUE.equals(user.getIsActive());
+        }
+
+        private synchronized void adjust(int delta) {
+            activeLeads.updateAndGet(count -> Math.max(0, count + delta));
+            appliedDeltas.addAndGet(delta);
+        }
+
+        // deltasAtQuery is null for a slot created after the query started, its count is taken as is
+        private synchronized void recount(int counted, Long deltasAtQuery) {
+            long since = deltasAtQuery != null ? appliedDeltas.get() - deltasAtQuery : 0;
+            activeLeads.set((int) Math.max(0, counted + since));
+        }
+    }
+}
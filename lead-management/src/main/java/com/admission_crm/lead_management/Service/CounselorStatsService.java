@@ -0,0 +1,109 @@
+package com.admission_crm.lead_management.Service;
+
+import com.admission_crm.lead_management.Entity.CoreEntities.Institution;
+import com.admission_crm.lead_management.Entity.CoreEntities.User;
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
+import com.admission_crm.lead_management.Payload.CounselorStats;
+import com.admission_crm.lead_management.Repository.InstitutionRepository;
+import com.admission_crm.lead_management.Repository.LeadRepository;
+import com.admission_crm.lead_management.Repository.UserRepository;
+import com.admission_crm.lead_management.Service.Capacity.CounselorCapacityTracker;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Lead totals, active and completed counts, completion rate and utilization of counselors. All
+ * counselors of an institution are computed from one GROUP BY over (assignedCounselor, status) and
+ * one user lookup, capacities come from the in-memory capacity tracker.
+ */
+@Service
+@RequiredArgsConstructor
+public class CounselorStatsService {
+
+    private static final Set<LeadStatus> CLOSED_STATUSES = EnumSet.of(LeadStatus.COMPLETED, LeadStatus.REJECTED);
+
+    private final InstitutionRepository institutionRepository;
+    private final UserRepository userRepository;
+    private final LeadRepository leadRepository;
+    private final CounselorCapacityTracker capacityTracker;
+
+    /**
+     * Stats of every counselor of an institution, in membership order
+     */
+    public List<CounselorStats> getInstitutionStats(String institutionId) {
+        Institution institution = institutionRepository.findById(institutionId)
+                .orElseThrow(() -> new RuntimeException("Institution not found"));
+        return buildStats(institution.getCounselors(), institutionId);
+    }
+
+    /**
+     * Stats of one counselor, or null if the counselor does not belong to the institution
+     */
+    public CounselorStats getCounselorStats(String counselorId, String institutionId) {
+        Institution institution = institutionRepository.findById(institutionId)
+                .orElseThrow(() -> new RuntimeException("Institution not found"));
+        if (!institution.getCounselors().contains(counselorId)) {
+            return null;
+        }
+        List<CounselorStats> stats = buildStats(List.of(counselorId), institutionId);
+        return stats.isEmpty() ? null : stats.get(0);
+    }
+
+    private List<CounselorStats> buildStats(Collection<String> counselorIds, String institutionId) {
+        if (counselorIds.isEmpty()) {
+            return List.of();
+        }
+
+        Map<String, User> counselors = new HashMap<>();
+        userRepository.findAllById(counselorIds).forEach(user -> counselors.put(user.getId(), user));
+
+        Map<String, Map<LeadStatus, Long>> statusCounts = new HashMap<>();
+        for (Object[] row : leadRepository.countLeadsPerCounselorAndStatus(counselorIds)) {
+            statusCounts.computeIfAbsent((String) row[0], id -> new EnumMap<>(LeadStatus.class))
+                    .put((LeadStatus) row[1], ((Number) row[2]).longValue());
+        }
+
+        List<CounselorStats> stats = new ArrayList<>();
+        for (String counselorId : counselorIds) {
+            User counselor = counselors.get(counselorId);
+            if (counselor == null) continue;
+
+            Map<LeadStatus, Long> counts = statusCounts.getOrDefault(counselorId, Map.of());
+            long total = 0;
+            long active = 0;
+            long completed = 0;
+            Map<String, Long> leadsByStatus = new LinkedHashMap<>();
+            for (Map.Entry<LeadStatus, Long> entry : counts.entrySet()) {
+                total += entry.getValue();
+                if (CounselorCapacityTracker.ACTIVE_STATUSES.contains(entry.getKey())) {
+                    active += entry.getValue();
+                }
+                if (CLOSED_STATUSES.contains(entry.getKey())) {
+                    completed += entry.getValue();
+                }
+                leadsByStatus.put(entry.getKey().name(), entry.getValue());
+            }
+
+            int maxCapacity = capacityTracker.capacity(counselorId, institutionId);
+            double completionRate = total > 0 ? (double) completed / total * 100 : 0.0;
+            double utilization = maxCapacity > 0 ? (double) active / maxCapacity * 100 : 100.0;
+
+            stats.add(CounselorStats.builder()
+                    .counselorId(counselorId)
+                    .counselorName(counselor.getFirstName() + " " + counselor.getLastName())
+                    .counselorEmail(counselor.getEmail())
+                    .totalLeads(total)
+                    .activeLeads(active)
+                    .completedLeads(completed)
+                    .completionRate(Math.round(completionRate * 100.0) / 100.0)
+                    .maxCapacity(maxCapacity)
+                    .utilizationPercentage(utilization)
+                    .status(active >= maxCapacity ? "BUSY" : "AVAILABLE")
+                    .leadsByStatus(leadsByStatus)
+                    .build());
+        }
+        return stats;
+    }
+}
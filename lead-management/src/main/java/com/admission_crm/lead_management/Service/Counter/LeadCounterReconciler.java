@@ -0,0 +1,119 @@
+package com.admission_crm.lead_management.Service.Counter;
+
+import com.admission_crm.lead_management.Service.Aggregate.LeadAggregateRecount;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Periodically recounts every institution's leads and repairs counters that drifted, e.g. after
+ * direct SQL changes or a failed deploy. The first run after startup also backfills an empty
+ * lead_counters table.
+ */
+@Component
+@Slf4j
+public class LeadCounterReconciler extends LeadAggregateRecount<LeadCounterReconciler.Bucket> {
+
+    // One pass yields all three histograms
+    private static final String RECOUNT =
+            "SELECT status, lead_source, priority, COUNT(*) FROM leads WHERE institution_id = ? " +
+            "GROUP BY status, lead_source, priority";
+
+    private static final String UPSERT_ABSOLUTE =
+            "INSERT INTO lead_counters (counter_key, institution_id, dimension, bucket, count, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, NOW()) " +
+            "ON DUPLICATE KEY UPDATE count = VALUES(count), updated_at = NOW()";
+
+    private final Counter driftCounter;
+
+    public LeadCounterReconciler(JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry) {
+        super(jdbcTemplate, transactionTemplate, "lead_counters", "counter_key");
+        this.driftCounter = meterRegistry.counter("lead.counters.drift.repaired");
+    }
+
+    @Scheduled(initialDelayString = "${lead.counters.reconcile-initial-delay-ms:10000}",
+            fixedDelayString = "${lead.counters.reconcile-interval-ms:600000}")
+    public void reconcileAll() {
+        List<String> institutionIds = institutionIds();
+
+        int repaired = recountAll(institutionIds);
+
+        if (repaired > 0) {
+            log.warn("Lead counter reconciliation repaired {} counters across {} institutions",
+                    repaired, institutionIds.size());
+        }
+    }
+
+    /**
+     * Recount one institution and overwrite every counter that differs. Returns the number of repaired counters.
+     */
+    public int reconcile(String institutionId) {
+        return recount(institutionId);
+    }
+
+    @Override
+    protected int recount(String institutionId) {
+        int repaired = super.recount(institutionId);
+        driftCounter.increment(repaired);
+        return repaired;
+    }
+
+    @Override
+    protected Map<String, Bucket> count(String institutionId) {
+        Map<String, Bucket> actual = new HashMap<>();
+        jdbcTemplate.query(RECOUNT, rs -> {
+            long count = rs.getLong(4);
+            addActual(actual, institutionId, LeadCounterService.STATUS, rs.getString(1), count);
+            addActual(actual, institutionId, LeadCounterService.SOURCE, rs.getString(2), count);
+            addActual(actual, institutionId, LeadCounterService.PRIORITY, rs.getString(3), count);
+        }, institutionId);
+        return actual;
+    }
+
+    @Override
+    protected void write(String institutionId, String key, Bucket bucket) {
+        jdbcTemplate.update(UPSERT_ABSOLUTE, key, institutionId, bucket.dimension, bucket.name, bucket.count);
+    }
+
+    @Override
+    protected void clear(String key) {
+        jdbcTemplate.update("UPDATE lead_counters SET count = 0, updated_at = NOW() WHERE counter_key = ?", key);
+    }
+
+    @Override
+    protected void drifted(String key, long storedCount, long actualCount) {
+        log.warn("Lead counter {} drifted: stored {}, actual {}", key, storedCount, actualCount);
+    }
+
+    private void addActual(Map<String, Bucket> actual, String institutionId, String dimension, String name, long count) {
+        String bucketName = name != null ? name : LeadCounterService.NONE;
+        actual.computeIfAbsent(LeadCounterService.counterKey(institutionId, dimension, bucketName),
+                key -> new Bucket(dimension, bucketName)).count += count;
+    }
+
+    static final class Bucket implements Row {
+        private final String dimension;
+        private final String name;
+        private long count;
+
+        private Bucket(String dimension, String name) {
+            this.dimension = dimension;
+            this.name = name;
+        }
+
+        @Override
+        public long count() {
+            return count;
+        }
+    }
+}
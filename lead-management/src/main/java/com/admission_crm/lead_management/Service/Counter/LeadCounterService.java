@@ -0,0 +1,120 @@
+package com.admission_crm.lead_management.Service.Counter;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.CountedLead;
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadCounter;
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
+import com.admission_crm.lead_management.Entity.Listener.LeadCounterListener;
+import com.admission_crm.lead_management.Payload.LeadStatusSnapshot;
+import com.admission_crm.lead_management.Repository.LeadCounterRepository;
+import com.admission_crm.lead_management.Service.Aggregate.LeadDeltaAggregate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Per-institution lead counters by status, source and priority, stored in lead_counters.
+ * <p>
+ * Lead changes report deltas through {@link LeadCounterListener}, written right before commit as
+ * described in {@link LeadDeltaAggregate}. Reads are a single indexed lookup of a few rows.
+ */
+@Service
+public class LeadCounterService extends LeadDeltaAggregate<LeadCounterService.CounterKey> {
+
+    public static final String STATUS = "STATUS";
+    public static final String SOURCE = "SOURCE";
+    public static final String PRIORITY = "PRIORITY";
+
+    // Bucket of leads without a source
+    static final String NONE = "NONE";
+
+    private static final String UPSERT_DELTA =
+            "INSERT INTO lead_counters (counter_key, institution_id, dimension, bucket, count, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, NOW()) " +
+            "ON DUPLICATE KEY UPDATE count = count + VALUES(count), updated_at = NOW()";
+
+    private final LeadCounterRepository counterRepository;
+
+    public LeadCounterService(JdbcTemplate jdbcTemplate, LeadCounterRepository counterRepository) {
+        super(jdbcTemplate, UPSERT_DELTA);
+        this.counterRepository = counterRepository;
+    }
+
+    /**
+     * Lead counts of an institution as a snapshot for statistics, funnel and health views
+     */
+    public LeadStatusSnapshot getSnapshot(String institutionId) {
+        Map<LeadStatus, Long> statusCounts = new EnumMap<>(LeadStatus.class);
+        Map<String, Long> sourceCounts = new LinkedHashMap<>();
+        Map<String, Long> priorityCounts = new LinkedHashMap<>();
+
+        for (LeadCounter counter : counterRepository.findByInstitutionId(institutionId)) {
+            if (counter.getCount() == null || counter.getCount() == 0) {
+                continue;
+            }
+            switch (counter.getDimension()) {
+                case STATUS -> {
+                    try {
+                        statusCounts.put(LeadStatus.valueOf(counter.getBucket()), counter.getCount());
+                    } catch (IllegalArgumentException e) {
+                        // Status no longer exists, reconciliation drops the row
+                    }
+                }
+                case SOURCE -> sourceCounts.put(counter.getBucket(), counter.getCount());
+                case PRIORITY -> priorityCounts.put(counter.getBucket(), counter.getCount());
+                default -> {
+                }
+            }
+        }
+
+        return new LeadStatusSnapshot(institutionId, statusCounts, sourceCounts, priorityCounts);
+    }
+
+    @Override
+    protected void apply(CountedLead lead, long delta) {
+        if (lead.institutionId() == null) {
+            return;
+        }
+        add(lead.institutionId(), STATUS, lead.status() != null ? lead.status().name() : NONE, delta);
+        add(lead.institutionId(), SOURCE, lead.source() != null ? lead.source().name() : NONE, delta);
+        add(lead.institutionId(), PRIORITY, lead.priority() != null ? lead.priority().name() : NONE, delta);
+    }
+
+    /**
+     * Status transitions done with bulk JPQL updates, which bypass the entity listener
+     */
+    public void recordStatusChange(String institutionId, LeadStatus from, LeadStatus to) {
+        if (institutionId == null || from == to) {
+            return;
+        }
+        add(institutionId, STATUS, from.name(), -1);
+        add(institutionId, STATUS, to.name(), 1);
+    }
+
+    static String counterKey(String institutionId, String dimension, String bucket) {
+        return institutionId + ":" + dimension + ":" + bucket;
+    }
+
+    @Override
+    protected String rowKey(CounterKey key) {
+        return counterKey(key.institutionId(), key.dimension(), key.bucket());
+    }
+
+    @Override
+    protected void bind(PreparedStatement ps, CounterKey key, long delta) throws SQLException {
+        ps.setString(1, rowKey(key));
+        ps.setString(2, key.institutionId());
+        ps.setString(3, key.dimension());
+        ps.setString(4, key.bucket());
+        ps.setLong(5, delta);
+    }
+
+    private void add(String institutionId, String dimension, String bucket, long delta) {
+        add(new CounterKey(institutionId, dimension, bucket), delta);
+    }
+
+    record CounterKey(String institutionId, String dimension, String bucket) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.admission_crm.lead_management.Service.Dedupe;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+
+/**
+ * The fields of a lead the clustering job compares, normalized once when the lead is read so a
+ * comparison does no string preparation.
+ */
+record ClusterCandidate(String leadId,
+                        String firstName,
+                        String lastName,
+                        String email,
+                        String emailLocalPart,
+                        Set<String> phones,
+                        String location,
+                        LocalDateTime createdAt) {
+
+    String fullName() {
+        return firstName + " " + lastName;
+    }
+
+    String reversedName() {
+        return lastName + " " + firstName;
+    }
+}
@@ -0,0 +1,12 @@
+package com.admission_crm.lead_management.Service.Dedupe;
+
+/**
+ * Outcome of one clustering run over an institution's leads
+ */
+public record ClusterRunSummary(String institutionId,
+                                long leadsScanned,
+                                long blocks,
+                                long comparisons,
+                                int clusters,
+                                long durationMillis) {
+}
@@ -0,0 +1,11 @@
+package com.admission_crm.lead_management.Service.Dedupe;
+
+/**
+ * What happens to a submission that matches an existing lead of the institution: MERGE keeps only
+ * the existing lead, FLAG stores the submission on hold, linked to the lead it duplicates. Neither
+ * is queued.
+ */
+public enum DedupePolicy {
+    MERGE,
+    FLAG
+}
@@ -0,0 +1,128 @@
+package com.admission_crm.lead_management.Service.Dedupe;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.Lead;
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadDuplicateCluster;
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadDuplicateCluster.ReviewStatus;
+import com.admission_crm.lead_management.Exception.InvalidRequestException;
+import com.admission_crm.lead_management.Exception.ResourceNotFoundException;
+import com.admission_crm.lead_management.Payload.Response.DuplicateClusterResponse;
+import com.admission_crm.lead_management.Payload.Response.LeadResponse;
+import com.admission_crm.lead_management.Repository.LeadDuplicateClusterRepository;
+import com.admission_crm.lead_management.Repository.LeadRepository;
+import com.admission_crm.lead_management.Service.LeadService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Admin review of the clusters found by {@link LeadClusteringJob}: list them by confidence, merge
+ * them into one lead, or dismiss them so they are not proposed again.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class DuplicateClusterService {
+
+    private final LeadDuplicateClusterRepository clusterRepository;
+    private final LeadRepository leadRepository;
+    private final LeadService leadService;
+
+    @Transactional(readOnly = true)
+    public Page<DuplicateClusterResponse> getClusters(String institutionId, ReviewStatus status, Pageable pageable) {
+        Page<LeadDuplicateCluster> clusters = clusterRepository
+                .findByInstitutionIdAndStatusOrderByConfidenceDesc(institutionId, status, pageable);
+
+        // Leads of the whole page in one query
+        Set<String> leadIds = clusters.stream()
+                .flatMap(cluster -> cluster.getLeadIds().stream())
+                .collect(Collectors.toSet());
+        Map<String, Lead> leads = leadRepository.findAllById(leadIds).stream()
+                .collect(Collectors.toMap(Lead::getId, lead -> lead));
+
+        List<DuplicateClusterResponse> content = clusters.stream()
+                .map(cluster -> toResponse(cluster, leads))
+                .toList();
+        return new PageImpl<>(content, pageable, clusters.getTotalElements());
+    }
+
+    /**
+     * Merge a pending cluster into the chosen lead, or into its suggested primary lead
+     */
+    public DuplicateClusterResponse merge(String clusterId, String primaryLeadId, String userEmail) {
+        LeadDuplicateCluster cluster = pendingCluster(clusterId);
+        String primary = primaryLeadId != null ? primaryLeadId : cluster.getPrimaryLeadId();
+        if (!cluster.getLeadIds().contains(primary)) {
+            throw new InvalidRequestException("Lead " + primary + " is not part of cluster " + clusterId);
+        }
+
+        // Members merged or deleted since the run are skipped
+        List<String> duplicates = leadRepository.findAllById(cluster.getLeadIds()).stream()
+                .filter(lead -> lead.getDuplicateOf() == null && !lead.getId().equals(primary))
+                .map(Lead::getId)
+                .toList();
+        leadService.mergeLeads(primary, duplicates, userEmail);
+
+        cluster.setPrimaryLeadId(primary);
+        review(cluster, ReviewStatus.MERGED, userEmail);
+        return toResponse(cluster, Map.of());
+    }
+
+    /**
+     * Merge several pending clusters, each into its suggested primary lead
+     */
+    public List<DuplicateClusterResponse> mergeAll(List<String> clusterIds, String userEmail) {
+        List<DuplicateClusterResponse> merged = new ArrayList<>(clusterIds.size());
+        for (String clusterId : clusterIds) {
+            merged.add(merge(clusterId, null, userEmail));
+        }
+        return merged;
+    }
+
+    public DuplicateClusterResponse dismiss(String clusterId, String userEmail) {
+        LeadDuplicateCluster cluster = pendingCluster(clusterId);
+        review(cluster, ReviewStatus.DISMISSED, userEmail);
+        return toResponse(cluster, Map.of());
+    }
+
+    private LeadDuplicateCluster pendingCluster(String clusterId) {
+        LeadDuplicateCluster cluster = clusterRepository.findById(clusterId)
+                .orElseThrow(() -> new ResourceNotFoundException("Duplicate cluster not found with id: " + clusterId));
+        if (cluster.getStatus() != ReviewStatus.PENDING) {
+            throw new InvalidRequestException("Duplicate cluster " + clusterId + " was already " +
+                    cluster.getStatus().name().toLowerCase(Locale.ROOT));
+        }
+        return cluster;
+    }
+
+    private void review(LeadDuplicateCluster cluster, ReviewStatus status, String userEmail) {
+        cluster.setStatus(status);
+        cluster.setReviewedBy(userEmail);
+        cluster.setReviewedAt(LocalDateTime.now());
+        clusterRepository.save(cluster);
+    }
+
+    private static DuplicateClusterResponse toResponse(LeadDuplicateCluster cluster, Map<String, Lead> leads) {
+        return DuplicateClusterResponse.builder()
+                .id(cluster.getId())
+                .institutionId(cluster.getInstitutionId())
+                .confidence(cluster.getConfidence())
+                .status(cluster.getStatus().name())
+                .primaryLeadId(cluster.getPrimaryLeadId())
+                .leads(cluster.getLeadIds().stream()
+                        .map(leads::get)
+                        .filter(Objects::nonNull)
+                        .map(LeadResponse::fromEntity)
+                        .toList())
+                .createdAt(cluster.getCreatedAt())
+                .reviewedBy(cluster.getReviewedBy())
+                .reviewedAt(cluster.getReviewedAt())
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.admission_crm.lead_management.Service.Dedupe;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Hashed identity of a lead within its institution. The first 16 bytes of the hash double as the two
+ * Bloom filter hashes, so filters can be rebuilt from the stored hashes alone.
+ */
+public record IdentityKey(String institutionId, IdentityKind kind, String hash, long h1, long h2) {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    public static IdentityKey of(String institutionId, IdentityKind kind, String normalizedValue) {
+        byte[] digest = SHA_256.get().digest((institutionId + '\u0000' + kind.name() + '\u0000' + normalizedValue)
+                .getBytes(StandardCharsets.UTF_8));
+        return fromDigest(institutionId, kind, digest);
+    }
+
+    public static IdentityKey fromHash(String institutionId, IdentityKind kind, String hash) {
+        return fromDigest(institutionId, kind, HexFormat.of().parseHex(hash));
+    }
+
+    private static IdentityKey fromDigest(String institutionId, IdentityKind kind, byte[] digest) {
+        ByteBuffer buffer = ByteBuffer.wrap(digest);
+        return new IdentityKey(institutionId, kind, HexFormat.of().formatHex(digest), buffer.getLong(), buffer.getLong());
+    }
+}
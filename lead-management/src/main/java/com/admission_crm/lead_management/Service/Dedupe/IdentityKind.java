@@ -0,0 +1,6 @@
+package com.admission_crm.lead_management.Service.Dedupe;
+
+public enum IdentityKind {
+    EMAIL,
+    PHONE
+}
@@ -0,0 +1,329 @@
+package com.admission_crm.lead_management.Service.Dedupe;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Finds near-duplicate leads the intake check cannot see: typos in names, the same person with
+ * another email provider or with a known number in the alternate phone.
+ * <p>
+ * Leads are never compared across the whole institution. MySQL streams them ordered by a blocking
+ * key, the SOUNDEX of the last name plus the pin code (or city), and every block is compared on
+ * its own on a ForkJoinPool while the next one is read. Blocks larger than max-block-size, such as
+ * a common surname without an address, are compared only against their nearest neighbours in name
+ * order. Only a bounded number of blocks is held in memory at a time.
+ * <p>
+ * Each run replaces the institution's pending clusters; merged and dismissed clusters are kept, and
+ * a cluster an admin dismissed is not proposed again.
+ */
+@Component
+@Slf4j
+public class LeadClusteringJob {
+
+    private static final String INSTITUTIONS =
+            "SELECT institution_id FROM leads WHERE institution_id IS NOT NULL GROUP BY institution_id";
+
+    private static final String BLOCKED_LEADS =
+            "SELECT id, first_name, last_name, email, phone, alternate_phone, city, pin_code, created_at, " +
+            "CONCAT(SOUNDEX(last_name), ':', COALESCE(NULLIF(TRIM(pin_code), ''), LOWER(TRIM(city)), '')) AS block_key " +
+            "FROM leads WHERE institution_id = ? AND duplicate_of IS NULL AND status <> 'REJECTED' " +
+            "ORDER BY block_key";
+
+    private static final String DISMISSED_MEMBERS =
+            "SELECT m.cluster_id, m.lead_id FROM lead_duplicate_cluster_members m " +
+            "JOIN lead_duplicate_clusters c ON c.id = m.cluster_id " +
+            "WHERE c.institution_id = ? AND c.status = 'DISMISSED'";
+
+    private static final String DELETE_PENDING =
+            "DELETE c, m FROM lead_duplicate_clusters c " +
+            "LEFT JOIN lead_duplicate_cluster_members m ON m.cluster_id = c.id " +
+            "WHERE c.institution_id = ? AND c.status = 'PENDING'";
+
+    private static final String INSERT_CLUSTER =
+            "INSERT INTO lead_duplicate_clusters (id, institution_id, confidence, status, primary_lead_id, created_at) " +
+            "VALUES (?, ?, ?, 'PENDING', ?, ?)";
+
+    private static final String INSERT_MEMBER =
+            "INSERT INTO lead_duplicate_cluster_members (cluster_id, lead_id) VALUES (?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LeadIdentityNormalizer normalizer;
+    private final double threshold;
+    private final int maxBlockSize;
+    private final int window;
+    private final int maxBlocksInFlight;
+    private final ForkJoinPool pool;
+
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    public LeadClusteringJob(JdbcTemplate jdbcTemplate,
+                             TransactionTemplate transactionTemplate,
+                             LeadIdentityNormalizer normalizer,
+                             @Value("${lead.dedupe.clustering.threshold:0.88}") double threshold,
+                             @Value("${lead.dedupe.clustering.max-block-size:500}") int maxBlockSize,
+                             @Value("${lead.dedupe.clustering.window:50}") int window,
+                             @Value("${lead.dedupe.clustering.parallelism:0}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.normalizer = normalizer;
+        this.threshold = threshold;
+        this.maxBlockSize = maxBlockSize;
+        this.window = window;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(threads);
+        this.maxBlocksInFlight = threads * 4;
+    }
+
+    @Scheduled(cron = "${lead.dedupe.clustering.cron:0 30 4 * * SUN}")
+    public void runAll() {
+        for (String institutionId : jdbcTemplate.queryForList(INSTITUTIONS, String.class)) {
+            try {
+                run(institutionId);
+            } catch (Exception e) {
+                log.error("Failed to cluster duplicate leads of institution {}: ", institutionId, e);
+            }
+        }
+    }
+
+    /**
+     * Cluster one institution's leads and replace its pending clusters with the result
+     */
+    public ClusterRunSummary run(String institutionId) {
+        if (!running.add(institutionId)) {
+            throw new IllegalStateException("Duplicate clustering is already running for institution " + institutionId);
+        }
+        try {
+            Run run = new Run();
+            jdbcTemplate.query(connection -> {
+                var statement = connection.prepareStatement(BLOCKED_LEADS);
+                // Stream rows, memory is bounded by the blocks in flight
+                statement.setFetchSize(Integer.MIN_VALUE);
+                statement.setString(1, institutionId);
+                return statement;
+            }, rs -> {
+                run.accept(rs.getString(10), candidate(rs));
+            });
+            run.finish();
+
+            List<FoundCluster> clusters = withoutDismissed(institutionId, run.found);
+            transactionTemplate.executeWithoutResult(status -> replacePending(institutionId, clusters));
+
+            ClusterRunSummary summary = new ClusterRunSummary(institutionId, run.scanned, run.blocks,
+                    run.comparisons.sum(), clusters.size(), System.currentTimeMillis() - run.startedAt);
+            log.info("Duplicate clustering of institution {}: {} leads in {} blocks, {} comparisons, {} clusters in {} ms",
+                    institutionId, summary.leadsScanned(), summary.blocks(), summary.comparisons(),
+                    summary.clusters(), summary.durationMillis());
+            return summary;
+        } finally {
+            running.remove(institutionId);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private ClusterCandidate candidate(ResultSet rs) throws SQLException {
+        String email = normalizer.normalizeEmail(rs.getString(4));
+        Set<String> phones = new HashSet<>(2);
+        String phone = normalizer.normalizePhone(rs.getString(5));
+        if (phone != null) {
+            phones.add(phone);
+        }
+        String alternatePhone = normalizer.normalizePhone(rs.getString(6));
+        if (alternatePhone != null) {
+            phones.add(alternatePhone);
+        }
+        String pinCode = rs.getString(8);
+        String city = rs.getString(7);
+        String location = pinCode != null && !pinCode.isBlank() ? pinCode.trim()
+                : city != null && !city.isBlank() ? city.trim().toLowerCase(Locale.ROOT)
+                : null;
+        Timestamp createdAt = rs.getTimestamp(9);
+
+        return new ClusterCandidate(
+                rs.getString(1),
+                lower(rs.getString(2)),
+                lower(rs.getString(3)),
+                email,
+                email != null ? email.substring(0, email.indexOf('@')) : null,
+                phones,
+                location,
+                createdAt != null ? createdAt.toLocalDateTime() : null
+        );
+    }
+
+    // Compare the leads of one block and join matching pairs into clusters
+    private List<FoundCluster> cluster(List<ClusterCandidate> block, LongAdder comparisons) {
+        int size = block.size();
+        int[] parent = new int[size];
+        for (int i = 0; i < size; i++) {
+            parent[i] = i;
+        }
+        double[] scoreSum = new double[size];
+        int[] links = new int[size];
+
+        // Sorted neighbourhood for oversized blocks, all pairs otherwise
+        int reach = size > maxBlockSize ? window : size;
+        if (size > maxBlockSize) {
+            block.sort(Comparator.comparing(ClusterCandidate::fullName));
+        }
+
+        long compared = 0;
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size && j <= i + reach; j++) {
+                compared++;
+                double score = LeadSimilarity.score(block.get(i), block.get(j));
+                if (score >= threshold) {
+                    int root = union(parent, scoreSum, links, i, j);
+                    scoreSum[root] += score;
+                    links[root]++;
+                }
+            }
+        }
+        comparisons.add(compared);
+
+        Map<Integer, List<ClusterCandidate>> members = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            int root = find(parent, i);
+            if (links[root] > 0) {
+                members.computeIfAbsent(root, id -> new ArrayList<>()).add(block.get(i));
+            }
+        }
+
+        List<FoundCluster> clusters = new ArrayList<>();
+        members.forEach((root, leads) -> {
+            ClusterCandidate primary = leads.stream()
+                    .min(Comparator.comparing(ClusterCandidate::createdAt, Comparator.nullsLast(Comparator.naturalOrder())))
+                    .orElseThrow();
+            clusters.add(new FoundCluster(
+                    leads.stream().map(ClusterCandidate::leadId).toList(),
+                    scoreSum[root] / links[root],
+                    primary.leadId()));
+        });
+        return clusters;
+    }
+
+    // Joins the sets of i and j and carries the accumulated scores over to the surviving root
+    private static int union(int[] parent, double[] scoreSum, int[] links, int i, int j) {
+        int rootI = find(parent, i);
+        int rootJ = find(parent, j);
+        if (rootI != rootJ) {
+            parent[rootJ] = rootI;
+            scoreSum[rootI] += scoreSum[rootJ];
+            links[rootI] += links[rootJ];
+        }
+        return rootI;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    private List<FoundCluster> withoutDismissed(String institutionId, Collection<FoundCluster> found) {
+        Map<String, Set<String>> dismissed = new HashMap<>();
+        jdbcTemplate.query(DISMISSED_MEMBERS, rs -> {
+            dismissed.computeIfAbsent(rs.getString(1), id -> new HashSet<>()).add(rs.getString(2));
+        }, institutionId);
+        Set<Set<String>> dismissedSets = new HashSet<>(dismissed.values());
+
+        return found.stream()
+                .filter(cluster -> !dismissedSets.contains(new HashSet<>(cluster.leadIds())))
+                .toList();
+    }
+
+    private void replacePending(String institutionId, List<FoundCluster> clusters) {
+        jdbcTemplate.update(DELETE_PENDING, institutionId);
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> clusterRows = new ArrayList<>(clusters.size());
+        List<Object[]> memberRows = new ArrayList<>();
+        for (FoundCluster cluster : clusters) {
+            String clusterId = UUID.randomUUID().toString();
+            clusterRows.add(new Object[]{clusterId, institutionId, cluster.confidence(), cluster.primaryLeadId(), now});
+            cluster.leadIds().forEach(leadId -> memberRows.add(new Object[]{clusterId, leadId}));
+        }
+        jdbcTemplate.batchUpdate(INSERT_CLUSTER, clusterRows);
+        jdbcTemplate.batchUpdate(INSERT_MEMBER, memberRows);
+    }
+
+    private static String lower(String value) {
+        return value != null ? value.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    private record FoundCluster(List<String> leadIds, double confidence, String primaryLeadId) {
+    }
+
+    // State of one run, blocks are handed to the pool as soon as the stream moves past them
+    private final class Run {
+        private final long startedAt = System.currentTimeMillis();
+        private final Semaphore inFlight = new Semaphore(maxBlocksInFlight);
+        private final Queue<FoundCluster> found = new ConcurrentLinkedQueue<>();
+        private final LongAdder comparisons = new LongAdder();
+        private volatile Throwable failure;
+        private String blockKey;
+        private List<ClusterCandidate> block = new ArrayList<>();
+        private long scanned;
+        private long blocks;
+
+        void accept(String key, ClusterCandidate candidate) {
+            if (!key.equals(blockKey)) {
+                submit();
+                blockKey = key;
+            }
+            block.add(candidate);
+            scanned++;
+        }
+
+        void finish() {
+            submit();
+            // Waits for the remaining blocks
+            inFlight.acquireUninterruptibly(maxBlocksInFlight);
+            if (failure != null) {
+                throw new IllegalStateException("Duplicate clustering failed", failure);
+            }
+        }
+
+        private void submit() {
+            if (block.isEmpty()) {
+                return;
+            }
+            blocks++;
+            if (block.size() == 1) {
+                block = new ArrayList<>();
+                return;
+            }
+            List<ClusterCandidate> current = block;
+            block = new ArrayList<>();
+            inFlight.acquireUninterruptibly();
+            pool.execute(() -> {
+                try {
+                    found.addAll(cluster(current, comparisons));
+                } catch (Throwable e) {
+                    failure = e;
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+}
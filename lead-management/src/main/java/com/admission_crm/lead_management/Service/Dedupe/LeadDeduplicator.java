@@ -0,0 +1,310 @@
+package com.admission_crm.lead_management.Service.Dedupe;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.Lead;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Finds existing leads of an institution with the same normalized email or phone.
+ * <p>
+ * Identities live in lead_identities, keyed by their hash. In front of the table every institution
+ * has a Bloom filter of its identity hashes, so the common case of a new person is answered from
+ * memory and only possible matches cost a primary key lookup. Filters are built from the table on
+ * startup and rebuilt nightly, sized for the institution's growth; until they are built every check
+ * goes to the table.
+ * <p>
+ * The filter only saves the check before an insert. Single creates and import chunks still read
+ * {@link #owners} after registering, because two concurrent creates of the same person both pass
+ * the check.
+ */
+@Component
+@Slf4j
+public class LeadDeduplicator {
+
+    private static final String INSERT_IDENTITY =
+            "INSERT IGNORE INTO lead_identities (key_hash, institution_id, kind, lead_id, created_at) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String DELETE_IDENTITIES = "DELETE FROM lead_identities WHERE lead_id = ?";
+
+    private static final String REASSIGN_IDENTITIES = "UPDATE lead_identities SET lead_id = ? WHERE lead_id = ?";
+
+    private static final String IDENTITY_COUNTS =
+            "SELECT institution_id, COUNT(*) FROM lead_identities GROUP BY institution_id";
+
+    private static final String ALL_IDENTITIES = "SELECT institution_id, kind, key_hash FROM lead_identities";
+
+    private static final String LEADS_WITHOUT_IDENTITIES =
+            "SELECT l.id, l.institution_id, l.email, l.phone FROM leads l " +
+            "WHERE l.institution_id IS NOT NULL AND l.duplicate_of IS NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM lead_identities i WHERE i.lead_id = l.id) " +
+            "AND l.id > ? ORDER BY l.id LIMIT ?";
+
+    private static final int LOOKUP_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LeadIdentityNormalizer normalizer;
+    private final DedupePolicy policy;
+    private final double falsePositiveRate;
+    private final long minimumCapacity;
+
+    private final Map<String, BloomFilter> filters = new ConcurrentHashMap<>();
+    private volatile boolean filtersReady;
+    // Keys registered while a rebuild streams, added to the rebuilt filters before they replace the old ones
+    private volatile Queue<IdentityKey> registeredDuringRebuild;
+    private final ReadWriteLock handoff = new ReentrantReadWriteLock();
+
+    private final Counter definitelyNewCounter;
+    private final Counter lookupCounter;
+    private final Counter duplicateCounter;
+
+    public LeadDeduplicator(JdbcTemplate jdbcTemplate,
+                            LeadIdentityNormalizer normalizer,
+                            MeterRegistry meterRegistry,
+                            @Value("${lead.dedupe.policy:MERGE}") DedupePolicy policy,
+                            @Value("${lead.dedupe.bloom-false-positive-rate:0.01}") double falsePositiveRate,
+                            @Value("${lead.dedupe.bloom-min-capacity:10000}") long minimumCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.normalizer = normalizer;
+        this.policy = policy;
+        this.falsePositiveRate = falsePositiveRate;
+        this.minimumCapacity = minimumCapacity;
+
+        this.definitelyNewCounter = meterRegistry.counter("lead.dedupe.checks", "result", "bloom_negative");
+        this.lookupCounter = meterRegistry.counter("lead.dedupe.checks", "result", "lookup");
+        this.duplicateCounter = meterRegistry.counter("lead.dedupe.duplicates");
+    }
+
+    public DedupePolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Register identities of leads created before dedupe existed, then build the filters
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        backfill();
+        rebuildFilters();
+    }
+
+    @Scheduled(cron = "${lead.dedupe.rebuild-cron:0 0 4 * * *}")
+    public synchronized void rebuildFilters() {
+        handoff.writeLock().lock();
+        try {
+            registeredDuringRebuild = new ConcurrentLinkedQueue<>();
+        } finally {
+            handoff.writeLock().unlock();
+        }
+
+        Map<String, Long> counts = new HashMap<>();
+        jdbcTemplate.query(IDENTITY_COUNTS, rs -> {
+            counts.put(rs.getString(1), rs.getLong(2));
+        });
+
+        Map<String, BloomFilter> rebuilt = new HashMap<>();
+        counts.forEach((institutionId, count) -> rebuilt.put(institutionId, newFilter(count)));
+
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(ALL_IDENTITIES);
+            // Stream rows instead of loading every identity at once
+            statement.setFetchSize(Integer.MIN_VALUE);
+            return statement;
+        }, rs -> {
+            BloomFilter filter = rebuilt.get(rs.getString(1));
+            if (filter != null) {
+                IdentityKey key = IdentityKey.fromHash(rs.getString(1), IdentityKind.valueOf(rs.getString(2)), rs.getString(3));
+                filter.put(key.h1(), key.h2());
+            }
+        });
+
+        // The stream may have missed identities registered meanwhile, they are put in again first
+        handoff.writeLock().lock();
+        try {
+            IdentityKey key;
+            while ((key = registeredDuringRebuild.poll()) != null) {
+                rebuilt.computeIfAbsent(key.institutionId(), id -> newFilter(0)).put(key.h1(), key.h2());
+            }
+            filters.putAll(rebuilt);
+            registeredDuringRebuild = null;
+            filtersReady = true;
+        } finally {
+            handoff.writeLock().unlock();
+        }
+
+        log.info("Lead dedupe filters built for {} institutions, {} identities",
+                rebuilt.size(), counts.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    /**
+     * Normalized identity keys of a lead, at most one per kind
+     */
+    public List<IdentityKey> keysOf(Lead lead) {
+        List<IdentityKey> keys = new ArrayList<>(2);
+        if (lead.getInstitutionId() == null) {
+            return keys;
+        }
+        String email = normalizer.normalizeEmail(lead.getEmail());
+        if (email != null) {
+            keys.add(IdentityKey.of(lead.getInstitutionId(), IdentityKind.EMAIL, email));
+        }
+        String phone = normalizer.normalizePhone(lead.getPhone());
+        if (phone != null) {
+            keys.add(IdentityKey.of(lead.getInstitutionId(), IdentityKind.PHONE, phone));
+        }
+        return keys;
+    }
+
+    /**
+     * Id of an existing lead sharing an identity with the given one, or null
+     */
+    public String findDuplicate(Lead lead) {
+        Map<String, String> existing = findExisting(keysOf(lead));
+        return existing.isEmpty() ? null : existing.values().iterator().next();
+    }
+
+    /**
+     * Lead ids of the keys that are already registered, by key hash. Keys the filters rule out are
+     * never looked up.
+     */
+    public Map<String, String> findExisting(Collection<IdentityKey> keys) {
+        List<String> candidates = new ArrayList<>(keys.size());
+        for (IdentityKey key : keys) {
+            if (mightExist(key)) {
+                candidates.add(key.hash());
+            }
+        }
+        if (candidates.isEmpty()) {
+            definitelyNewCounter.increment();
+            return Map.of();
+        }
+        lookupCounter.increment();
+
+        Map<String, String> existing = lookup(candidates, "");
+        if (!existing.isEmpty()) {
+            duplicateCounter.increment();
+        }
+        return existing;
+    }
+
+    /**
+     * Current owners of the keys, used right after registering to see whether a concurrent insert
+     * claimed an identity first. A locking read: it waits for a racing insert to commit and sees it
+     * even though the caller's snapshot was taken earlier. Always a lookup, the filters cannot tell
+     * a concurrent claim apart from the caller's own.
+     */
+    public Map<String, String> owners(Collection<IdentityKey> keys) {
+        return lookup(keys.stream().map(IdentityKey::hash).distinct().toList(), " FOR SHARE");
+    }
+
+    /**
+     * Store the identities of new leads in the caller's transaction. An identity already owned by
+     * another lead keeps its owner.
+     */
+    public void register(Collection<Lead> leads) {
+        List<Object[]> rows = new ArrayList<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (Lead lead : leads) {
+            for (IdentityKey key : keysOf(lead)) {
+                rows.add(new Object[]{key.hash(), key.institutionId(), key.kind().name(), lead.getId(), now});
+                // Set right away, a rollback only leaves a false positive behind
+                remember(key);
+            }
+        }
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_IDENTITY, rows);
+        }
+    }
+
+    public void forget(String leadId) {
+        jdbcTemplate.update(DELETE_IDENTITIES, leadId);
+    }
+
+    /**
+     * Point the identities of a merged lead at the lead it was merged into
+     */
+    public void reassign(String fromLeadId, String toLeadId) {
+        jdbcTemplate.update(REASSIGN_IDENTITIES, toLeadId, fromLeadId);
+    }
+
+    private Map<String, String> lookup(List<String> hashes, String lockClause) {
+        Map<String, String> existing = new HashMap<>();
+        for (int from = 0; from < hashes.size(); from += LOOKUP_BATCH_SIZE) {
+            List<String> batch = hashes.subList(from, Math.min(from + LOOKUP_BATCH_SIZE, hashes.size()));
+            String sql = "SELECT key_hash, lead_id FROM lead_identities WHERE key_hash IN (" +
+                    String.join(", ", Collections.nCopies(batch.size(), "?")) + ")" + lockClause;
+            jdbcTemplate.query(sql, rs -> {
+                existing.put(rs.getString(1), rs.getString(2));
+            }, batch.toArray());
+        }
+        return existing;
+    }
+
+    private void remember(IdentityKey key) {
+        handoff.readLock().lock();
+        try {
+            filterFor(key.institutionId()).put(key.h1(), key.h2());
+            Queue<IdentityKey> pending = registeredDuringRebuild;
+            if (pending != null) {
+                pending.add(key);
+            }
+        } finally {
+            handoff.readLock().unlock();
+        }
+    }
+
+    private boolean mightExist(IdentityKey key) {
+        if (!filtersReady) {
+            return true;
+        }
+        BloomFilter filter = filters.get(key.institutionId());
+        return filter != null && filter.mightContain(key.h1(), key.h2());
+    }
+
+    private BloomFilter filterFor(String institutionId) {
+        return filters.computeIfAbsent(institutionId, id -> newFilter(0));
+    }
+
+    // Room for the institution to double before the nightly rebuild resizes it
+    private BloomFilter newFilter(long identities) {
+        return new BloomFilter(Math.max(minimumCapacity, identities * 2), falsePositiveRate);
+    }
+
+    private void backfill() {
+        String after = "";
+        int registered = 0;
+        while (true) {
+            List<Lead> batch = jdbcTemplate.query(LEADS_WITHOUT_IDENTITIES, (rs, rowNum) -> {
+                Lead lead = new Lead();
+                lead.setId(rs.getString(1));
+                lead.setInstitutionId(rs.getString(2));
+                lead.setEmail(rs.getString(3));
+                lead.setPhone(rs.getString(4));
+                return lead;
+            }, after, LOOKUP_BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+            register(batch);
+            registered += batch.size();
+            after = batch.get(batch.size() - 1).getId();
+        }
+        if (registered > 0) {
+            log.info("Registered identities of {} existing leads", registered);
+        }
+    }
+}
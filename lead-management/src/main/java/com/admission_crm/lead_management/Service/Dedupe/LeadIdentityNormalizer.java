@@ -0,0 +1,76 @@
+package com.admission_crm.lead_management.Service.Dedupe;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Canonical forms of lead emails and phones, so re-submissions with different spelling match.
+ * Emails are lower cased without their +tag; dots in the local part are dropped only for providers
+ * that ignore them. Phones become E.164, numbers without a country code get the configured default.
+ */
+@Component
+public class LeadIdentityNormalizer {
+
+    // Providers that deliver john.doe@ and johndoe@ to the same mailbox
+    private static final Set<String> DOT_INSENSITIVE_DOMAINS = Set.of("gmail.com", "googlemail.com");
+
+    private static final int NATIONAL_NUMBER_LENGTH = 10;
+
+    private final String defaultCountryCode;
+
+    public LeadIdentityNormalizer(@Value("${lead.dedupe.default-country-code:91}") String defaultCountryCode) {
+        this.defaultCountryCode = defaultCountryCode;
+    }
+
+    public String normalizeEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        String value = email.trim().toLowerCase(Locale.ROOT);
+        int at = value.lastIndexOf('@');
+        if (at <= 0 || at == value.length() - 1) {
+            return null;
+        }
+
+        String local = value.substring(0, at);
+        String domain = value.substring(at + 1);
+        int tag = local.indexOf('+');
+        if (tag > 0) {
+            local = local.substring(0, tag);
+        }
+        if (DOT_INSENSITIVE_DOMAINS.contains(domain)) {
+            local = local.replace(".", "");
+            domain = "gmail.com";
+        }
+        return local.isEmpty() ? null : local + "@" + domain;
+    }
+
+    public String normalizePhone(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        String trimmed = phone.trim();
+        String digits = trimmed.replaceAll("[^0-9]", "");
+
+        // Numbers written with + are international already
+        if (!trimmed.startsWith("+")) {
+            if (digits.startsWith("00")) {
+                digits = digits.substring(2);
+            } else if (digits.length() == NATIONAL_NUMBER_LENGTH + 1 && digits.startsWith("0")) {
+                // Trunk prefix of a national number
+                digits = defaultCountryCode + digits.substring(1);
+            } else if (digits.length() == NATIONAL_NUMBER_LENGTH) {
+                digits = defaultCountryCode + digits;
+            }
+        }
+
+        // E.164 allows at most 15 digits, anything under 8 is not a reachable number
+        if (digits.length() < 8 || digits.length() > 15) {
+            return null;
+        }
+        return "+" + digits;
+    }
+}
@@ -0,0 +1,94 @@
+package com.admission_crm.lead_management.Service.Dedupe;
+
+import java.util.Collections;
+
+/**
+ * Similarity of two leads between 0 and 1. Names are compared with Jaro-Winkler, which is forgiving
+ * with typos and transpositions, also against the swapped name; email local parts catch the same
+ * person on another provider. A shared normalized email or phone, including the alternate phone,
+ * lifts the score to at least 0.75.
+ */
+final class LeadSimilarity {
+
+    private static final double NAME_WEIGHT = 0.65;
+    private static final double EMAIL_WEIGHT = 0.2;
+    private static final double LOCATION_WEIGHT = 0.15;
+
+    private LeadSimilarity() {
+    }
+
+    static double score(ClusterCandidate a, ClusterCandidate b) {
+        double name = Math.max(jaroWinkler(a.fullName(), b.fullName()), jaroWinkler(a.fullName(), b.reversedName()));
+        double email = a.emailLocalPart() != null && b.emailLocalPart() != null
+                ? jaroWinkler(a.emailLocalPart(), b.emailLocalPart())
+                : 0.0;
+        double location = a.location() != null && a.location().equals(b.location()) ? 1.0 : 0.0;
+
+        double score = NAME_WEIGHT * name + EMAIL_WEIGHT * email + LOCATION_WEIGHT * location;
+        if (sharesContact(a, b)) {
+            score = Math.max(score, 0.75 + 0.25 * name);
+        }
+        return score;
+    }
+
+    private static boolean sharesContact(ClusterCandidate a, ClusterCandidate b) {
+        if (a.email() != null && a.email().equals(b.email())) {
+            return true;
+        }
+        return !Collections.disjoint(a.phones(), b.phones());
+    }
+
+    static double jaroWinkler(String s1, String s2) {
+        if (s1.equals(s2)) {
+            return 1.0;
+        }
+        int length1 = s1.length();
+        int length2 = s2.length();
+        if (length1 == 0 || length2 == 0) {
+            return 0.0;
+        }
+
+        int range = Math.max(0, Math.max(length1, length2) / 2 - 1);
+        boolean[] matched1 = new boolean[length1];
+        boolean[] matched2 = new boolean[length2];
+        int matches = 0;
+        for (int i = 0; i < length1; i++) {
+            int from = Math.max(0, i - range);
+            int to = Math.min(length2 - 1, i + range);
+            for (int j = from; j <= to; j++) {
+                if (!matched2[j] && s1.charAt(i) == s2.charAt(j)) {
+                    matched1[i] = true;
+                    matched2[j] = true;
+                    matches++;
+                    break;
+                }
+            }
+        }
+        if (matches == 0) {
+            return 0.0;
+        }
+
+        int transpositions = 0;
+        for (int i = 0, j = 0; i < length1; i++) {
+            if (!matched1[i]) {
+                continue;
+            }
+            while (!matched2[j]) {
+                j++;
+            }
+            if (s1.charAt(i) != s2.charAt(j)) {
+                transpositions++;
+            }
+            j++;
+        }
+
+        double m = matches;
+        double jaro = (m / length1 + m / length2 + (m - transpositions / 2.0) / m) / 3.0;
+
+        int prefix = 0;
+        while (prefix < Math.min(4, Math.min(length1, length2)) && s1.charAt(prefix) == s2.charAt(prefix)) {
+            prefix++;
+        }
+        return jaro + prefix * 0.1 * (1.0 - jaro);
+    }
+}
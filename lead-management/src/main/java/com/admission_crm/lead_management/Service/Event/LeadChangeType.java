@@ -0,0 +1,10 @@
+package com.admission_crm.lead_management.Service.Event;
+
+public enum LeadChangeType {
+    CREATED,
+    UPDATED,
+    STATUS_CHANGED,
+    ASSIGNED,
+    COMPLETED,
+    DELETED
+}
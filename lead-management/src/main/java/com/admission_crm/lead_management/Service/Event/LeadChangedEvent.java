@@ -0,0 +1,10 @@
+package com.admission_crm.lead_management.Service.Event;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
+
+/**
+ * A lead was created, changed or deleted. Published inside the transaction that made the change,
+ * listeners that act on committed data use {@code @TransactionalEventListener}.
+ */
+public record LeadChangedEvent(String institutionId, String leadId, LeadChangeType type, LeadStatus status) {
+}
@@ -0,0 +1,17 @@
+package com.admission_crm.lead_management.Service.Export;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filters of one export: status, created date range [fromDate, toDate), the cursor to resume after
+ * and an optional row limit
+ */
+public record LeadExportQuery(String institutionId,
+                              LeadStatus status,
+                              LocalDateTime fromDate,
+                              LocalDateTime toDate,
+                              ExportCursor after,
+                              Integer limit) {
+}
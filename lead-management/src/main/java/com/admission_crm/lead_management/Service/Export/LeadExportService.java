@@ -0,0 +1,274 @@
+package com.admission_crm.lead_management.Service.Export;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
+import com.admission_crm.lead_management.Exception.InvalidRequestException;
+import com.admission_crm.lead_management.Repository.InstitutionRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams the leads of an institution as CSV or NDJSON straight from a forward-only JDBC result set
+ * to the response, one row at a time, so memory use does not depend on how many leads are exported.
+ * Status and date filters run in SQL and rows come in (created_at, id) order, which makes the
+ * per-row cursor a stable keyset position to resume from.
+ */
+@Service
+@Slf4j
+public class LeadExportService {
+
+    // Makes MySQL Connector/J stream rows instead of reading the whole result into memory
+    private static final int STREAMING_FETCH_SIZE = Integer.MIN_VALUE;
+
+    private static final String SELECT_LEADS =
+            "SELECT id, first_name, last_name, email, phone, alternate_phone, city, state, country, address, " +
+            "qualification, budget_range, date_of_birth, gender, institution_id, course_interest_id, status, " +
+            "priority, lead_source, assigned_counselor, lead_score, created_at, updated_at, " +
+            "assigned_at, completed_at FROM leads WHERE institution_id = ?";
+
+    // Exported field name and result set column, in output order
+    private static final String[][] COLUMNS = {
+            {"id", "id"},
+            {"firstName", "first_name"},
+            {"lastName", "last_name"},
+            {"email", "email"},
+            {"phone", "phone"},
+            {"alternatePhone", "alternate_phone"},
+            {"city", "city"},
+            {"state", "state"},
+            {"country", "country"},
+            {"address", "address"},
+            {"qualification", "qualification"},
+            {"budgetRange", "budget_range"},
+            {"dateOfBirth", "date_of_birth"},
+            {"gender", "gender"},
+            {"institutionId", "institution_id"},
+            {"courseInterestId", "course_interest_id"},
+            {"status", "status"},
+            {"priority", "priority"},
+            {"source", "lead_source"},
+            {"assignedCounselorId", "assigned_counselor"},
+            {"leadScore", "lead_score"},
+            {"createdAt", "created_at"},
+            {"updatedAt", "updated_at"},
+            {"assignedAt", "assigned_at"},
+            {"completedAt", "completed_at"}
+    };
+
+    private static final String CURSOR_FIELD = "cursor";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final InstitutionRepository institutionRepository;
+    private final ObjectMapper objectMapper;
+    private final int flushEvery;
+
+    public LeadExportService(JdbcTemplate jdbcTemplate,
+                             InstitutionRepository institutionRepository,
+                             ObjectMapper objectMapper,
+                             @Value("${lead.export.flush-every-rows:500}") int flushEvery) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.institutionRepository = institutionRepository;
+        this.objectMapper = objectMapper;
+        this.flushEvery = flushEvery;
+    }
+
+    /**
+     * Validate the export parameters before the response is committed, so errors still get a
+     * regular error response
+     */
+    public LeadExportQuery prepare(String institutionId, LeadStatus status, LocalDateTime fromDate,
+                                   LocalDateTime toDate, String after, Integer limit) {
+        if (!institutionRepository.existsById(institutionId)) {
+            throw new RuntimeException("Institution not found");
+        }
+        if (fromDate != null && toDate != null && !fromDate.isBefore(toDate)) {
+            throw new InvalidRequestException("fromDate must be before toDate");
+        }
+        if (limit != null && limit <= 0) {
+            throw new InvalidRequestException("limit must be positive");
+        }
+        ExportCursor cursor = after != null && !after.isBlank() ? ExportCursor.decode(after) : null;
+        return new LeadExportQuery(institutionId, status, fromDate, toDate, cursor, limit);
+    }
+
+    /**
+     * Write the matching leads to the stream and return the number of rows written
+     */
+    public long export(LeadExportQuery query, ExportFormat format, OutputStream out) throws IOException {
+        RowWriter writer = format == ExportFormat.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+        long started = System.currentTimeMillis();
+        long[] rows = {0};
+
+        writer.begin();
+        try {
+            stream(query, rs -> {
+                try {
+                    writer.write(rs, new ExportCursor(rs.getTimestamp("created_at").toLocalDateTime(),
+                            rs.getString("id")).encode());
+                    if (++rows[0] % flushEvery == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    // Client went away, stop reading
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            log.warn("Lead export of institution {} aborted after {} rows: {}",
+                    query.institutionId(), rows[0], e.getCause().getMessage());
+            throw e.getCause();
+        }
+        writer.flush();
+
+        log.info("Exported {} leads of institution {} as {} in {} ms",
+                rows[0], query.institutionId(), format, System.currentTimeMillis() - started);
+        return rows[0];
+    }
+
+    private void stream(LeadExportQuery query, RowCallbackHandler handler) {
+        StringBuilder sql = new StringBuilder(SELECT_LEADS);
+        List<Object> params = new ArrayList<>();
+        params.add(query.institutionId());
+
+        if (query.status() != null) {
+            sql.append(" AND status = ?");
+            params.add(query.status().name());
+        }
+        if (query.fromDate() != null) {
+            sql.append(" AND created_at >= ?");
+            params.add(Timestamp.valueOf(query.fromDate()));
+        }
+        if (query.toDate() != null) {
+            sql.append(" AND created_at < ?");
+            params.add(Timestamp.valueOf(query.toDate()));
+        }
+        if (query.after() != null) {
+            Timestamp createdAt = Timestamp.valueOf(query.after().createdAt());
+            sql.append(" AND (created_at > ? OR (created_at = ? AND id > ?))");
+            params.add(createdAt);
+            params.add(createdAt);
+            params.add(query.after().id());
+        }
+        sql.append(" ORDER BY created_at, id");
+
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(STREAMING_FETCH_SIZE);
+            if (query.limit() != null) {
+                ps.setMaxRows(query.limit());
+            }
+            for (int i = 0; i < params.size(); i++) {
+                ps.setObject(i + 1, params.get(i));
+            }
+            return ps;
+        }, handler);
+    }
+
+    private static Object value(ResultSet rs, String column) throws SQLException {
+        Object value = rs.getObject(column);
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime().toString();
+        }
+        if (value instanceof java.sql.Date date) {
+            return date.toLocalDate().toString();
+        }
+        return value;
+    }
+
+    private interface RowWriter {
+        void begin() throws IOException;
+
+        void write(ResultSet rs, String cursor) throws IOException, SQLException;
+
+        void flush() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(OutputStream out) {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void begin() throws IOException {
+            for (String[] column : COLUMNS) {
+                writer.write(column[0]);
+                writer.write(',');
+            }
+            writer.write(CURSOR_FIELD);
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs, String cursor) throws IOException, SQLException {
+            for (String[] column : COLUMNS) {
+                Object value = value(rs, column[1]);
+                if (value != null) {
+                    writer.write(escape(value.toString()));
+                }
+                writer.write(',');
+            }
+            writer.write(cursor);
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(OutputStream out) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out);
+            // Rows are separated by the newline written after each one
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public void write(ResultSet rs, String cursor) throws IOException, SQLException {
+            generator.writeStartObject();
+            for (String[] column : COLUMNS) {
+                generator.writeFieldName(column[0]);
+                generator.writeObject(value(rs, column[1]));
+            }
+            generator.writeStringField(CURSOR_FIELD, cursor);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+}
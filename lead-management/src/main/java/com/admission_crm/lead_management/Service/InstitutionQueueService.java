@@ -6,26 +6,61 @@ import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
 import com.admission_crm.lead_management.Payload.LeadQueueInfo;
 import com.admission_crm.lead_management.Repository.InstitutionRepository;
 import com.admission_crm.lead_management.Repository.LeadRepository;
+import com.admission_crm.lead_management.Repository.QueueEntryRepository;
+import com.admission_crm.lead_management.Service.Capacity.CounselorCapacityTracker;
+import com.admission_crm.lead_management.Service.Counter.LeadCounterService;
+import com.admission_crm.lead_management.Service.Event.LeadChangeType;
+import com.admission_crm.lead_management.Service.Event.LeadChangedEvent;
+import com.admission_crm.lead_management.Service.Rollup.LeadRollupService;
+import com.admission_crm.lead_management.Service.Queue.InstitutionLeadQueue;
+import com.admission_crm.lead_management.Service.Queue.LeadQueueEngine;
+import com.admission_crm.lead_management.Service.Queue.QueueKey;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Transactional
 public class InstitutionQueueService {
 
-    private InstitutionRepository institutionRepository;
+    private final InstitutionRepository institutionRepository;
 
-    private LeadRepository leadRepository;
+    private final LeadRepository leadRepository;
 
-    private LeadScoringService scoringService;
+    private final QueueEntryRepository queueEntryRepository;
+
+    private final LeadQueueEngine queueEngine;
+
+    private final LeadScoringService scoringService;
+
+    private final LeadCounterService counterService;
+
+    private final CounselorCapacityTracker capacityTracker;
+
+    private final LeadRollupService rollupService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     /**
-     * Add lead to institution's queue
+     * Add lead to institution's queue. The lead_queue row is written in the caller's transaction and
+     * the in-memory queue takes the key once it commits, so no counselor can poll a lead whose row
+     * is not visible yet and a rolled back enqueue leaves nothing behind.
      */
     public void addToQueue(Lead lead) {
         Institution institution = institutionRepository.findById(lead.getInstitutionId())
@@ -35,44 +70,90 @@ public class InstitutionQueueService {
         lead.setLeadScore(score);
         lead.setStatus(LeadStatus.QUEUED);
 
-        institution.getQueuedLeads().addLast(lead.getId());
-
         if (!institution.getLeads().contains(lead.getId())) {
             institution.getLeads().add(lead.getId());
+            institutionRepository.save(institution);
         }
 
-        lead.setQueuePosition(institution.getQueuedLeads().size());
+        QueueKey key = QueueKey.of(lead);
 
         leadRepository.save(lead);
-        institutionRepository.save(institution);
+        // Decided by the lead_queue row, the in-memory queue may not hold the lead on this instance
+        int updated = queueEntryRepository.updateSortKey(key.leadId(), key.priority(), key.score(), key.createdAt(), key.sequence());
+        if (updated == 0) {
+            queueEntryRepository.save(key.toEntry(lead.getInstitutionId()));
+        }
 
-        reorderQueue(institution);
+        afterCommit(() -> {
+            InstitutionLeadQueue queue = queueEngine.queueFor(lead.getInstitutionId());
+            queue.offer(key);
+            lead.setQueuePosition(queue.positionOf(lead.getId()));
+        });
     }
 
     /**
-     * Get next lead from institution's queue
+     * Enqueue a batch of already scored and saved QUEUED leads of one institution. The queue rows go
+     * out as one JDBC batch and the in-memory queue takes them in a single locked operation once the
+     * transaction commits, so a rolled back batch never shows up in the queue.
      */
-    public Lead getNextLeadFromQueue(String institutionId) {
-        Institution institution = institutionRepository.findById(institutionId)
-                .orElseThrow(() -> new RuntimeException("Institution not found"));
-
-        if (institution.getQueuedLeads().isEmpty()) {
-            return null;
+    public void addAllToQueue(String institutionId, List<Lead> leads) {
+        if (leads.isEmpty()) {
+            return;
         }
 
-        String nextLeadId = institution.getQueuedLeads().pollFirst();
+        List<QueueKey> keys = leads.stream().map(QueueKey::of).toList();
+        queueEntryRepository.saveAll(keys.stream().map(key -> key.toEntry(institutionId)).toList());
+
+        // Resolved after commit too: hydrating inside the transaction would already see the new rows
+        afterCommit(() -> queueEngine.queueFor(institutionId).offerAll(keys));
+    }
 
-        Lead lead = leadRepository.findById(nextLeadId)
-                .orElseThrow(() -> new RuntimeException("Lead not found in queue"));
+    /**
+     * Claim the next lead of an institution's queue for a counselor.
+     * <p>
+     * The head is popped under the institution's queue lock, then claimed in the database with a
+     * conditional UPDATE that only succeeds while the lead is still QUEUED. A lead can therefore
+     * never be handed to two counselors, even across service instances; a lost claim simply moves
+     * on to the next head. If the surrounding transaction rolls back, the lead is put back in the queue.
+     */
+    public Lead getNextLeadFromQueue(String institutionId, String counselorId) {
+        if (!institutionRepository.existsById(institutionId)) {
+            throw new RuntimeException("Institution not found");
+        }
 
-        updateQueuePositions(institution);
+        InstitutionLeadQueue queue = queueEngine.queueFor(institutionId);
 
-        lead.setQueuePosition(null);
+        QueueKey head;
+        while ((head = queue.poll()) != null) {
+            int claimed = leadRepository.claimQueuedLead(head.leadId(), counselorId, LocalDateTime.now(),
+                    LeadStatus.QUEUED, LeadStatus.ASSIGNED);
+            if (claimed == 0) {
+                // Already claimed elsewhere or no longer queued, its row would be hydrated again otherwise
+                queueEntryRepository.deleteEntry(head.leadId());
+                continue;
+            }
 
-        leadRepository.save(lead);
-        institutionRepository.save(institution);
+            requeueOnRollback(queue, head);
+            queueEntryRepository.deleteEntry(head.leadId());
+            // The claim is a bulk update, the counter listener does not see it
+            counterService.recordStatusChange(institutionId, LeadStatus.QUEUED, LeadStatus.ASSIGNED);
+            capacityTracker.recordAssigned(counselorId);
+
+            Lead lead = leadRepository.findById(head.leadId())
+                    .orElseThrow(() -> new RuntimeException("Lead not found in queue"));
+            if (lead.getStatus() != LeadStatus.ASSIGNED || !counselorId.equals(lead.getAssignedCounselor())) {
+                // Loaded earlier in this transaction, before the claim
+                entityManager.refresh(lead);
+            }
+            rollupService.recordStatusChange(institutionId, lead.getCreatedAt(), lead.getLeadSource(),
+                    LeadStatus.QUEUED, LeadStatus.ASSIGNED);
+            eventPublisher.publishEvent(new LeadChangedEvent(institutionId, lead.getId(),
+                    LeadChangeType.ASSIGNED, LeadStatus.ASSIGNED));
+            lead.setQueuePosition(null);
+            return lead;
+        }
 
-        return lead;
+        return null;
     }
 
     // Remove lead from a queue
@@ -80,11 +161,11 @@ public class InstitutionQueueService {
         Lead lead = leadRepository.findById(leadId)
                 .orElseThrow(() -> new RuntimeException("Lead not found"));
 
-        Institution institution = institutionRepository.findById(lead.getInstitutionId())
-                .orElseThrow(() -> new RuntimeException("Institution not found"));
+        InstitutionLeadQueue queue = queueEngine.queueFor(lead.getInstitutionId());
 
-        // Remove from queue
-        institution.getQueuedLeads().remove(leadId);
+        // Remove from queue, the row also when this instance's queue does not hold the lead
+        queue.remove(leadId);
+        queueEntryRepository.deleteEntry(leadId);
 
         // Update lead status
         if (lead.getStatus() == LeadStatus.QUEUED) {
@@ -92,68 +173,64 @@ public class InstitutionQueueService {
             lead.setQueuePosition(null);
         }
 
-        // Update queue positions
-        updateQueuePositions(institution);
-
         // Save changes
         leadRepository.save(lead);
-        institutionRepository.save(institution);
     }
 
     /**
-     * Reorder a queue based on priority and lead score
+     * Move a queued lead to a 1-based position. The lead gets a sort key between its new
+     * neighbours, so the rest of the queue keeps its order.
      */
-    private void reorderQueue(Institution institution) {
-        List<String> leadIds = new ArrayList<>(institution.getQueuedLeads());
-
-        List<Lead> leads = leadRepository.findAllById(leadIds);
+    public void moveInQueue(Lead lead, int newPosition) {
+        InstitutionLeadQueue queue = queueEngine.queueFor(lead.getInstitutionId());
 
-        // Sort by creation time
-        leads.sort(Comparator.comparing(Lead::getCreatedAt));
-
-        // Rebuild the queue
-        institution.getQueuedLeads().clear();
-        for (Lead lead : leads) {
-            institution.getQueuedLeads().addLast(lead.getId());
+        List<QueueKey> changed = queue.moveTo(lead.getId(), newPosition);
+        if (changed.isEmpty()) {
+            throw new IllegalStateException("Lead is not in queue");
         }
 
-        // Update queue positions
-        updateQueuePositions(institution);
-
-        // Save leads with updated positions
-        leadRepository.saveAll(leads);
-        institutionRepository.save(institution);
+        for (QueueKey key : changed) {
+            queueEntryRepository.updateSortKey(key.leadId(), key.priority(), key.score(), key.createdAt(), key.sequence());
+        }
+        lead.setQueuePosition(queue.positionOf(lead.getId()));
     }
 
-    // Update queue positions for all leads in queue
-    private void updateQueuePositions(Institution institution) {
-        List<String> leadIds = new ArrayList<>(institution.getQueuedLeads());
-
-        for (int i = 0; i < leadIds.size(); i++) {
-            String leadId = leadIds.get(i);
-            Lead lead = leadRepository.findById(leadId).orElse(null);
-            if (lead != null) {
-                lead.setQueuePosition(i + 1);
-                leadRepository.save(lead);
-            }
+    /**
+     * Fill the transient queue position of a lead from the queue index
+     */
+    public Lead attachQueuePosition(Lead lead) {
+        if (lead != null && lead.getStatus() == LeadStatus.QUEUED && lead.getInstitutionId() != null) {
+            lead.setQueuePosition(queueEngine.queueFor(lead.getInstitutionId()).positionOf(lead.getId()));
         }
+        return lead;
     }
 
     // Get queue status for an institution
     public List<LeadQueueInfo> getQueueStatus(String institutionId) {
-        Institution institution = institutionRepository.findById(institutionId)
-                .orElseThrow(() -> new RuntimeException("Institution not found"));
+        return getQueueStatus(institutionId, Integer.MAX_VALUE);
+    }
+
+    // Get the first leads of the queue, only those are loaded
+    public List<LeadQueueInfo> getQueueStatus(String institutionId, int limit) {
+        if (!institutionRepository.existsById(institutionId)) {
+            throw new RuntimeException("Institution not found");
+        }
+
+        List<QueueKey> keys = queueEngine.queueFor(institutionId).snapshot(limit);
+
+        Map<String, Lead> leadsById = leadRepository.findAllById(keys.stream().map(QueueKey::leadId).toList())
+                .stream()
+                .collect(Collectors.toMap(Lead::getId, Function.identity()));
 
         List<LeadQueueInfo> queueInfo = new ArrayList<>();
-        List<String> leadIds = new ArrayList<>(institution.getQueuedLeads());
 
-        for (int i = 0; i < leadIds.size(); i++) {
-            String leadId = leadIds.get(i);
-            Lead lead = leadRepository.findById(leadId).orElse(null);
+        for (int i = 0; i < keys.size(); i++) {
+            Lead lead = leadsById.get(keys.get(i).leadId());
 
             if (lead != null) {
                 queueInfo.add(new LeadQueueInfo(
                         i + 1,
+                        lead.getId(),
                         lead.getFirstName() + " " + lead.getLastName(),
                         lead.getEmail(),
                         lead.getLeadScore(),
@@ -167,9 +244,37 @@ public class InstitutionQueueService {
 
     // Get queue size for an institution
     public int getQueueSize(String institutionId) {
-        Institution institution = institutionRepository.findById(institutionId)
-                .orElseThrow(() -> new RuntimeException("Institution not found"));
+        if (!institutionRepository.existsById(institutionId)) {
+            throw new RuntimeException("Institution not found");
+        }
+
+        return queueEngine.queueFor(institutionId).size();
+    }
 
-        return institution.getQueuedLeads().size();
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private void requeueOnRollback(InstitutionLeadQueue queue, QueueKey key) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    queue.offer(key);
+                }
+            }
+        });
     }
 }
@@ -0,0 +1,415 @@
+package com.admission_crm.lead_management.Service;
+
+import com.admission_crm.lead_management.Entity.CoreEntities.Institution;
+import com.admission_crm.lead_management.Entity.LeadManagement.Lead;
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
+import com.admission_crm.lead_management.Payload.Request.LeadRequest;
+import com.admission_crm.lead_management.Payload.Response.BatchIngestResponse;
+import com.admission_crm.lead_management.Repository.InstitutionRepository;
+import com.admission_crm.lead_management.Repository.LeadRepository;
+import com.admission_crm.lead_management.Service.Audit.AuditEvent;
+import com.admission_crm.lead_management.Service.Dedupe.DedupePolicy;
+import com.admission_crm.lead_management.Service.Dedupe.IdentityKey;
+import com.admission_crm.lead_management.Service.Dedupe.LeadDeduplicator;
+import com.admission_crm.lead_management.Service.Outbox.LeadOutbox;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bulk lead import. Rows are processed in chunks: validation, mapping and scoring run in parallel,
+ * then each chunk is written in one transaction with JDBC-batched inserts for leads, institution
+ * membership, queue rows and audit outbox events, and one queue operation per institution. Counselors get a single summary notification
+ * per batch instead of one broadcast per lead. Rows repeating an existing lead, or an earlier row of
+ * the same chunk, by email or phone are rejected or put on hold according to the dedupe policy.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LeadIngestionService {
+
+    private static final String INSERT_INSTITUTION_LEAD =
+            "INSERT INTO institution_leads (institution_id, lead_id) VALUES (?, ?)";
+
+    // Rows per transaction, bounds memory and lock time for imports of tens of thousands of rows
+    static final int CHUNK_SIZE = 1000;
+
+    private static final Map<String, String> CSV_COLUMNS = Arrays.stream(LeadRequest.class.getDeclaredFields())
+            .map(Field::getName)
+            .collect(Collectors.toMap(LeadIngestionService::normalizeColumn, Function.identity()));
+
+    private final LeadRepository leadRepository;
+    private final InstitutionRepository institutionRepository;
+    private final LeadOutbox outbox;
+    private final JdbcTemplate jdbcTemplate;
+    private final InstitutionQueueService queueService;
+    private final LeadScoringService scoringService;
+    private final LeadRequestValidator requestValidator;
+    private final LeadService leadService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final LeadDeduplicator deduplicator;
+
+    /**
+     * Import a batch that was sent as one JSON array
+     */
+    public BatchIngestResponse ingest(List<LeadRequest> requests, String userEmail) {
+        Batch batch = new Batch(userEmail);
+        batch.totalRows = requests.size();
+        List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        for (int i = 0; i < requests.size(); i++) {
+            chunk.add(new Row(i + 1, requests.get(i)));
+            if (chunk.size() == CHUNK_SIZE) {
+                processChunk(chunk, batch);
+                chunk.clear();
+            }
+        }
+        processChunk(chunk, batch);
+
+        return finish(batch);
+    }
+
+    /**
+     * Import newline-delimited JSON, one lead object per line. Only one chunk is held in memory.
+     */
+    public BatchIngestResponse ingestNdjson(InputStream body, String userEmail) throws IOException {
+        Batch batch = new Batch(userEmail);
+        List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                batch.totalRows++;
+                try {
+                    chunk.add(new Row(lineNumber, objectMapper.readValue(line, LeadRequest.class)));
+                } catch (IOException e) {
+                    batch.reject(lineNumber, null, "Malformed JSON: " + e.getOriginalMessage());
+                }
+
+                if (chunk.size() == CHUNK_SIZE) {
+                    processChunk(chunk, batch);
+                    chunk.clear();
+                }
+            }
+        }
+        processChunk(chunk, batch);
+
+        return finish(batch);
+    }
+
+    /**
+     * Import CSV with a header row. Columns are matched to {@link LeadRequest} fields ignoring case,
+     * spaces and underscores, so both {@code firstName} and {@code first_name} work; unknown columns
+     * are ignored. Quoted values may contain commas and doubled quotes but not line breaks.
+     */
+    public BatchIngestResponse ingestCsv(InputStream body, String userEmail) throws IOException {
+        Batch batch = new Batch(userEmail);
+        List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String headerLine = reader.readLine();
+            if (headerLine == null) {
+                return finish(batch);
+            }
+            if (headerLine.startsWith("\uFEFF")) {
+                headerLine = headerLine.substring(1);
+            }
+            List<String> header = parseCsvLine(headerLine).stream()
+                    .map(column -> CSV_COLUMNS.get(normalizeColumn(column)))
+                    .toList();
+
+            String line;
+            int lineNumber = 1;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                batch.totalRows++;
+                List<String> values = parseCsvLine(line);
+                Map<String, String> fields = new HashMap<>();
+                for (int i = 0; i < header.size() && i < values.size(); i++) {
+                    if (header.get(i) != null && !values.get(i).isEmpty()) {
+                        fields.put(header.get(i), values.get(i));
+                    }
+                }
+                chunk.add(new Row(lineNumber, objectMapper.convertValue(fields, LeadRequest.class)));
+
+                if (chunk.size() == CHUNK_SIZE) {
+                    processChunk(chunk, batch);
+                    chunk.clear();
+                }
+            }
+        }
+        processChunk(chunk, batch);
+
+        return finish(batch);
+    }
+
+    private void processChunk(List<Row> rows, Batch batch) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        // Validation, mapping and scoring are CPU only, run them on all cores
+        List<PreparedRow> prepared = rows.parallelStream()
+                .map(this::prepare)
+                .toList();
+
+        List<PreparedRow> valid = new ArrayList<>(prepared.size());
+        for (PreparedRow row : prepared) {
+            if (row.error() != null) {
+                batch.reject(row.number(), row.email(), row.error());
+            } else {
+                valid.add(row);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        try {
+            ChunkResult result = transactionTemplate.execute(status -> persist(valid, batch.userEmail));
+            batch.errors.addAll(result.rejected());
+            result.queuedByInstitution().forEach((institutionId, count) ->
+                    batch.queuedByInstitution.merge(institutionId, count, Integer::sum));
+            batch.accepted += result.accepted();
+        } catch (Exception e) {
+            log.error("Failed to import lead chunk starting at row {}: ", valid.get(0).number(), e);
+            valid.forEach(row -> batch.reject(row.number(), row.email(), "Failed to save lead: " + e.getMessage()));
+        }
+    }
+
+    private PreparedRow prepare(Row row) {
+        LeadRequest request = row.request();
+        if (request == null) {
+            return new PreparedRow(row.number(), null, null, "Empty row");
+        }
+        try {
+            requestValidator.validate(request);
+            Lead lead = requestValidator.toLead(request);
+            lead.setLeadScore(scoringService.calculateLeadScore(lead));
+            lead.setStatus(LeadStatus.QUEUED);
+            return new PreparedRow(row.number(), request.getEmail(), lead, null);
+        } catch (Exception e) {
+            return new PreparedRow(row.number(), request.getEmail(), null, e.getMessage());
+        }
+    }
+
+    // Runs inside the chunk transaction
+    private ChunkResult persist(List<PreparedRow> rows, String userEmail) {
+        Set<String> institutionIds = rows.stream()
+                .map(row -> row.lead().getInstitutionId())
+                .collect(Collectors.toSet());
+        Map<String, Institution> institutions = institutionRepository.findAllById(institutionIds).stream()
+                .collect(Collectors.toMap(Institution::getId, Function.identity()));
+
+        List<BatchIngestResponse.RowError> rejected = new ArrayList<>();
+        List<PreparedRow> known = new ArrayList<>(rows.size());
+        for (PreparedRow row : rows) {
+            if (institutions.containsKey(row.lead().getInstitutionId())) {
+                known.add(row);
+            } else {
+                rejected.add(new BatchIngestResponse.RowError(row.number(), row.email(), "Institution not found"));
+            }
+        }
+
+        // One filter pass and at most one lookup for the whole chunk
+        // Identity maps, leads are mutable @Data entities
+        Map<PreparedRow, List<IdentityKey>> keysByRow = new IdentityHashMap<>();
+        List<IdentityKey> chunkKeys = new ArrayList<>();
+        for (PreparedRow row : known) {
+            List<IdentityKey> keys = deduplicator.keysOf(row.lead());
+            keysByRow.put(row, keys);
+            chunkKeys.addAll(keys);
+        }
+        Map<String, String> existing = deduplicator.findExisting(chunkKeys);
+        boolean merge = deduplicator.getPolicy() == DedupePolicy.MERGE;
+
+        List<Lead> leads = new ArrayList<>(known.size());
+        List<Lead> unique = new ArrayList<>(known.size());
+        // Earlier rows of this chunk by identity, and the earlier row each in-chunk duplicate repeats
+        Map<String, PreparedRow> seen = new HashMap<>();
+        Map<Lead, Lead> repeats = new IdentityHashMap<>();
+        Map<Lead, PreparedRow> rowOf = new IdentityHashMap<>();
+        for (PreparedRow row : known) {
+            String existingLeadId = null;
+            PreparedRow earlierRow = null;
+            for (IdentityKey key : keysByRow.get(row)) {
+                existingLeadId = existingLeadId != null ? existingLeadId : existing.get(key.hash());
+                earlierRow = earlierRow != null ? earlierRow : seen.get(key.hash());
+            }
+
+            rowOf.put(row.lead(), row);
+            if (existingLeadId == null && earlierRow == null) {
+                keysByRow.get(row).forEach(key -> seen.put(key.hash(), row));
+                leads.add(row.lead());
+                unique.add(row.lead());
+            } else if (merge) {
+                rejected.add(new BatchIngestResponse.RowError(row.number(), row.email(), existingLeadId != null
+                        ? "Duplicate of lead " + existingLeadId
+                        : "Duplicate of row " + earlierRow.number()));
+            } else {
+                row.lead().setStatus(LeadStatus.ON_HOLD);
+                row.lead().setDuplicateOf(existingLeadId);
+                if (existingLeadId == null) {
+                    repeats.put(row.lead(), earlierRow.lead());
+                }
+                leads.add(row.lead());
+            }
+        }
+        if (leads.isEmpty()) {
+            return new ChunkResult(0, rejected, Map.of());
+        }
+
+        // JDBC-batched through hibernate.jdbc.batch_size
+        leadRepository.saveAll(leads);
+        // Ids exist once saved, flushed with the chunk
+        repeats.forEach((lead, original) -> lead.setDuplicateOf(original.getId()));
+        deduplicator.register(unique);
+
+        // A concurrent import or create may have claimed an email or phone between the check and the insert
+        Map<String, String> owners = deduplicator.owners(unique.stream()
+                .flatMap(lead -> keysByRow.get(rowOf.get(lead)).stream())
+                .toList());
+        for (Iterator<Lead> it = unique.iterator(); it.hasNext(); ) {
+            Lead lead = it.next();
+            String claimedBy = keysByRow.get(rowOf.get(lead)).stream()
+                    .map(key -> owners.get(key.hash()))
+                    .filter(ownerId -> ownerId != null && !ownerId.equals(lead.getId()))
+                    .findFirst()
+                    .orElse(null);
+            if (claimedBy != null) {
+                deduplicator.forget(lead.getId());
+                lead.setStatus(LeadStatus.ON_HOLD);
+                lead.setDuplicateOf(claimedBy);
+                it.remove();
+            }
+        }
+
+        Map<String, List<Lead>> byInstitution = unique.stream()
+                .collect(Collectors.groupingBy(Lead::getInstitutionId));
+        Map<String, Integer> queuedByInstitution = new HashMap<>();
+
+        // Appended rows only, adding to Institution.leads would rewrite the institution's whole collection
+        jdbcTemplate.batchUpdate(INSERT_INSTITUTION_LEAD, leads, leads.size(), (ps, lead) -> {
+            ps.setString(1, lead.getInstitutionId());
+            ps.setString(2, lead.getId());
+        });
+
+        byInstitution.forEach((institutionId, institutionLeads) -> {
+            queueService.addAllToQueue(institutionId, institutionLeads);
+            queuedByInstitution.put(institutionId, institutionLeads.size());
+        });
+
+        LocalDateTime now = LocalDateTime.now();
+        outbox.auditLeads(leads.stream()
+                .map(lead -> new AuditEvent(userEmail,
+                        lead.getDuplicateOf() != null ? "FLAGGED_DUPLICATE_LEAD" : "CREATED_LEAD",
+                        lead.getId(), "Lead", now))
+                .toList());
+
+        return new ChunkResult(leads.size(), rejected, queuedByInstitution);
+    }
+
+    private BatchIngestResponse finish(Batch batch) {
+        BatchIngestResponse response = new BatchIngestResponse();
+        response.setTotalRows(batch.totalRows);
+        response.setAcceptedRows(batch.accepted);
+        response.setRejectedRows(batch.errors.size());
+        response.setQueuedByInstitution(batch.queuedByInstitution);
+        response.setErrors(batch.errors);
+        response.setDurationMillis(System.currentTimeMillis() - batch.startedAt);
+        response.setCompletedAt(LocalDateTime.now());
+
+        // Each institution only hears about its own share of the import
+        batch.queuedByInstitution.forEach((institutionId, queued) ->
+                leadService.notifyInstitution(institutionId, "Batch import: " + queued + " new leads queued"));
+
+        log.info("Lead batch import finished: {} rows, {} accepted, {} rejected in {} ms",
+                batch.totalRows, batch.accepted, batch.errors.size(), response.getDurationMillis());
+        return response;
+    }
+
+    private static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString().trim());
+        return values;
+    }
+
+    private static String normalizeColumn(String column) {
+        return column.replaceAll("[\\s_-]", "").toLowerCase(Locale.ROOT);
+    }
+
+    private record Row(int number, LeadRequest request) {
+    }
+
+    private record PreparedRow(int number, String email, Lead lead, String error) {
+    }
+
+    private record ChunkResult(int accepted, List<BatchIngestResponse.RowError> rejected, Map<String, Integer> queuedByInstitution) {
+    }
+
+    // Running totals of one import
+    private static class Batch {
+        private final long startedAt = System.currentTimeMillis();
+        private final String userEmail;
+        private final List<BatchIngestResponse.RowError> errors = new ArrayList<>();
+        private final Map<String, Integer> queuedByInstitution = new HashMap<>();
+        private int totalRows;
+        private int accepted;
+
+        Batch(String userEmail) {
+            // Resolved to a user id by the audit writer, once per relay batch
+            this.userEmail = userEmail != null ? userEmail : "SYSTEM";
+        }
+
+        void reject(int row, String email, String message) {
+            errors.add(new BatchIngestResponse.RowError(row, email, message));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.admission_crm.lead_management.Service;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.Lead;
+import com.admission_crm.lead_management.Exception.InvalidLeadDataException;
+import com.admission_crm.lead_management.Payload.Request.LeadRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.regex.Pattern;
+
+/**
+ * Validates incoming lead requests and maps them to entities. Stateless, so the batch import
+ * can run it from parallel workers.
+ */
+@Component
+public class LeadRequestValidator {
+
+    private static final Pattern EMAIL_PATTERN = Pattern.compile(
+            "^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$"
+    );
+
+    // Validate lead request data
+    public void validate(LeadRequest request) {
+        if (request.getFirstName() == null || request.getFirstName().trim().isEmpty()) {
+            throw new InvalidLeadDataException("First name is required");
+        }
+        if (request.getLastName() == null || request.getLastName().trim().isEmpty()) {
+            throw new InvalidLeadDataException("Last name is required");
+        }
+        if (request.getEmail() == null || !isValidEmail(request.getEmail())) {
+            throw new InvalidLeadDataException("Valid email is required");
+        }
+        if (request.getPhone() == null || request.getPhone().trim().isEmpty()) {
+            throw new InvalidLeadDataException("Phone number is required");
+        }
+        if (request.getInstitutionId() == null || request.getInstitutionId().trim().isEmpty()) {
+            throw new InvalidLeadDataException("Institution ID is required");
+        }
+        if (request.getCourseInterested() == null || request.getCourseInterested().trim().isEmpty()) {
+            throw new InvalidLeadDataException("Course interest is required");
+        }
+
+        // Column limits of the leads table, a single oversized value would fail a whole insert batch
+        checkLength("First name", request.getFirstName(), 50);
+        checkLength("Last name", request.getLastName(), 50);
+        checkLength("Email", request.getEmail(), 100);
+        checkLength("Phone number", request.getPhone(), 15);
+        checkLength("Alternate phone", request.getAlternatePhone(), 15);
+    }
+
+    // Map LeadRequest to Lead entity
+    public Lead toLead(LeadRequest request) {
+        Lead lead = new Lead();
+        lead.setFirstName(request.getFirstName());
+        lead.setLastName(request.getLastName());
+        lead.setEmail(request.getEmail());
+        lead.setPhone(request.getPhone());
+        lead.setAlternatePhone(request.getAlternatePhone());
+        lead.setCity(request.getCity());
+        lead.setState(request.getState());
+        lead.setCountry(request.getCountry());
+        lead.setPinCode(request.getPinCode());
+        lead.setAddress(request.getAddress());
+        lead.setQualification(request.getQualification());
+        lead.setBudgetRange(request.getBudgetRange());
+        lead.setInstitutionId(request.getInstitutionId());
+        lead.setCourseInterestId(request.getCourseInterested());
+
+        if (request.getDateOfBirth() != null && !request.getDateOfBirth().trim().isEmpty()) {
+            try {
+                lead.setDateOfBirth(LocalDate.parse(request.getDateOfBirth()));
+            } catch (Exception e) {
+                throw new InvalidLeadDataException("Invalid date of birth format. Use YYYY-MM-DD");
+            }
+        }
+
+        if (request.getGender() != null && !request.getGender().trim().isEmpty()) {
+            try {
+                lead.setGender(Lead.Gender.valueOf(request.getGender().toUpperCase()));
+            } catch (Exception e) {
+                throw new InvalidLeadDataException("Invalid gender. Use MALE, FEMALE, or OTHER");
+            }
+        }
+
+        if (request.getSource() != null && !request.getSource().trim().isEmpty()) {
+            try {
+                lead.setLeadSource(Lead.LeadSource.valueOf(request.getSource().toUpperCase()));
+            } catch (Exception e) {
+                throw new InvalidLeadDataException("Invalid source");
+            }
+        }
+
+        return lead;
+    }
+
+    /**
+     * Validate email format
+     */
+    private boolean isValidEmail(String email) {
+        return email != null && EMAIL_PATTERN.matcher(email).matches();
+    }
+
+    private void checkLength(String field, String value, int max) {
+        if (value != null && value.length() > max) {
+            throw new InvalidLeadDataException(field + " must be at most " + max + " characters");
+        }
+    }
+}
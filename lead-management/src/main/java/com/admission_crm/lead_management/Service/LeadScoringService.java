@@ -3,12 +3,12 @@ package com.admission_crm.lead_management.Service;
 import com.admission_crm.lead_management.Entity.LeadManagement.Lead;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
-
 @Service
 public class LeadScoringService {
 
+    // Recorded in lead_scores by the rescoring job, bump it whenever the rules below change
+    public static final String CALCULATION_VERSION = "2";
+
     public Double calculateLeadScore(Lead lead) {
         double score = 0.0;
 
@@ -18,10 +18,7 @@ public class LeadScoringService {
         // Priority scoring
         score += lead.getPriority().getValue() * 10;
 
-        // Urgency based on creation time
-        long hoursOld = ChronoUnit.HOURS.between(lead.getCreatedAt(), LocalDateTime.now());
-        if (hoursOld > 24) score += 15; // Older leads get higher priority
-        if (hoursOld > 72) score += 25; // Very old leads get much higher priority
+        // Urgency grows with waiting time in the queue ordering itself, see QueueAging
 
         score += getBudgetScore(lead.getBudgetRange());
 
@@ -31,6 +28,8 @@ public class LeadScoringService {
     }
 
     private double getSourceScore(Lead.LeadSource source) {
+        if (source == null) return 0.0;
+
         return switch (source) {
             case REFERRAL -> 30.0;
             case WEBSITE -> 25.0;
@@ -1,6 +1,5 @@
 package com.admission_crm.lead_management.Service;
 
-import com.admission_crm.lead_management.Entity.AnalyticsAndReporting.AuditLog;
 import com.admission_crm.lead_management.Entity.CoreEntities.Institution;
 import com.admission_crm.lead_management.Entity.CoreEntities.User;
 import com.admission_crm.lead_management.Entity.LeadManagement.Lead;
@@ -9,25 +8,41 @@ import com.admission_crm.lead_management.Exception.*;
 import com.admission_crm.lead_management.Payload.*;
 import com.admission_crm.lead_management.Payload.Request.LeadRequest;
 import com.admission_crm.lead_management.Payload.Request.LeadUpdateRequest;
-import com.admission_crm.lead_management.Payload.Response.LeadResponse;
-import com.admission_crm.lead_management.Repository.AuditLogRepository;
 import com.admission_crm.lead_management.Repository.InstitutionRepository;
 import com.admission_crm.lead_management.Repository.LeadRepository;
 import com.admission_crm.lead_management.Repository.UserRepository;
+import com.admission_crm.lead_management.Service.Audit.AuditEvent;
+import com.admission_crm.lead_management.Service.Capacity.CounselorCapacityTracker;
+import com.admission_crm.lead_management.Service.Counter.LeadCounterService;
+import com.admission_crm.lead_management.Service.Dedupe.DedupePolicy;
+import com.admission_crm.lead_management.Service.Dedupe.LeadDeduplicator;
+import com.admission_crm.lead_management.Service.Notification.NotificationDispatcher;
+import com.admission_crm.lead_management.Service.Notification.NotificationSubscriptionResolver;
+import com.admission_crm.lead_management.Service.Outbox.LeadOutbox;
+import com.admission_crm.lead_management.Service.Paging.LeadCursor;
+import com.admission_crm.lead_management.Service.Paging.LeadListingFilter;
+import com.admission_crm.lead_management.Service.Paging.LeadSortKey;
+import com.admission_crm.lead_management.Service.Paging.LeadWindow;
+import com.admission_crm.lead_management.Service.Rollup.LeadRollupService;
+import com.admission_crm.lead_management.Service.Search.LeadSearchIndex;
+import com.admission_crm.lead_management.Service.Search.LeadSearchResult;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
-import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,39 +50,62 @@ import java.util.stream.Collectors;
 @Transactional
 public class LeadService {
 
+    private static final int MAX_SCROLL_SIZE = 200;
+
     private final LeadRepository leadRepository;
     private final UserRepository userRepository;
     private final InstitutionRepository institutionRepository;
-    private final AuditLogRepository auditLogRepository;
+    private final LeadOutbox outbox;
     private final InstitutionQueueService queueService;
     private final LeadScoringService scoringService;
-
-    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-
-    private static final Pattern EMAIL_PATTERN = Pattern.compile(
-            "^[a-zA-Z0-9_+&*-]+(?:\\.[a-zA-Z0-9_+&*-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,7}$"
-    );
-
+    private final LeadRequestValidator requestValidator;
+    private final LeadCounterService counterService;
+    private final CounselorCapacityTracker capacityTracker;
+    private final LeadRollupService rollupService;
+    private final NotificationDispatcher notificationDispatcher;
+    private final NotificationSubscriptionResolver subscriptionResolver;
+    private final LeadSearchIndex searchIndex;
+    private final LeadDeduplicator deduplicator;
+
+    // A merged duplicate is rejected, but the details it added to the existing lead are kept
+    @Transactional(noRollbackFor = DuplicateLeadException.class)
     public Lead createLead(LeadRequest leadRequest, String userEmail) {
         System.out.println(leadRequest);
 
-        validateLeadRequest(leadRequest);
-
-//        Optional<Lead> existingLead = leadRepository.findByEmail(leadRequest.getEmail());
-//        if (existingLead.isPresent()) {
-//            throw new DuplicateLeadException("Lead with email " + leadRequest.getEmail() + " already exists");
-//        }
+        requestValidator.validate(leadRequest);
 
         Institution institution = institutionRepository.findById(leadRequest.getInstitutionId())
                 .orElseThrow(() -> new RuntimeException("Institution not found"));
 
-        Lead lead = mapRequestToLead(leadRequest);
+        Lead lead = requestValidator.toLead(leadRequest);
         lead.setStatus(LeadStatus.NEW);
 
+        String duplicateOf = deduplicator.findDuplicate(lead);
+        if (duplicateOf != null && deduplicator.getPolicy() == DedupePolicy.MERGE) {
+            mergeDuplicate(duplicateOf, lead, userEmail);
+            throw new DuplicateLeadException("Lead with the same email or phone already exists: " + duplicateOf);
+        }
+
         Double score = scoringService.calculateLeadScore(lead);
         lead.setLeadScore(score);
 
+        if (duplicateOf != null) {
+            return saveFlaggedDuplicate(lead, duplicateOf, userEmail);
+        }
+
         Lead savedLead = leadRepository.save(lead);
+        deduplicator.register(List.of(savedLead));
+
+        // A concurrent create may have claimed the same email or phone between the check and the insert.
+        // This lookup runs for every create, the filter only spares the one before the insert
+        String claimedBy = deduplicator.owners(deduplicator.keysOf(savedLead)).values().stream()
+                .filter(ownerId -> !ownerId.equals(savedLead.getId()))
+                .findFirst()
+                .orElse(null);
+        if (claimedBy != null) {
+            deduplicator.forget(savedLead.getId());
+            return saveFlaggedDuplicate(savedLead, claimedBy, userEmail);
+        }
 
         logAudit(userEmail, "CREATED_LEAD", savedLead.getId(), "Lead",
                 "Created lead: " + lead.getEmail());
@@ -75,8 +113,8 @@ public class LeadService {
         // Add to institution's queue automatically
         queueService.addToQueue(savedLead);
 
-        // Notify counselors
-        notifyCounselors("New lead created and queued: " + lead.getFirstName() + " " + lead.getLastName() +
+        // Notify the institution's counselors and admins
+        notifyInstitution(savedLead.getInstitutionId(), "New lead created and queued: " + lead.getFirstName() + " " + lead.getLastName() +
                 " for " + institution.getName());
 
         // Try auto-assignment if counselors are available
@@ -85,26 +123,137 @@ public class LeadService {
         return savedLead;
     }
 
+    // Keep a duplicate on hold next to the lead it repeats instead of queueing it
+    private Lead saveFlaggedDuplicate(Lead lead, String duplicateOf, String userEmail) {
+        lead.setStatus(LeadStatus.ON_HOLD);
+        lead.setDuplicateOf(duplicateOf);
+        Lead savedLead = leadRepository.save(lead);
+
+        logAudit(userEmail, "FLAGGED_DUPLICATE_LEAD", savedLead.getId(), "Lead",
+                "Flagged lead " + lead.getEmail() + " as duplicate of " + duplicateOf);
+        return savedLead;
+    }
+
+    // Fill details the existing lead is missing from the repeated submission
+    private void mergeDuplicate(String existingLeadId, Lead duplicate, String userEmail) {
+        Lead existing = leadRepository.findById(existingLeadId).orElse(null);
+        if (existing == null) {
+            return;
+        }
+        fillMissingDetails(existing, duplicate);
+        leadRepository.save(existing);
+
+        logAudit(userEmail, "MERGED_DUPLICATE_LEAD", existingLeadId, "Lead",
+                "Merged duplicate submission: " + duplicate.getEmail());
+    }
+
+    /**
+     * Merge leads of one person into the primary lead: missing details are copied over, the others
+     * leave the queue, are closed as REJECTED with duplicateOf pointing at the primary, and their
+     * emails and phones now identify the primary lead
+     */
+    public Lead mergeLeads(String primaryLeadId, List<String> duplicateLeadIds, String userEmail) {
+        Lead primary = getLeadById(primaryLeadId);
+
+        for (String duplicateId : duplicateLeadIds) {
+            if (duplicateId.equals(primaryLeadId)) {
+                continue;
+            }
+            Lead duplicate = getLeadById(duplicateId);
+            if (!Objects.equals(duplicate.getInstitutionId(), primary.getInstitutionId())) {
+                throw new InvalidRequestException("Lead " + duplicateId + " belongs to another institution");
+            }
+
+            fillMissingDetails(primary, duplicate);
+
+            if (duplicate.getStatus() == LeadStatus.QUEUED) {
+                queueService.removeFromQueue(duplicateId);
+            }
+            duplicate.setStatus(LeadStatus.REJECTED);
+            duplicate.setDuplicateOf(primaryLeadId);
+            duplicate.setCompletedAt(LocalDateTime.now());
+            leadRepository.save(duplicate);
+            deduplicator.reassign(duplicateId, primaryLeadId);
+
+            logAudit(userEmail, "MERGED_DUPLICATE_LEAD", primaryLeadId, "Lead",
+                    "Merged lead " + duplicateId + " into " + primaryLeadId);
+        }
+
+        return leadRepository.save(primary);
+    }
+
+    private static void fillMissingDetails(Lead target, Lead source) {
+        if (target.getAlternatePhone() == null) {
+            target.setAlternatePhone(source.getAlternatePhone() != null ? source.getAlternatePhone()
+                    : !Objects.equals(source.getPhone(), target.getPhone()) ? source.getPhone() : null);
+        }
+        if (target.getDateOfBirth() == null) {
+            target.setDateOfBirth(source.getDateOfBirth());
+        }
+        if (target.getGender() == null) {
+            target.setGender(source.getGender());
+        }
+        if (target.getAddress() == null) {
+            target.setAddress(source.getAddress());
+        }
+        if (target.getCity() == null) {
+            target.setCity(source.getCity());
+        }
+        if (target.getState() == null) {
+            target.setState(source.getState());
+        }
+        if (target.getCountry() == null) {
+            target.setCountry(source.getCountry());
+        }
+        if (target.getPinCode() == null) {
+            target.setPinCode(source.getPinCode());
+        }
+        if (target.getQualification() == null) {
+            target.setQualification(source.getQualification());
+        }
+        if (target.getCourseInterestId() == null) {
+            target.setCourseInterestId(source.getCourseInterestId());
+        }
+        if (target.getBudgetRange() == null) {
+            target.setBudgetRange(source.getBudgetRange());
+        }
+    }
+
     // Get a lead by ID
     public Lead getLeadById(String leadId) {
-        return leadRepository.findById(leadId)
+        Lead lead = leadRepository.findById(leadId)
                 .orElseThrow(() -> new LeadNotFoundException("Lead not found with id: " + leadId));
+        return queueService.attachQueuePosition(lead);
     }
 
     // Get All leads with pagination
     public Page<Lead> getAllLeads(Pageable pageable) {
-        return leadRepository.findAll(pageable);
+        return leadRepository.findAll(pageable).map(queueService::attachQueuePosition);
     }
 
-    // Get Leads by filter
+    // Get Leads by filter, search terms are answered from the search index in relevance order when it is available
     public Page<Lead> getLeadsByFilter(String searchTerm, String institutionId,
                                        LeadStatus status, Pageable pageable) {
-        return leadRepository.searchLeads(searchTerm, institutionId, status, pageable);
+        if (searchTerm != null && !searchTerm.isBlank()) {
+            LeadSearchResult hits = searchIndex.search(searchTerm, institutionId, status, pageable);
+            if (hits != null) {
+                Map<String, Lead> leadsById = leadRepository.findAllById(hits.leadIds()).stream()
+                        .collect(Collectors.toMap(Lead::getId, lead -> lead));
+                List<Lead> ranked = hits.leadIds().stream()
+                        .map(leadsById::get)
+                        .filter(Objects::nonNull)
+                        .map(queueService::attachQueuePosition)
+                        .toList();
+                return new PageImpl<>(ranked, pageable, hits.total());
+            }
+        }
+        return leadRepository.searchLeads(searchTerm, institutionId, status, pageable)
+                .map(queueService::attachQueuePosition);
     }
 
     // Get Leads by institution
     public Page<Lead> getLeadsByInstitution(String institutionId, Pageable pageable) {
-        return leadRepository.findByInstitutionId(institutionId, pageable);
+        return leadRepository.findByInstitutionId(institutionId, pageable).map(queueService::attachQueuePosition);
     }
 
     // Get Leads by counselor
@@ -112,17 +261,80 @@ public class LeadService {
         return leadRepository.findByAssignedCounselor(counselorId, pageable);
     }
 
+    // Get Leads without counting the total, the slice only tells whether another page follows
+    public Slice<Lead> getLeadSlice(LeadListingFilter filter, Pageable pageable) {
+        return leadRepository.findSlice(filter.institutionId(), filter.status(), filter.counselorId(), pageable)
+                .map(queueService::attachQueuePosition);
+    }
+
+    /**
+     * Get Leads by keyset: seeks past the cursor position instead of skipping rows, so every page costs
+     * the same. Without a cursor the first page is ordered by the first sort property of the pageable
+     * (createdAt descending by default); a cursor keeps the order it was issued for.
+     */
+    public LeadWindow scrollLeads(LeadListingFilter filter, String cursor, Pageable pageable) {
+        LeadCursor from = cursor != null && !cursor.isBlank() ? LeadCursor.decode(cursor) : null;
+
+        LeadSortKey sortKey;
+        Sort.Direction direction;
+        if (from != null) {
+            sortKey = from.sortKey();
+            direction = from.direction();
+        } else {
+            Sort.Order order = pageable.getSort().stream().findFirst()
+                    .orElse(Sort.Order.desc(LeadSortKey.CREATED_AT.getProperty()));
+            sortKey = LeadSortKey.from(order.getProperty());
+            direction = order.getDirection();
+        }
+
+        Sort sort = Sort.by(direction, sortKey.getProperty()).and(Sort.by(direction, "id"));
+        ScrollPosition position = from != null ? from.position() : ScrollPosition.keyset();
+        int size = Math.min(Math.max(pageable.getPageSize(), 1), MAX_SCROLL_SIZE);
+
+        Window<Lead> window = leadRepository.findBy(matching(filter),
+                query -> query.sortBy(sort).limit(size).scroll(position));
+
+        List<Lead> leads = window.getContent().stream().map(queueService::attachQueuePosition).toList();
+        String nextCursor = window.hasNext() && !leads.isEmpty()
+                ? LeadCursor.after(leads.get(leads.size() - 1), sortKey, direction).encode()
+                : null;
+        return new LeadWindow(leads, nextCursor);
+    }
+
+    private static Specification<Lead> matching(LeadListingFilter filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.institutionId() != null) {
+                predicates.add(cb.equal(root.get("institutionId"), filter.institutionId()));
+            }
+            if (filter.status() != null) {
+                predicates.add(cb.equal(root.get("status"), filter.status()));
+            }
+            if (filter.counselorId() != null) {
+                predicates.add(cb.equal(root.get("assignedCounselor"), filter.counselorId()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
     // Update lead
     public Lead updateLead(String leadId, LeadUpdateRequest updateRequest, String userEmail) {
         Lead existingLead = getLeadById(leadId);
 
         LeadStatus oldStatus = existingLead.getStatus();
+        String oldPhone = existingLead.getPhone();
 
         // Update fields
         updateLeadFields(existingLead, updateRequest);
 
         Lead updatedLead = leadRepository.save(existingLead);
 
+        // Re-register identities so the old number no longer matches this lead
+        if (!Objects.equals(oldPhone, updatedLead.getPhone()) && updatedLead.getDuplicateOf() == null) {
+            deduplicator.forget(leadId);
+            deduplicator.register(List.of(updatedLead));
+        }
+
         // Handle status changes
         handleStatusChange(updatedLead, oldStatus, userEmail);
 
@@ -154,6 +366,7 @@ public class LeadService {
         }
 
         leadRepository.delete(lead);
+        deduplicator.forget(leadId);
 
         logAudit(userEmail, "DELETED_LEAD", leadId, "Lead",
                 "Deleted lead: " + lead.getEmail());
@@ -195,7 +408,7 @@ public class LeadService {
         logAudit(userEmail, "ASSIGNED_LEAD", leadId, "Lead",
                 "Manually assigned to counselor: " + counselor.getEmail());
 
-        notifyCounselors("Lead assigned to " + counselor.getFirstName() + ": " +
+        notifyCounselor(counselorId, "Lead assigned to " + counselor.getFirstName() + ": " +
                 lead.getFirstName() + " " + lead.getLastName());
 
         return assignedLead;
@@ -216,28 +429,21 @@ public class LeadService {
             throw new CounselorUnavailableException("Counselor is not available for new leads");
         }
 
-        // Get next lead from queue
-        Lead nextLead = queueService.getNextLeadFromQueue(institutionId);
+        // Claim next lead from queue, the claim assigns it to the counselor atomically
+        Lead assignedLead = queueService.getNextLeadFromQueue(institutionId, counselorId);
 
-        if (nextLead == null) {
+        if (assignedLead == null) {
             return null; // No leads in queue
         }
 
-        // Assign to counselor
-        nextLead.setAssignedCounselor(counselorId);
-        nextLead.setStatus(LeadStatus.ASSIGNED);
-        nextLead.setAssignedAt(LocalDateTime.now());
-
-        Lead assignedLead = leadRepository.save(nextLead);
-
         User counselor = userRepository.findById(counselorId).orElse(null);
         String counselorName = counselor != null ? counselor.getFirstName() : "Unknown";
 
         logAudit(userEmail, "AUTO_ASSIGNED_LEAD", assignedLead.getId(), "Lead",
                 "Auto-assigned from queue to counselor: " + counselorName);
 
-        notifyCounselors("Lead auto-assigned to " + counselorName + ": " +
-                nextLead.getFirstName() + " " + nextLead.getLastName());
+        notifyCounselor(counselorId, "Lead auto-assigned to " + counselorName + ": " +
+                assignedLead.getFirstName() + " " + assignedLead.getLastName());
 
         return assignedLead;
     }
@@ -272,6 +478,11 @@ public class LeadService {
         return queueService.getQueueStatus(institutionId);
     }
 
+    // Get the first leads of an institution's queue
+    public List<LeadQueueInfo> getQueueStatus(String institutionId, int limit) {
+        return queueService.getQueueStatus(institutionId, limit);
+    }
+
     // Get queue size for an institution
     public int getQueueSize(String institutionId) {
         return queueService.getQueueSize(institutionId);
@@ -285,103 +496,13 @@ public class LeadService {
             throw new IllegalStateException("Lead is not in queue");
         }
 
-        Institution institution = institutionRepository.findById(lead.getInstitutionId())
-                .orElseThrow(() -> new RuntimeException("Institution not found"));
-
-        List<String> queue = new ArrayList<>(institution.getQueuedLeads());
-
-        // Remove lead from the current position
-        queue.remove(leadId);
-
-        // Insert at a new position (adjust for 0-based indexing)
-        int insertIndex = Math.min(Math.max(0, newPosition - 1), queue.size());
-        queue.add(insertIndex, leadId);
-
-        // Update institution's queue
-        institution.getQueuedLeads().clear();
-        institution.getQueuedLeads().addAll(queue);
-
-        // Update queue positions
-        for (int i = 0; i < queue.size(); i++) {
-            String queueLeadId = queue.get(i);
-            Lead queueLead = leadRepository.findById(queueLeadId).orElse(null);
-            if (queueLead != null) {
-                queueLead.setQueuePosition(i + 1);
-                leadRepository.save(queueLead);
-            }
-        }
-
-        institutionRepository.save(institution);
+        queueService.moveInQueue(lead, newPosition);
 
         logAudit(userEmail, "MOVED_LEAD_IN_QUEUE", leadId, "Lead",
                 "Moved lead to position: " + newPosition);
     }
 
 
-    // Validate lead request data
-    private void validateLeadRequest(LeadRequest request) {
-        if (request.getFirstName() == null || request.getFirstName().trim().isEmpty()) {
-            throw new InvalidLeadDataException("First name is required");
-        }
-        if (request.getEmail() == null || !isValidEmail(request.getEmail())) {
-            throw new InvalidLeadDataException("Valid email is required");
-        }
-        if (request.getPhone() == null || request.getPhone().trim().isEmpty()) {
-            throw new InvalidLeadDataException("Phone number is required");
-        }
-        if (request.getInstitutionId() == null || request.getInstitutionId().trim().isEmpty()) {
-            throw new InvalidLeadDataException("Institution ID is required");
-        }
-        if (request.getCourseInterested() == null || request.getCourseInterested().trim().isEmpty()) {
-            throw new InvalidLeadDataException("Course interest is required");
-        }
-    }
-
-    // Map LeadRequest to Lead entity
-    private Lead mapRequestToLead(LeadRequest request) {
-        Lead lead = new Lead();
-        lead.setFirstName(request.getFirstName());
-        lead.setLastName(request.getLastName());
-        lead.setEmail(request.getEmail());
-        lead.setPhone(request.getPhone());
-        lead.setAlternatePhone(request.getAlternatePhone());
-        lead.setCity(request.getCity());
-        lead.setState(request.getState());
-        lead.setCountry(request.getCountry());
-        lead.setPinCode(request.getPinCode());
-        lead.setAddress(request.getAddress());
-        lead.setQualification(request.getQualification());
-        lead.setBudgetRange(request.getBudgetRange());
-        lead.setInstitutionId(request.getInstitutionId());
-        lead.setCourseInterestId(request.getCourseInterested());
-
-        if (request.getDateOfBirth() != null && !request.getDateOfBirth().trim().isEmpty()) {
-            try {
-                lead.setDateOfBirth(LocalDate.parse(request.getDateOfBirth()));
-            } catch (Exception e) {
-                throw new InvalidLeadDataException("Invalid date of birth format. Use YYYY-MM-DD");
-            }
-        }
-
-        if (request.getGender() != null && !request.getGender().trim().isEmpty()) {
-            try {
-                lead.setGender(Lead.Gender.valueOf(request.getGender().toUpperCase()));
-            } catch (Exception e) {
-                throw new InvalidLeadDataException("Invalid gender. Use MALE, FEMALE, or OTHER");
-            }
-        }
-
-        if (request.getSource() != null && !request.getSource().trim().isEmpty()) {
-            try {
-                lead.setLeadSource(Lead.LeadSource.valueOf(request.getSource().toUpperCase()));
-            } catch (Exception e) {
-                throw new InvalidLeadDataException("Invalid source");
-            }
-        }
-
-        return lead;
-    }
-
     // Update lead fields from update request
     private void updateLeadFields(Lead lead, LeadUpdateRequest request) {
         if (request.getFirstName() != null && !request.getFirstName().trim().isEmpty()) {
@@ -427,52 +548,33 @@ public class LeadService {
         if (oldStatus == lead.getStatus()) {
             return;
         }
+        // Every way out of the queue drops its lead_queue row, not only an assignment
+        if (oldStatus == LeadStatus.QUEUED) {
+            queueService.removeFromQueue(lead.getId());
+        }
 
         switch (lead.getStatus()) {
             case QUEUED:
                 queueService.addToQueue(lead);
-                notifyCounselors("Lead re-queued: " + lead.getFirstName() + " " + lead.getLastName());
-                break;
-            case ASSIGNED:
-                if (oldStatus == LeadStatus.QUEUED) {
-                    queueService.removeFromQueue(lead.getId());
-                }
+                notifyInstitution(lead.getInstitutionId(), "Lead re-queued: " + lead.getFirstName() + " " + lead.getLastName());
                 break;
 //            case CONVERTED:
             case REJECTED:
 //            case LOST:
+                // Set before any queue claim, which flushes and clears the persistence context
+                lead.setCompletedAt(LocalDateTime.now());
                 if (lead.getAssignedCounselor() != null) {
                     freeCounselorSlot(lead.getAssignedCounselor());
                     // Try to assign a next lead to this counselor
                     tryAutoAssignmentForCounselor(lead.getAssignedCounselor(), lead.getInstitutionId(), userEmail);
                 }
-                lead.setCompletedAt(LocalDateTime.now());
                 break;
         }
     }
 
-    // Check if a counselor is available for new leads
+    // Check if a counselor is available for new leads, answered from the in-memory capacity tracker
     private boolean isCounselorAvailable(String counselorId, String institutionId) {
-        // Check if a counselor exists and is active
-        User counselor = userRepository.findById(counselorId).orElse(null);
-        if (counselor == null || !counselor.getIsActive()) {
-            return false;
-        }
-
-        // Check counselor's current workload
-        List<LeadStatus> activeStatuses = Arrays.asList(
-                LeadStatus.ASSIGNED,
-                LeadStatus.IN_PROGRESS,
-                LeadStatus.CONTACTED,
-                LeadStatus.FOLLOW_UP
-        );
-
-        Long currentLeadCount = leadRepository.countActiveLeadsByCounselor(counselorId, activeStatuses);
-
-        // Assume a max capacity of 10 leads per counselor (this can be configurable)
-        int maxCapacity = 10;
-
-        return currentLeadCount < maxCapacity;
+        return capacityTracker.isAvailable(counselorId, institutionId);
     }
 
     // Free up counselor slot when a lead is completed
@@ -488,15 +590,8 @@ public class LeadService {
      * Try to automatically assign leads to available counselors
      */
     private void tryAutoAssignment(String institutionId) {
-        Institution institution = institutionRepository.findById(institutionId).orElse(null);
-        if (institution == null || institution.getCounselors().isEmpty()) {
-            return;
-        }
-
         // Find available counselors
-        List<String> availableCounselors = institution.getCounselors().stream()
-                .filter(counselorId -> isCounselorAvailable(counselorId, institutionId))
-                .toList();
+        List<String> availableCounselors = capacityTracker.availableCounselors(institutionId);
 
         if (availableCounselors.isEmpty()) {
             return;
@@ -504,17 +599,13 @@ public class LeadService {
 
         // Try to assign leads from queue
         for (String counselorId : availableCounselors) {
-            Lead nextLead = queueService.getNextLeadFromQueue(institutionId);
+            Lead nextLead = queueService.getNextLeadFromQueue(institutionId, counselorId);
             if (nextLead != null) {
-                nextLead.setAssignedCounselor(counselorId);
-                nextLead.setStatus(LeadStatus.ASSIGNED);
-                nextLead.setAssignedAt(LocalDateTime.now());
-                leadRepository.save(nextLead);
 
                 User counselor = userRepository.findById(counselorId).orElse(null);
                 String counselorName = counselor != null ? counselor.getFirstName() : "Unknown";
 
-                notifyCounselors("Lead auto-assigned to " + counselorName + ": " +
+                notifyCounselor(counselorId, "Lead auto-assigned to " + counselorName + ": " +
                         nextLead.getFirstName() + " " + nextLead.getLastName());
 
                 logAudit("SYSTEM", "AUTO_ASSIGNED_LEAD", nextLead.getId(), "Lead",
@@ -531,17 +622,13 @@ public class LeadService {
             return;
         }
 
-        Lead nextLead = queueService.getNextLeadFromQueue(institutionId);
+        Lead nextLead = queueService.getNextLeadFromQueue(institutionId, counselorId);
         if (nextLead != null) {
-            nextLead.setAssignedCounselor(counselorId);
-            nextLead.setStatus(LeadStatus.ASSIGNED);
-            nextLead.setAssignedAt(LocalDateTime.now());
-            leadRepository.save(nextLead);
 
             User counselor = userRepository.findById(counselorId).orElse(null);
             String counselorName = counselor != null ? counselor.getFirstName() : "Unknown";
 
-            notifyCounselors("Next lead auto-assigned to " + counselorName + ": " +
+            notifyCounselor(counselorId, "Next lead auto-assigned to " + counselorName + ": " +
                     nextLead.getFirstName() + " " + nextLead.getLastName());
 
             logAudit(userEmail, "AUTO_ASSIGNED_NEXT_LEAD", nextLead.getId(), "Lead",
@@ -549,84 +636,43 @@ public class LeadService {
         }
     }
 
-    /**
-     * Validate email format
-     */
-    private boolean isValidEmail(String email) {
-        return email != null && EMAIL_PATTERN.matcher(email).matches();
-    }
-
-    // Log audit trail
+    // Log audit trail through the outbox, written by the relay once the transaction commits
     private void logAudit(String userEmail, String action, String entityId, String entityType, String details) {
-        try {
-            User user = userRepository.findByEmail(userEmail).orElse(null);
-
-            AuditLog auditLog = new AuditLog();
-            auditLog.setUserId(user != null ? user.getId() : "SYSTEM");
-            auditLog.setAction(action);
-            auditLog.setEntityId(entityId);
-            auditLog.setEntityType(entityType);
-            auditLog.setTimestamp(LocalDateTime.now());
-
-            auditLogRepository.save(auditLog);
-        } catch (Exception e) {
-            // Log error but don't fail the main operation
-            System.err.println("Failed to log audit: " + e.getMessage());
-        }
+        String leadId = "Lead".equals(entityType) ? entityId : null;
+        outbox.audit(leadId, new AuditEvent(userEmail, action, entityId, entityType, LocalDateTime.now()));
     }
 
-    // Register a WebSocket session for notifications
+    // Register a WebSocket session for the notifications of the user's institutions and assigned leads
     public void registerSession(String userEmail, WebSocketSession session){
-        sessions.put(userEmail, session);
+        notificationDispatcher.register(userEmail, session, subscriptionResolver.resolve(userEmail));
     }
 
     // Remove WebSocket session
     public void removeSession(String userEmail) {
-        sessions.remove(userEmail);
+        notificationDispatcher.unregister(userEmail);
     }
 
-    // Notify counselors via WebSocket
-    private void notifyCounselors(String message) {
-        List<String> disconnectedSessions = new ArrayList<>();
+    // Notify the counselors and admins of an institution through the outbox, sent once the transaction commits
+    public void notifyInstitution(String institutionId, String message) {
+        outbox.notifyInstitution(institutionId, message);
+    }
 
-        sessions.forEach((userEmail, session) -> {
-            try {
-                if (session.isOpen()) {
-                    session.sendMessage(new TextMessage(message));
-                } else {
-                    disconnectedSessions.add(userEmail);
-                }
-            } catch (IOException e) {
-                System.err.println("Failed to send notification to " + userEmail + ": " + e.getMessage());
-                disconnectedSessions.add(userEmail);
-            }
-        });
+    // Notify a single counselor through the outbox, sent once the transaction commits
+    public void notifyCounselor(String counselorId, String message) {
+        outbox.notifyCounselor(counselorId, message);
+    }
 
-        // Clean up disconnected sessions
-        disconnectedSessions.forEach(sessions::remove);
+    /**
+     * Lead counts of an institution from the maintained lead counters. Statistics, funnel and realtime
+     * views all derive from it; callers needing several of them should take one snapshot and reuse it.
+     */
+    public LeadStatusSnapshot getStatusSnapshot(String institutionId) {
+        return counterService.getSnapshot(institutionId);
     }
 
     // Get lead statistics for an institution
     public LeadStatistics getLeadStatistics(String institutionId) {
-        Long totalLeads = leadRepository.countByInstitutionIdAndStatus(institutionId, null);
-        Long newLeads = leadRepository.countByInstitutionIdAndStatus(institutionId, LeadStatus.NEW);
-        Long queuedLeads = leadRepository.countByInstitutionIdAndStatus(institutionId, LeadStatus.QUEUED);
-        Long assignedLeads = leadRepository.countByInstitutionIdAndStatus(institutionId, LeadStatus.ASSIGNED);
-        Long convertedLeads = leadRepository.countByInstitutionIdAndStatus(institutionId, LeadStatus.COMPLETED);
-        Long rejectedLeads = leadRepository.countByInstitutionIdAndStatus(institutionId, LeadStatus.REJECTED);
-
-        double conversionRate = totalLeads > 0 ? (convertedLeads.doubleValue() / totalLeads.doubleValue()) * 100 : 0.0;
-
-        return LeadStatistics.builder()
-                .totalLeads(totalLeads)
-                .newLeads(newLeads)
-                .queuedLeads(queuedLeads)
-                .assignedLeads(assignedLeads)
-                .convertedLeads(convertedLeads)
-                .rejectedLeads(rejectedLeads)
-                .conversionRate(conversionRate)
-                .calculatedAt(LocalDateTime.now())
-                .build();
+        return getStatusSnapshot(institutionId).toStatistics();
     }
 
     /**
@@ -636,22 +682,18 @@ public class LeadService {
         Institution institution = institutionRepository.findById(institutionId)
                 .orElseThrow(() -> new RuntimeException("Institution not found"));
 
+        Map<String, User> counselors = userRepository.findAllById(institution.getCounselors()).stream()
+                .collect(Collectors.toMap(User::getId, counselor -> counselor));
+
         List<CounselorWorkload> workloads = new ArrayList<>();
 
         for (String counselorId : institution.getCounselors()) {
-            User counselor = userRepository.findById(counselorId).orElse(null);
+            User counselor = counselors.get(counselorId);
             if (counselor == null) continue;
 
-            List<LeadStatus> activeStatuses = Arrays.asList(
-                    LeadStatus.ASSIGNED,
-                    LeadStatus.IN_PROGRESS,
-                    LeadStatus.CONTACTED,
-                    LeadStatus.FOLLOW_UP
-            );
-
-            Long currentLeadCount = leadRepository.countActiveLeadsByCounselor(counselorId, activeStatuses);
-            int maxCapacity = 10; // This should be configurable
-            double utilization = (currentLeadCount.doubleValue() / maxCapacity) * 100;
+            int currentLeadCount = capacityTracker.activeLeads(counselorId);
+            int maxCapacity = capacityTracker.capacity(counselorId, institutionId);
+            double utilization = maxCapacity > 0 ? ((double) currentLeadCount / maxCapacity) * 100 : 100.0;
 
             String status = currentLeadCount >= maxCapacity ? "BUSY" : "AVAILABLE";
 
@@ -659,7 +701,7 @@ public class LeadService {
                     .counselorId(counselorId)
                     .counselorName(counselor.getFirstName() + " " + counselor.getLastName())
                     .counselorEmail(counselor.getEmail())
-                    .currentLeadCount(currentLeadCount.intValue())
+                    .currentLeadCount(currentLeadCount)
                     .maxCapacity(maxCapacity)
                     .utilizationPercentage(utilization)
                     .status(status)
@@ -709,6 +751,9 @@ public class LeadService {
 
         List<Lead> assignedLeads = new ArrayList<>();
 
+        // Assignments only reach the capacity tracker on commit, so count down locally
+        Map<String, Integer> remainingCapacity = new HashMap<>();
+
         for (String leadId : leadIds) {
             try {
                 Lead lead = getLeadById(leadId);
@@ -720,7 +765,9 @@ public class LeadService {
                 }
 
                 // Check counselor capacity
-                if (!isCounselorAvailable(counselorId, lead.getInstitutionId())) {
+                int remaining = remainingCapacity.computeIfAbsent(lead.getInstitutionId(),
+                        institutionId -> capacityTracker.remainingCapacity(counselorId, institutionId));
+                if (remaining <= 0) {
                     break; // Stop assigning if counselor is at capacity
                 }
 
@@ -736,6 +783,7 @@ public class LeadService {
 
                 Lead assignedLead = leadRepository.save(lead);
                 assignedLeads.add(assignedLead);
+                remainingCapacity.put(lead.getInstitutionId(), remaining - 1);
 
             } catch (Exception e) {
                 // Log error but continue with other leads
@@ -747,7 +795,7 @@ public class LeadService {
             logAudit(userEmail, "BULK_ASSIGNED_LEADS", counselorId, "Counselor",
                     "Bulk assigned " + assignedLeads.size() + " leads to counselor: " + counselor.getEmail());
 
-            notifyCounselors("Bulk assigned " + assignedLeads.size() + " leads to " + counselor.getFirstName());
+            notifyCounselor(counselorId, "Bulk assigned " + assignedLeads.size() + " leads to " + counselor.getFirstName());
         }
 
         return assignedLeads;
@@ -798,8 +846,10 @@ public class LeadService {
                 "Transferred from " + fromCounselor.getEmail() + " to " + toCounselor.getEmail() +
                         (reason != null ? ". Reason: " + reason : ""));
 
-        notifyCounselors("Lead transferred from " + fromCounselor.getFirstName() +
-                " to " + toCounselor.getFirstName() + ": " + lead.getFirstName() + " " + lead.getLastName());
+        String transferMessage = "Lead transferred from " + fromCounselor.getFirstName() +
+                " to " + toCounselor.getFirstName() + ": " + lead.getFirstName() + " " + lead.getLastName();
+        notifyCounselor(fromCounselorId, transferMessage);
+        notifyCounselor(toCounselorId, transferMessage);
 
         // Try to assign next lead to the counselor who freed up
         tryAutoAssignmentForCounselor(fromCounselorId, lead.getInstitutionId(), userEmail);
@@ -811,18 +861,7 @@ public class LeadService {
      * Get lead conversion funnel data
      */
     public Map<String, Long> getLeadConversionFunnel(String institutionId) {
-        Map<String, Long> funnel = new LinkedHashMap<>();
-
-        funnel.put("NEW", leadRepository.countByInstitutionIdAndStatus(institutionId, LeadStatus.NEW));
-        funnel.put("QUEUED", leadRepository.countByInstitutionIdAndStatus(institutionId, LeadStatus.QUEUED));
-        funnel.put("ASSIGNED", leadRepository.countByInstitutionIdAndStatus(institutionId, LeadStatus.ASSIGNED));
-        funnel.put("IN_PROGRESS", leadRepository.countByInstitutionIdAndStatus(institutionId, LeadStatus.IN_PROGRESS));
-        funnel.put("CONTACTED", leadRepository.countByInstitutionIdAndStatus(institutionId, LeadStatus.CONTACTED));
-        funnel.put("QUALIFIED", leadRepository.countByInstitutionIdAndStatus(institutionId, LeadStatus.FOLLOW_UP));
-        funnel.put("CONVERTED", leadRepository.countByInstitutionIdAndStatus(institutionId, LeadStatus.COMPLETED));
-        funnel.put("REJECTED", leadRepository.countByInstitutionIdAndStatus(institutionId, LeadStatus.REJECTED));
-
-        return funnel;
+        return getStatusSnapshot(institutionId).toFunnel();
     }
 
     /**
@@ -864,14 +903,7 @@ public class LeadService {
         Map<Integer, String> estimates = new HashMap<>();
 
         // Get number of available counselors
-        Institution institution = institutionRepository.findById(institutionId).orElse(null);
-        if (institution == null) {
-            return estimates;
-        }
-
-        long availableCounselors = institution.getCounselors().stream()
-                .filter(counselorId -> isCounselorAvailable(counselorId, institutionId))
-                .count();
+        long availableCounselors = capacityTracker.availableCounselors(institutionId).size();
 
         if (availableCounselors == 0) {
             for (int i = 1; i <= queueInfo.size(); i++) {
@@ -899,49 +931,27 @@ public class LeadService {
     }
 
     /**
-     * Export leads data for institution
+     * Get daily lead creation statistics
      */
-    public List<LeadResponse> exportLeadsData(String institutionId, LeadStatus status,
-                                              LocalDateTime fromDate, LocalDateTime toDate) {
-        List<Lead> leads;
-
-        if (status != null) {
-            leads = leadRepository.findByInstitutionIdAndStatusOrderByCreatedAtAsc(institutionId, status);
-        } else {
-            leads = leadRepository.findByInstitutionIdOrderByCreatedAtAsc(institutionId);
-        }
-
-        // Filter by date range if provided
-        if (fromDate != null || toDate != null) {
-            leads = leads.stream()
-                    .filter(lead -> {
-                        LocalDateTime createdAt = lead.getCreatedAt();
-                        boolean afterFrom = fromDate == null || createdAt.isAfter(fromDate);
-                        boolean beforeTo = toDate == null || createdAt.isBefore(toDate);
-                        return afterFrom && beforeTo;
-                    })
-                    .toList();
-        }
-
-        // Convert to response DTOs
-        return leads.stream()
-                .map(LeadResponse::fromEntity)
-                .toList();
+    public Map<LocalDate, Long> getDailyLeadCreationStats(String institutionId, int days) {
+        Map<LocalDate, Long> dailyStats = new LinkedHashMap<>();
+        getHourlyLeadCreationStats(institutionId, days)
+                .forEach((hour, count) -> dailyStats.merge(hour.toLocalDate(), count, Long::sum));
+        return dailyStats;
     }
 
     /**
-     * Get daily lead creation statistics
+     * Leads created per hour over the last days, read from the hourly rollups
      */
-    public Map<LocalDate, Long> getDailyLeadCreationStats(String institutionId, int days) {
-        LocalDateTime fromDate = LocalDateTime.now().minusDays(days);
-
-        List<Lead> leads = leadRepository.findByInstitutionIdAndCreatedAtAfter(institutionId, fromDate);
+    public SortedMap<LocalDateTime, Long> getHourlyLeadCreationStats(String institutionId, int days) {
+        return rollupService.countsByHour(institutionId, LocalDateTime.now().minusDays(days));
+    }
 
-        return leads.stream()
-                .collect(Collectors.groupingBy(
-                        lead -> lead.getCreatedAt().toLocalDate(),
-                        Collectors.counting()
-                ));
+    /**
+     * Leads created over the last days per source and current status, read from the hourly rollups
+     */
+    public Map<String, Map<LeadStatus, Long>> getLeadSourceBreakdown(String institutionId, int days) {
+        return rollupService.countsBySourceAndStatus(institutionId, LocalDateTime.now().minusDays(days));
     }
 
     /**
@@ -986,14 +996,12 @@ public class LeadService {
                 return health;
             }
 
-            int queueSize = institution.getQueuedLeads().size();
-            int dbQueueSize = leadRepository.countByInstitutionIdAndStatus(institutionId, LeadStatus.QUEUED).intValue();
+            int queueSize = queueService.getQueueSize(institutionId);
+            int dbQueueSize = (int) getStatusSnapshot(institutionId).count(LeadStatus.QUEUED);
 
             boolean queueSyncStatus = queueSize == dbQueueSize;
 
-            long availableCounselors = institution.getCounselors().stream()
-                    .filter(counselorId -> isCounselorAvailable(counselorId, institutionId))
-                    .count();
+            long availableCounselors = capacityTracker.availableCounselors(institutionId).size();
 
             health.put("status", queueSyncStatus ? "HEALTHY" : "WARNING");
             health.put("queueSize", queueSize);
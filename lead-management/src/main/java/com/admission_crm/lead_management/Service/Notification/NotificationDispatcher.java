@@ -0,0 +1,310 @@
+package com.admission_crm.lead_management.Service.Notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking fan-out of notifications to WebSocket sessions.
+ * <p>
+ * Every session has a bounded outbound queue drained by at most one virtual thread at a time, so a
+ * slow browser only delays its own messages. Publishing just enqueues, and inside a transaction it
+ * waits for the commit. A session whose queue overflows more than the allowed number of times in a
+ * row, or whose oldest queued message is older than the allowed lag, is closed and removed.
+ * <p>
+ * Sessions are indexed by the institutions and the counselor of their {@link NotificationSubscription},
+ * so a targeted notification only touches its recipients.
+ */
+@Component
+@Slf4j
+public class NotificationDispatcher {
+
+    private final Map<String, SessionChannel> channels = new ConcurrentHashMap<>();
+    private final Map<String, Set<SessionChannel>> byInstitution = new ConcurrentHashMap<>();
+    private final Map<String, Set<SessionChannel>> byCounselor = new ConcurrentHashMap<>();
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final int queueCapacity;
+    private final int maxConsecutiveDrops;
+    private final long maxLagNanos;
+
+    private final Counter sentCounter;
+    private final Counter droppedCounter;
+    private final Counter evictedCounter;
+    private final Counter failedCounter;
+    private final Timer deliveryLag;
+
+    public NotificationDispatcher(MeterRegistry meterRegistry,
+                                  @Value("${notifications.dispatcher.queue-capacity:256}") int queueCapacity,
+                                  @Value("${notifications.dispatcher.max-consecutive-drops:32}") int maxConsecutiveDrops,
+                                  @Value("${notifications.dispatcher.max-lag-ms:10000}") long maxLagMillis) {
+        this.queueCapacity = queueCapacity;
+        this.maxConsecutiveDrops = maxConsecutiveDrops;
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMillis);
+
+        this.sentCounter = meterRegistry.counter("notifications.messages.sent");
+        this.droppedCounter = meterRegistry.counter("notifications.messages.dropped");
+        this.evictedCounter = meterRegistry.counter("notifications.sessions.evicted");
+        this.failedCounter = meterRegistry.counter("notifications.messages.failed");
+        this.deliveryLag = Timer.builder("notifications.delivery.lag")
+                .description("Time from publishing a notification to handing it to the session")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        Gauge.builder("notifications.sessions", channels, Map::size)
+                .description("Registered notification sessions")
+                .register(meterRegistry);
+        Gauge.builder("notifications.session.lag.max", this, dispatcher -> dispatcher.maxLagMillis())
+                .description("Age in ms of the oldest undelivered notification of any session")
+                .register(meterRegistry);
+    }
+
+    public void register(String userEmail, WebSocketSession session) {
+        register(userEmail, session, NotificationSubscription.NONE);
+    }
+
+    public void register(String userEmail, WebSocketSession session, NotificationSubscription subscription) {
+        SessionChannel channel = new SessionChannel(userEmail, session, subscription);
+        SessionChannel previous = channels.put(userEmail, channel);
+        if (previous != null) {
+            unindex(previous);
+            if (previous.session != session) {
+                closeAsync(previous, CloseStatus.NORMAL);
+            }
+        }
+        subscription.institutionIds().forEach(institutionId -> subscribers(byInstitution, institutionId).add(channel));
+        if (subscription.counselorId() != null) {
+            subscribers(byCounselor, subscription.counselorId()).add(channel);
+        }
+    }
+
+    public void unregister(String userEmail) {
+        SessionChannel channel = channels.get(userEmail);
+        if (channel != null) {
+            remove(channel);
+        }
+    }
+
+    public int sessionCount() {
+        return channels.size();
+    }
+
+    /**
+     * Send a message to every registered session, after the current transaction commits
+     */
+    public void broadcast(String message) {
+        afterCommit(() -> enqueue(channels.values(), message));
+    }
+
+    /**
+     * Send a message to the counselors and admins of an institution, after the current transaction commits
+     */
+    public void notifyInstitution(String institutionId, String message) {
+        afterCommit(() -> enqueue(byInstitution.getOrDefault(institutionId, Set.of()), message));
+    }
+
+    /**
+     * Send a message to the sessions of one counselor, after the current transaction commits
+     */
+    public void notifyCounselor(String counselorId, String message) {
+        afterCommit(() -> enqueue(byCounselor.getOrDefault(counselorId, Set.of()), message));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        senders.shutdown();
+        try {
+            if (!senders.awaitTermination(5, TimeUnit.SECONDS)) {
+                senders.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            senders.shutdownNow();
+        }
+    }
+
+    private void enqueue(Collection<SessionChannel> recipients, String message) {
+        long now = System.nanoTime();
+        Outbound outbound = new Outbound(message, now);
+        recipients.forEach(channel -> channel.offer(outbound, now));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static Set<SessionChannel> subscribers(Map<String, Set<SessionChannel>> index, String key) {
+        return index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet());
+    }
+
+    private boolean remove(SessionChannel channel) {
+        if (!channels.remove(channel.userEmail, channel)) {
+            return false;
+        }
+        unindex(channel);
+        return true;
+    }
+
+    private void unindex(SessionChannel channel) {
+        NotificationSubscription subscription = channel.subscription;
+        subscription.institutionIds().forEach(institutionId -> unindex(byInstitution, institutionId, channel));
+        if (subscription.counselorId() != null) {
+            unindex(byCounselor, subscription.counselorId(), channel);
+        }
+    }
+
+    private static void unindex(Map<String, Set<SessionChannel>> index, String key, SessionChannel channel) {
+        index.computeIfPresent(key, (k, subscribers) -> {
+            subscribers.remove(channel);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private long maxLagMillis() {
+        long now = System.nanoTime();
+        long maxLag = 0;
+        for (SessionChannel channel : channels.values()) {
+            maxLag = Math.max(maxLag, channel.lagNanos(now));
+        }
+        return TimeUnit.NANOSECONDS.toMillis(maxLag);
+    }
+
+    private void evict(SessionChannel channel, String reason) {
+        if (remove(channel)) {
+            evictedCounter.increment();
+            droppedCounter.increment(channel.outbound.size());
+            log.warn("Evicting notification session of {}: {}", channel.userEmail, reason);
+            closeAsync(channel, CloseStatus.SESSION_NOT_RELIABLE);
+        }
+    }
+
+    // Closing may block behind a send that is stuck on the same session
+    private void closeAsync(SessionChannel channel, CloseStatus status) {
+        try {
+            senders.execute(() -> channel.close(status));
+        } catch (RejectedExecutionException e) {
+            channel.close(status);
+        }
+    }
+
+    private record Outbound(String text, long enqueuedAt) {
+    }
+
+    private final class SessionChannel {
+        private final String userEmail;
+        private final WebSocketSession session;
+        private final NotificationSubscription subscription;
+        private final BlockingQueue<Outbound> outbound;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicInteger consecutiveDrops = new AtomicInteger();
+
+        private SessionChannel(String userEmail, WebSocketSession session, NotificationSubscription subscription) {
+            this.userEmail = userEmail;
+            this.session = session;
+            this.subscription = subscription;
+            this.outbound = new ArrayBlockingQueue<>(queueCapacity);
+        }
+
+        private void offer(Outbound message, long now) {
+            // Replaced by a newer session of the same user while it was being indexed
+            if (channels.get(userEmail) != this) {
+                unindex(this);
+                return;
+            }
+            if (!session.isOpen()) {
+                remove(this);
+                return;
+            }
+            if (lagNanos(now) > maxLagNanos) {
+                evict(this, "oldest notification waits for more than " + TimeUnit.NANOSECONDS.toMillis(maxLagNanos) + " ms");
+                return;
+            }
+
+            if (outbound.offer(message)) {
+                consecutiveDrops.set(0);
+            } else {
+                droppedCounter.increment();
+                if (consecutiveDrops.incrementAndGet() > maxConsecutiveDrops) {
+                    evict(this, "outbound queue full for " + consecutiveDrops.get() + " notifications");
+                    return;
+                }
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                Outbound next;
+                while ((next = outbound.poll()) != null) {
+                    try {
+                        session.sendMessage(new TextMessage(next.text()));
+                        sentCounter.increment();
+                        deliveryLag.record(System.nanoTime() - next.enqueuedAt(), TimeUnit.NANOSECONDS);
+                    } catch (IOException | IllegalStateException e) {
+                        failedCounter.increment();
+                        log.warn("Failed to send notification to {}: {}", userEmail, e.getMessage());
+                        remove(this);
+                        outbound.clear();
+                        return;
+                    }
+                }
+            } finally {
+                draining.set(false);
+            }
+            // A message may have arrived between the last poll and releasing the flag
+            if (!outbound.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+
+        private long lagNanos(long now) {
+            Outbound head = outbound.peek();
+            return head != null ? now - head.enqueuedAt() : 0;
+        }
+
+        private void close(CloseStatus status) {
+            outbound.clear();
+            try {
+                session.close(status);
+            } catch (IOException e) {
+                log.debug("Failed to close notification session of {}: {}", userEmail, e.getMessage());
+            }
+        }
+    }
+}
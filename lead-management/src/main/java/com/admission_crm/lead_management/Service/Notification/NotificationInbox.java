@@ -0,0 +1,303 @@
+package com.admission_crm.lead_management.Service.Notification;
+
+import com.admission_crm.lead_management.Entity.CoreEntities.User;
+import com.admission_crm.lead_management.Entity.Notification.Notification;
+import com.admission_crm.lead_management.Payload.Response.NotificationPageResponse;
+import com.admission_crm.lead_management.Repository.UserRepository;
+import com.admission_crm.lead_management.Service.Export.ExportCursor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Persistent inbox behind the WebSocket notifications, so users that were offline still see them.
+ * <p>
+ * Notifications are inserted in JDBC batches, one per outbox relay batch. The unread count of every
+ * user is kept in memory and moved by inserts and mark-read updates once they commit; it is rebuilt
+ * from one GROUP BY on startup, periodically and after each purge, so reading the unread badge never
+ * touches the database. Listing pages newest first by (createdAt, id) with an opaque cursor.
+ */
+@Component
+@Slf4j
+public class NotificationInbox {
+
+    private static final String INSERT_SQL =
+            "INSERT IGNORE INTO notifications (id, user_id, title, message, type, priority, is_read, expires_at, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, false, ?, ?, ?)";
+
+    private static final String SELECT_PAGE =
+            "SELECT id, user_id, title, message, type, priority, is_read, read_at, action_url, expires_at, created_at " +
+            "FROM notifications WHERE user_id = ?";
+
+    private static final String MARK_READ =
+            "UPDATE notifications SET is_read = true, read_at = ?, updated_at = ? WHERE user_id = ? AND is_read = false";
+
+    private static final String UNREAD_PER_USER =
+            "SELECT n.user_id, u.email, COUNT(*) FROM notifications n JOIN users u ON u.id = n.user_id " +
+            "WHERE n.is_read = false GROUP BY n.user_id, u.email";
+
+    private static final String PURGE_EXPIRED =
+            "DELETE FROM notifications WHERE expires_at < ? LIMIT ?";
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int PURGE_BATCH_SIZE = 5_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final long ttlDays;
+
+    private final Map<String, AtomicInteger> unread = new ConcurrentHashMap<>();
+    // Every user with unread notifications is in here, so a missing email means nothing unread
+    private final Map<String, String> userIdsByEmail = new ConcurrentHashMap<>();
+
+    public NotificationInbox(JdbcTemplate jdbcTemplate,
+                             UserRepository userRepository,
+                             @Value("${notifications.inbox.ttl-days:30}") long ttlDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userRepository = userRepository;
+        this.ttlDays = ttlDays;
+    }
+
+    /**
+     * A notification for one recipient. The id is derived from its source event, so storing the same
+     * delivery twice keeps a single row.
+     */
+    public record Delivery(String id, NotificationRecipient recipient, String title, String message,
+                           Notification.NotificationType type, Notification.NotificationPriority priority) {
+    }
+
+    /**
+     * Insert a batch of notifications in the caller's transaction, counted as unread once it commits
+     */
+    public void store(List<Delivery> deliveries) {
+        if (deliveries.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Timestamp expiresAt = Timestamp.valueOf(LocalDateTime.now().plusDays(ttlDays));
+        int[][] results = jdbcTemplate.batchUpdate(INSERT_SQL, deliveries, deliveries.size(), (ps, delivery) -> {
+            ps.setString(1, delivery.id());
+            ps.setString(2, delivery.recipient().userId());
+            ps.setString(3, delivery.title());
+            ps.setString(4, delivery.message());
+            ps.setString(5, delivery.type().name());
+            ps.setString(6, delivery.priority().name());
+            ps.setTimestamp(7, expiresAt);
+            ps.setTimestamp(8, now);
+            ps.setTimestamp(9, now);
+        });
+
+        // Rows ignored as already stored must not be counted again
+        List<NotificationRecipient> inserted = new ArrayList<>(deliveries.size());
+        int index = 0;
+        for (int[] batch : results) {
+            for (int result : batch) {
+                if (result > 0 || result == Statement.SUCCESS_NO_INFO) {
+                    inserted.add(deliveries.get(index).recipient());
+                }
+                index++;
+            }
+        }
+
+        afterCommit(() -> inserted.forEach(recipient -> {
+            userIdsByEmail.put(recipient.email(), recipient.userId());
+            counter(recipient.userId()).incrementAndGet();
+        }));
+    }
+
+    /**
+     * Unread count of a user, answered from memory
+     */
+    public int unreadCount(String userEmail) {
+        String userId = userIdsByEmail.get(userEmail);
+        if (userId == null) {
+            return 0;
+        }
+        AtomicInteger count = unread.get(userId);
+        return count != null ? count.get() : 0;
+    }
+
+    /**
+     * One page of a user's notifications, newest first, starting after the given cursor
+     */
+    public NotificationPageResponse list(String userEmail, String after, int limit, boolean unreadOnly) {
+        String userId = userIdFor(userEmail);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+
+        StringBuilder sql = new StringBuilder(SELECT_PAGE);
+        List<Object> params = new ArrayList<>();
+        params.add(userId);
+        if (unreadOnly) {
+            sql.append(" AND is_read = false");
+        }
+        if (after != null && !after.isBlank()) {
+            ExportCursor cursor = ExportCursor.decode(after);
+            Timestamp createdAt = Timestamp.valueOf(cursor.createdAt());
+            sql.append(" AND (created_at < ? OR (created_at = ? AND id < ?))");
+            params.add(createdAt);
+            params.add(createdAt);
+            params.add(cursor.id());
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT ?");
+        // One extra row tells whether another page follows
+        params.add(pageSize + 1);
+
+        List<Notification> notifications = jdbcTemplate.query(sql.toString(), (rs, rowNum) -> toNotification(rs),
+                params.toArray());
+
+        String nextCursor = null;
+        if (notifications.size() > pageSize) {
+            notifications = new ArrayList<>(notifications.subList(0, pageSize));
+            Notification last = notifications.get(pageSize - 1);
+            nextCursor = new ExportCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new NotificationPageResponse(notifications, nextCursor, unreadCount(userEmail));
+    }
+
+    /**
+     * Mark the given notifications of a user as read with one UPDATE, returns how many changed
+     */
+    public int markRead(String userEmail, Collection<String> notificationIds) {
+        if (notificationIds == null || notificationIds.isEmpty()) {
+            return 0;
+        }
+        String userId = userIdFor(userEmail);
+        List<String> ids = List.copyOf(new LinkedHashSet<>(notificationIds));
+
+        String sql = MARK_READ + " AND id IN (" + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        List<Object> params = new ArrayList<>(markReadParams(userId));
+        params.addAll(ids);
+        int changed = jdbcTemplate.update(sql, params.toArray());
+
+        afterCommit(() -> decrement(userId, changed));
+        return changed;
+    }
+
+    /**
+     * Mark every notification of a user as read with one UPDATE, returns how many changed
+     */
+    public int markAllRead(String userEmail) {
+        String userId = userIdFor(userEmail);
+        int changed = jdbcTemplate.update(MARK_READ, markReadParams(userId).toArray());
+
+        afterCommit(() -> decrement(userId, changed));
+        return changed;
+    }
+
+    /**
+     * Recount unread notifications per user, repairing drift from concurrent updates and other instances
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${notifications.inbox.reconcile-interval-ms:300000}",
+            fixedDelayString = "${notifications.inbox.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        Map<String, Integer> counts = new HashMap<>();
+        jdbcTemplate.query(UNREAD_PER_USER, rs -> {
+            counts.put(rs.getString(1), rs.getInt(3));
+            userIdsByEmail.put(rs.getString(2), rs.getString(1));
+        });
+
+        counts.forEach((userId, count) -> counter(userId).set(count));
+        unread.forEach((userId, count) -> {
+            if (!counts.containsKey(userId)) {
+                count.set(0);
+            }
+        });
+        log.debug("Notification unread counts reconciled for {} users", counts.size());
+    }
+
+    @Scheduled(cron = "${notifications.inbox.purge-cron:0 45 * * * *}")
+    public void purgeExpired() {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE_EXPIRED, now, PURGE_BATCH_SIZE);
+            purged += deleted;
+        } while (deleted == PURGE_BATCH_SIZE);
+
+        if (purged > 0) {
+            log.info("Purged {} expired notifications", purged);
+            reconcile();
+        }
+    }
+
+    private String userIdFor(String userEmail) {
+        String cached = userIdsByEmail.get(userEmail);
+        if (cached != null) {
+            return cached;
+        }
+        User user = userRepository.findByEmail(userEmail)
+                .orElseThrow(() -> new RuntimeException("User not found"));
+        userIdsByEmail.put(userEmail, user.getId());
+        return user.getId();
+    }
+
+    private AtomicInteger counter(String userId) {
+        return unread.computeIfAbsent(userId, id -> new AtomicInteger());
+    }
+
+    private void decrement(String userId, int changed) {
+        if (changed > 0) {
+            counter(userId).updateAndGet(count -> Math.max(0, count - changed));
+        }
+    }
+
+    private static List<Object> markReadParams(String userId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        return List.of(now, now, userId);
+    }
+
+    private static Notification toNotification(ResultSet rs) throws SQLException {
+        Notification notification = new Notification();
+        notification.setId(rs.getString("id"));
+        notification.setUserId(rs.getString("user_id"));
+        notification.setTitle(rs.getString("title"));
+        notification.setMessage(rs.getString("message"));
+        notification.setType(enumOrNull(Notification.NotificationType.class, rs.getString("type")));
+        notification.setPriority(enumOrNull(Notification.NotificationPriority.class, rs.getString("priority")));
+        notification.setIsRead(rs.getBoolean("is_read"));
+        notification.setReadAt(toLocalDateTime(rs.getTimestamp("read_at")));
+        notification.setActionUrl(rs.getString("action_url"));
+        notification.setExpiresAt(toLocalDateTime(rs.getTimestamp("expires_at")));
+        notification.setCreatedAt(toLocalDateTime(rs.getTimestamp("created_at")));
+        return notification;
+    }
+
+    private static <E extends Enum<E>> E enumOrNull(Class<E> type, String value) {
+        return value != null ? Enum.valueOf(type, value) : null;
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toLocalDateTime() : null;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
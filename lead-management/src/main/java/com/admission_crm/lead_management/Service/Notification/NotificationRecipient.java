@@ -0,0 +1,7 @@
+package com.admission_crm.lead_management.Service.Notification;
+
+/**
+ * A user a notification is stored for
+ */
+public record NotificationRecipient(String userId, String email) {
+}
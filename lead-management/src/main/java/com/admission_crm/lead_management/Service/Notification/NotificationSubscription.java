@@ -0,0 +1,16 @@
+package com.admission_crm.lead_management.Service.Notification;
+
+import java.util.Set;
+
+/**
+ * What a notification session listens to: the counselor it belongs to, if any, and the
+ * institutions whose lead events it receives.
+ */
+public record NotificationSubscription(String counselorId, Set<String> institutionIds) {
+
+    public static final NotificationSubscription NONE = new NotificationSubscription(null, Set.of());
+
+    public NotificationSubscription {
+        institutionIds = institutionIds != null ? Set.copyOf(institutionIds) : Set.of();
+    }
+}
@@ -0,0 +1,93 @@
+package com.admission_crm.lead_management.Service.Notification;
+
+import com.admission_crm.lead_management.Entity.CoreEntities.User;
+import com.admission_crm.lead_management.Repository.UserRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Works out the subscription of a connecting user from their role and institution membership, and
+ * the users a stored notification is meant for.
+ * Counselors follow the institutions they counsel for, institute admins the institutions they
+ * administer and university admins every institution of their university. Membership is read
+ * once per connection, a user sees membership changes after reconnecting.
+ */
+@Component
+public class NotificationSubscriptionResolver {
+
+    private static final String COUNSELOR_INSTITUTIONS =
+            "SELECT institution_id FROM institution_counselors WHERE counselor_id = ?";
+
+    private static final String ADMIN_INSTITUTIONS =
+            "SELECT institution_id FROM institution_admins WHERE admin_id = ?";
+
+    private static final String UNIVERSITY_INSTITUTIONS =
+            "SELECT id FROM institutions WHERE university_id = ?";
+
+    // The same audience as the subscriptions resolved for connecting users, including offline ones
+    private static final String INSTITUTION_RECIPIENTS =
+            "SELECT id, email FROM users WHERE is_active = true AND (" +
+            "id IN (SELECT counselor_id FROM institution_counselors WHERE institution_id = ?) " +
+            "OR id IN (SELECT admin_id FROM institution_admins WHERE institution_id = ?) " +
+            "OR (role = 'INSTITUTE_ADMIN' AND institution_id = ?) " +
+            "OR (role = 'UNIVERSITY_ADMIN' AND university_id = (SELECT university_id FROM institutions WHERE id = ?)))";
+
+    private static final String COUNSELOR_RECIPIENT =
+            "SELECT id, email FROM users WHERE id = ? AND is_active = true";
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public NotificationSubscriptionResolver(UserRepository userRepository, JdbcTemplate jdbcTemplate) {
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public NotificationSubscription resolve(String userEmail) {
+        User user = userRepository.findByEmail(userEmail).orElse(null);
+        if (user == null || user.getRole() == null || !Boolean.TRUE.equals(user.getIsActive())) {
+            return NotificationSubscription.NONE;
+        }
+
+        Set<String> institutionIds = new HashSet<>();
+        String counselorId = null;
+        switch (user.getRole()) {
+            case COUNSELOR -> {
+                counselorId = user.getId();
+                institutionIds.addAll(jdbcTemplate.queryForList(COUNSELOR_INSTITUTIONS, String.class, user.getId()));
+            }
+            case INSTITUTE_ADMIN -> {
+                institutionIds.addAll(jdbcTemplate.queryForList(ADMIN_INSTITUTIONS, String.class, user.getId()));
+                if (user.getInstitutionId() != null) {
+                    institutionIds.add(user.getInstitutionId());
+                }
+            }
+            case UNIVERSITY_ADMIN -> {
+                if (user.getUniversityId() != null) {
+                    institutionIds.addAll(jdbcTemplate.queryForList(UNIVERSITY_INSTITUTIONS, String.class,
+                            user.getUniversityId()));
+                }
+            }
+            default -> {
+                // Students get no lead notifications
+            }
+        }
+        return new NotificationSubscription(counselorId, institutionIds);
+    }
+
+    public List<NotificationRecipient> institutionRecipients(String institutionId) {
+        return jdbcTemplate.query(INSTITUTION_RECIPIENTS,
+                (rs, rowNum) -> new NotificationRecipient(rs.getString(1), rs.getString(2)),
+                institutionId, institutionId, institutionId, institutionId);
+    }
+
+    public List<NotificationRecipient> counselorRecipients(String counselorId) {
+        return jdbcTemplate.query(COUNSELOR_RECIPIENT,
+                (rs, rowNum) -> new NotificationRecipient(rs.getString(1), rs.getString(2)),
+                counselorId);
+    }
+}
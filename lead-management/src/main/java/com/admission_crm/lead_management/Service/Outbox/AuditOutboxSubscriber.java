@@ -0,0 +1,46 @@
+package com.admission_crm.lead_management.Service.Outbox;
+
+import com.admission_crm.lead_management.Service.Audit.AuditEvent;
+import com.admission_crm.lead_management.Service.Audit.AuditLogWriter;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the audit events of a relay batch into the logs table with one batch insert. A batch that
+ * fails is delivered again, so audit entries are written at least once.
+ */
+@Component
+@Slf4j
+public class AuditOutboxSubscriber implements OutboxSubscriber {
+
+    private final AuditLogWriter auditLogWriter;
+    private final ObjectMapper objectMapper;
+
+    public AuditOutboxSubscriber(AuditLogWriter auditLogWriter, ObjectMapper objectMapper) {
+        this.auditLogWriter = auditLogWriter;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean supports(OutboxEventType type) {
+        return type == OutboxEventType.AUDIT;
+    }
+
+    @Override
+    public void deliver(List<OutboxMessage> messages) {
+        List<AuditEvent> events = new ArrayList<>(messages.size());
+        for (OutboxMessage message : messages) {
+            try {
+                events.add(objectMapper.readValue(message.payload(), AuditEvent.class));
+            } catch (JsonProcessingException e) {
+                log.error("Skipping unreadable audit outbox event {}: {}", message.id(), e.getMessage());
+            }
+        }
+        auditLogWriter.writeNow(events);
+    }
+}
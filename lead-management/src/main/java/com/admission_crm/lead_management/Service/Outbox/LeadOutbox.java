@@ -0,0 +1,81 @@
+package com.admission_crm.lead_management.Service.Outbox;
+
+import com.admission_crm.lead_management.Service.Audit.AuditEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records lead side effects in the lead_outbox table. Appends join the caller's transaction, so an
+ * event exists exactly when the lead change it describes has committed; the {@link LeadOutboxRelay}
+ * delivers it afterwards.
+ */
+@Component
+public class LeadOutbox {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO lead_outbox (lead_id, institution_id, order_key, event_type, payload, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public LeadOutbox(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional
+    public void audit(String leadId, AuditEvent event) {
+        append(OutboxEventType.AUDIT, leadId, null,
+                leadId != null ? leadId : event.entityType() + ":" + event.entityId(), event);
+    }
+
+    /**
+     * Audit events of lead entities, the entity id is the lead, appended with one batch insert
+     */
+    @Transactional
+    public void auditLeads(List<AuditEvent> events) {
+        if (events.isEmpty()) {
+            return;
+        }
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(events.size());
+        for (AuditEvent event : events) {
+            rows.add(new Object[]{event.entityId(), null, event.entityId(), OutboxEventType.AUDIT.name(),
+                    serialize(OutboxEventType.AUDIT, event), now});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+
+    @Transactional
+    public void notifyInstitution(String institutionId, String message) {
+        append(OutboxEventType.INSTITUTION_NOTIFICATION, null, institutionId, "institution:" + institutionId,
+                new NotificationPayload(institutionId, message));
+    }
+
+    @Transactional
+    public void notifyCounselor(String counselorId, String message) {
+        append(OutboxEventType.COUNSELOR_NOTIFICATION, null, null, "counselor:" + counselorId,
+                new NotificationPayload(counselorId, message));
+    }
+
+    private void append(OutboxEventType type, String leadId, String institutionId, String orderKey, Object payload) {
+        jdbcTemplate.update(INSERT_SQL, leadId, institutionId, orderKey, type.name(), serialize(type, payload),
+                Timestamp.valueOf(LocalDateTime.now()));
+    }
+
+    private String serialize(OutboxEventType type, Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize " + type + " outbox payload", e);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.admission_crm.lead_management.Service.Outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Delivers committed outbox events to the {@link OutboxSubscriber}s.
+ * <p>
+ * Each run claims batches of the oldest claimable events until none is left. A batch is
+ * claimed for this instance in a short read-committed transaction with FOR UPDATE SKIP LOCKED, so
+ * lead transactions inserting outbox rows never wait for a delivery. The subscribers then run
+ * outside any lock and the batch is marked delivered once they return. A failed batch has its claim
+ * released and a crashed instance's claim expires after lead.outbox.claim-ttl-seconds, so every
+ * event is delivered at least once.
+ * <p>
+ * Events are ordered per order key: the lead, or for other events the institution, counselor or
+ * audited entity. An event is only claimed once every earlier event with its key is delivered,
+ * whether that one is claimed, locked by another relay's claim or not yet claimed at all, so at most
+ * one event per key is in flight and each key's events are delivered in order.
+ */
+@Component
+@Slf4j
+public class LeadOutboxRelay {
+
+    private static final String PENDING =
+            "SELECT id, lead_id, institution_id, event_type, payload, created_at FROM lead_outbox o " +
+            "WHERE dispatched_at IS NULL AND (claimed_until IS NULL OR claimed_until < NOW()) " +
+            "AND NOT EXISTS (SELECT 1 FROM lead_outbox earlier WHERE earlier.order_key = o.order_key " +
+            "AND earlier.id < o.id AND earlier.dispatched_at IS NULL) " +
+            "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    private static final String CLAIM =
+            "UPDATE lead_outbox SET claimed_by = ?, claimed_until = DATE_ADD(NOW(), INTERVAL ? SECOND) WHERE id = ?";
+
+    // Only while the claim is still ours, an expired claim may already have been delivered elsewhere
+    private static final String MARK_DISPATCHED =
+            "UPDATE lead_outbox SET dispatched_at = ?, claimed_by = NULL, claimed_until = NULL " +
+            "WHERE id = ? AND claimed_by = ?";
+
+    private static final String RELEASE =
+            "UPDATE lead_outbox SET claimed_by = NULL, claimed_until = NULL WHERE id = ? AND claimed_by = ?";
+
+    private static final String PURGE =
+            "DELETE FROM lead_outbox WHERE dispatched_at < ? LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate claimTransaction;
+    private final List<OutboxSubscriber> subscribers;
+    private final int batchSize;
+    private final long retentionHours;
+    private final long claimTtlSeconds;
+    private final String relayId = UUID.randomUUID().toString();
+
+    private final Counter relayedCounter;
+    private final Counter failureCounter;
+    private final Timer relayLag;
+
+    public LeadOutboxRelay(JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           List<OutboxSubscriber> subscribers,
+                           MeterRegistry meterRegistry,
+                           @Value("${lead.outbox.batch-size:500}") int batchSize,
+                           @Value("${lead.outbox.retention-hours:72}") long retentionHours,
+                           @Value("${lead.outbox.claim-ttl-seconds:60}") long claimTtlSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        // Read committed takes no gap locks, the claim only locks the rows it returns
+        this.claimTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.claimTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        this.subscribers = subscribers;
+        this.batchSize = batchSize;
+        this.retentionHours = retentionHours;
+        this.claimTtlSeconds = claimTtlSeconds;
+
+        this.relayedCounter = meterRegistry.counter("outbox.events.relayed");
+        this.failureCounter = meterRegistry.counter("outbox.relay.failures");
+        this.relayLag = Timer.builder("outbox.relay.lag")
+                .description("Time from writing an outbox event to delivering it")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${lead.outbox.relay-interval-ms:200}")
+    public void relay() {
+        while (true) {
+            List<Claimed> batch = claimTransaction.execute(status -> claimBatch());
+            if (batch == null || batch.isEmpty()) {
+                return;
+            }
+            try {
+                deliver(batch);
+            } catch (Exception e) {
+                // The failed batch is released and retried on the next run, nothing after it is delivered first
+                failureCounter.increment();
+                log.error("Outbox relay failed at event {}: {}", batch.get(0).message().id(), e.getMessage());
+                release(batch);
+                return;
+            }
+            // Delivered and claimed events are filtered out, the next batch starts from the oldest again.
+            // Even a short batch may have held back later events of its keys, which are claimable now
+        }
+    }
+
+    @Scheduled(cron = "${lead.outbox.purge-cron:0 15 * * * *}")
+    public void purge() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusHours(retentionHours));
+        int purged = 0;
+        int deleted;
+        do {
+            deleted = jdbcTemplate.update(PURGE, cutoff, batchSize);
+            purged += deleted;
+        } while (deleted == batchSize);
+        if (purged > 0) {
+            log.info("Purged {} delivered outbox events", purged);
+        }
+    }
+
+    private List<Claimed> claimBatch() {
+        List<Claimed> batch = new ArrayList<>(batchSize);
+        jdbcTemplate.query(PENDING, rs -> {
+            batch.add(new Claimed(
+                    new OutboxMessage(
+                            rs.getLong("id"),
+                            rs.getString("lead_id"),
+                            rs.getString("institution_id"),
+                            OutboxEventType.valueOf(rs.getString("event_type")),
+                            rs.getString("payload")),
+                    rs.getTimestamp("created_at").toLocalDateTime()));
+        }, batchSize);
+
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(CLAIM, batch, batch.size(), (ps, claimed) -> {
+                ps.setString(1, relayId);
+                ps.setLong(2, claimTtlSeconds);
+                ps.setLong(3, claimed.message().id());
+            });
+        }
+        return batch;
+    }
+
+    private void deliver(List<Claimed> batch) {
+        List<OutboxMessage> messages = batch.stream().map(Claimed::message).toList();
+        for (OutboxSubscriber subscriber : subscribers) {
+            List<OutboxMessage> supported = messages.stream()
+                    .filter(message -> subscriber.supports(message.type()))
+                    .toList();
+            if (!supported.isEmpty()) {
+                subscriber.deliver(supported);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp dispatchedAt = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(MARK_DISPATCHED, messages, messages.size(), (ps, message) -> {
+            ps.setTimestamp(1, dispatchedAt);
+            ps.setLong(2, message.id());
+            ps.setString(3, relayId);
+        });
+
+        relayedCounter.increment(batch.size());
+        batch.forEach(claimed -> relayLag.record(Duration.between(claimed.createdAt(), now)));
+    }
+
+    private void release(List<Claimed> batch) {
+        try {
+            jdbcTemplate.batchUpdate(RELEASE, batch, batch.size(), (ps, claimed) -> {
+                ps.setLong(1, claimed.message().id());
+                ps.setString(2, relayId);
+            });
+        } catch (Exception e) {
+            // The claims expire on their own
+            log.warn("Failed to release {} outbox claims: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    private record Claimed(OutboxMessage message, LocalDateTime createdAt) {
+    }
+}
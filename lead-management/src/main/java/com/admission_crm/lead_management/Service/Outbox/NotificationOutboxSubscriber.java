@@ -0,0 +1,93 @@
+package com.admission_crm.lead_management.Service.Outbox;
+
+import com.admission_crm.lead_management.Entity.Notification.Notification;
+import com.admission_crm.lead_management.Service.Notification.NotificationDispatcher;
+import com.admission_crm.lead_management.Service.Notification.NotificationInbox;
+import com.admission_crm.lead_management.Service.Notification.NotificationRecipient;
+import com.admission_crm.lead_management.Service.Notification.NotificationSubscriptionResolver;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Stores notification events in the recipients' inboxes, one insert batch per relay batch, and then
+ * hands them to the WebSocket dispatcher.
+ */
+@Component
+@Slf4j
+public class NotificationOutboxSubscriber implements OutboxSubscriber {
+
+    private final NotificationDispatcher notificationDispatcher;
+    private final NotificationInbox notificationInbox;
+    private final NotificationSubscriptionResolver subscriptionResolver;
+    private final ObjectMapper objectMapper;
+
+    public NotificationOutboxSubscriber(NotificationDispatcher notificationDispatcher,
+                                        NotificationInbox notificationInbox,
+                                        NotificationSubscriptionResolver subscriptionResolver,
+                                        ObjectMapper objectMapper) {
+        this.notificationDispatcher = notificationDispatcher;
+        this.notificationInbox = notificationInbox;
+        this.subscriptionResolver = subscriptionResolver;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public boolean supports(OutboxEventType type) {
+        return type == OutboxEventType.INSTITUTION_NOTIFICATION || type == OutboxEventType.COUNSELOR_NOTIFICATION;
+    }
+
+    @Override
+    public void deliver(List<OutboxMessage> messages) {
+        // Recipients are looked up once per institution or counselor in the batch
+        Map<String, List<NotificationRecipient>> recipients = new HashMap<>();
+        List<NotificationInbox.Delivery> deliveries = new ArrayList<>();
+        List<Runnable> pushes = new ArrayList<>();
+
+        for (OutboxMessage message : messages) {
+            NotificationPayload payload;
+            try {
+                payload = objectMapper.readValue(message.payload(), NotificationPayload.class);
+            } catch (JsonProcessingException e) {
+                // A notification is not worth blocking the events behind it
+                log.warn("Skipping unreadable notification outbox event {}: {}", message.id(), e.getMessage());
+                continue;
+            }
+
+            boolean institutionWide = message.type() == OutboxEventType.INSTITUTION_NOTIFICATION;
+            List<NotificationRecipient> audience = recipients.computeIfAbsent(message.type() + ":" + payload.recipientId(),
+                    key -> institutionWide
+                            ? subscriptionResolver.institutionRecipients(payload.recipientId())
+                            : subscriptionResolver.counselorRecipients(payload.recipientId()));
+            for (NotificationRecipient recipient : audience) {
+                deliveries.add(new NotificationInbox.Delivery(
+                        deliveryId(message, recipient),
+                        recipient,
+                        institutionWide ? "Lead activity" : "Lead assignment",
+                        payload.message(),
+                        Notification.NotificationType.INFO,
+                        institutionWide ? Notification.NotificationPriority.MEDIUM : Notification.NotificationPriority.HIGH));
+            }
+
+            if (institutionWide) {
+                pushes.add(() -> notificationDispatcher.notifyInstitution(payload.recipientId(), payload.message()));
+            } else {
+                pushes.add(() -> notificationDispatcher.notifyCounselor(payload.recipientId(), payload.message()));
+            }
+        }
+
+        // Pushed only once stored, a batch that fails to store is redelivered without double pushes
+        notificationInbox.store(deliveries);
+        pushes.forEach(Runnable::run);
+    }
+
+    // Stable per event and recipient, so a redelivered batch does not store duplicates
+    private static String deliveryId(OutboxMessage message, NotificationRecipient recipient) {
+        String key = "outbox:" + message.id() + ":" + recipient.userId();
+        return UUID.nameUUIDFromBytes(key.getBytes(StandardCharsets.UTF_8)).toString();
+    }
+}
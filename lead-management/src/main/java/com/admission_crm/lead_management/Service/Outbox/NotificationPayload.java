@@ -0,0 +1,7 @@
+package com.admission_crm.lead_management.Service.Outbox;
+
+/**
+ * Payload of a notification event, the recipient is a counselor id or an institution id
+ */
+public record NotificationPayload(String recipientId, String message) {
+}
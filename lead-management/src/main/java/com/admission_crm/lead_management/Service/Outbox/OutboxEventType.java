@@ -0,0 +1,7 @@
+package com.admission_crm.lead_management.Service.Outbox;
+
+public enum OutboxEventType {
+    AUDIT,
+    INSTITUTION_NOTIFICATION,
+    COUNSELOR_NOTIFICATION
+}
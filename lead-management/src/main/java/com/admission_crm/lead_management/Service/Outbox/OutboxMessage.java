@@ -0,0 +1,7 @@
+package com.admission_crm.lead_management.Service.Outbox;
+
+/**
+ * An outbox row as handed to the subscribers, the payload still in its stored JSON form
+ */
+public record OutboxMessage(long id, String leadId, String institutionId, OutboxEventType type, String payload) {
+}
@@ -0,0 +1,16 @@
+package com.admission_crm.lead_management.Service.Outbox;
+
+import java.util.List;
+
+/**
+ * In-process consumer of outbox events. The relay hands every subscriber the events of a batch it
+ * supports, in outbox order, outside any transaction; the batch is marked delivered once all
+ * subscribers return. Throwing releases the batch and it is delivered again, so handling must
+ * tolerate repeats.
+ */
+public interface OutboxSubscriber {
+
+    boolean supports(OutboxEventType type);
+
+    void deliver(List<OutboxMessage> messages);
+}
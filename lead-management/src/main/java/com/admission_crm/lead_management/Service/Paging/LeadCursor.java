@@ -0,0 +1,55 @@
+package com.admission_crm.lead_management.Service.Paging;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.Lead;
+import com.admission_crm.lead_management.Exception.InvalidRequestException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Opaque continuation token of a cursor listing: the sort it was issued for and the sort value and id
+ * of the last lead returned. The next page seeks past that position instead of skipping rows.
+ */
+public record LeadCursor(LeadSortKey sortKey, Sort.Direction direction, String id, String value) {
+
+    private static final String SEPARATOR = "|";
+
+    public static LeadCursor after(Lead lead, LeadSortKey sortKey, Sort.Direction direction) {
+        return new LeadCursor(sortKey, direction, lead.getId(), sortKey.valueOf(lead));
+    }
+
+    public KeysetScrollPosition position() {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put(sortKey.getProperty(), sortKey.parse(value));
+        keys.put("id", id);
+        return ScrollPosition.forward(keys);
+    }
+
+    // The value goes last, it is the only part that may contain the separator
+    public String encode() {
+        String raw = sortKey.name() + SEPARATOR + direction.name() + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static LeadCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4 || parts[2].isEmpty()) {
+                throw new InvalidRequestException("Invalid cursor");
+            }
+            LeadCursor decoded = new LeadCursor(LeadSortKey.valueOf(parts[0]), Sort.Direction.valueOf(parts[1]),
+                    parts[2], parts[3]);
+            decoded.sortKey.parse(decoded.value);
+            return decoded;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidRequestException("Invalid cursor");
+        }
+    }
+}
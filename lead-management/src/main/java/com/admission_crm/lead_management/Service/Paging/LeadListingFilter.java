@@ -0,0 +1,9 @@
+package com.admission_crm.lead_management.Service.Paging;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
+
+/**
+ * Equality filters of the lead listing endpoints, null means unfiltered
+ */
+public record LeadListingFilter(String institutionId, LeadStatus status, String counselorId) {
+}
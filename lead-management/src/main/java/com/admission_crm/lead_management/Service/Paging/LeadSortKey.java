@@ -0,0 +1,51 @@
+package com.admission_crm.lead_management.Service.Paging;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.Lead;
+import com.admission_crm.lead_management.Exception.InvalidRequestException;
+
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * Lead properties a cursor listing can be ordered by. Only non-null columns qualify, a keyset cannot
+ * seek past null values; the lead id is always added as the tie breaker.
+ */
+public enum LeadSortKey {
+    CREATED_AT("createdAt", Lead::getCreatedAt, LocalDateTime::parse),
+    UPDATED_AT("updatedAt", Lead::getUpdatedAt, LocalDateTime::parse),
+    FIRST_NAME("firstName", Lead::getFirstName, value -> value),
+    LAST_NAME("lastName", Lead::getLastName, value -> value),
+    EMAIL("email", Lead::getEmail, value -> value);
+
+    private final String property;
+    private final Function<Lead, Object> extractor;
+    private final Function<String, Object> parser;
+
+    LeadSortKey(String property, Function<Lead, Object> extractor, Function<String, Object> parser) {
+        this.property = property;
+        this.extractor = extractor;
+        this.parser = parser;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public String valueOf(Lead lead) {
+        Object value = extractor.apply(lead);
+        return value != null ? value.toString() : null;
+    }
+
+    public Object parse(String value) {
+        return parser.apply(value);
+    }
+
+    public static LeadSortKey from(String property) {
+        for (LeadSortKey key : values()) {
+            if (key.property.equals(property)) {
+                return key;
+            }
+        }
+        throw new InvalidRequestException("Unsupported sort key for cursor pagination: " + property);
+    }
+}
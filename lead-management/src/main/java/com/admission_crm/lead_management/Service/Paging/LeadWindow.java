@@ -0,0 +1,11 @@
+package com.admission_crm.lead_management.Service.Paging;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.Lead;
+
+import java.util.List;
+
+/**
+ * One cursor page of leads, nextCursor is null on the last page
+ */
+public record LeadWindow(List<Lead> leads, String nextCursor) {
+}
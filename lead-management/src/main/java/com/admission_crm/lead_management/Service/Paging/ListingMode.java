@@ -0,0 +1,22 @@
+package com.admission_crm.lead_management.Service.Paging;
+
+import com.admission_crm.lead_management.Exception.InvalidRequestException;
+
+/**
+ * How a lead listing pages: PAGE with a total count, SLICE without the count query, CURSOR by keyset
+ * with a continuation token so deep pages cost the same as the first.
+ */
+public enum ListingMode {
+    PAGE,
+    SLICE,
+    CURSOR;
+
+    public static ListingMode from(String value) {
+        for (ListingMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new InvalidRequestException("Unsupported listing mode: " + value);
+    }
+}
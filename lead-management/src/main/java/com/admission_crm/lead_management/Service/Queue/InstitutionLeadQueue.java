@@ -0,0 +1,209 @@
+package com.admission_crm.lead_management.Service.Queue;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Priority queue of one institution. An order-statistic tree keeps the dequeue order and a hash
+ * index maps lead ids to their current key, so offer, poll, remove and position lookups are O(log n).
+ * All operations are guarded by a per-institution lock; institutions never contend with each other.
+ */
+public class InstitutionLeadQueue {
+
+    private final String institutionId;
+    private final OrderStatisticTree<QueueKey> ordered = new OrderStatisticTree<>();
+    private final Map<String, QueueKey> index = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public InstitutionLeadQueue(String institutionId) {
+        this.institutionId = institutionId;
+    }
+
+    public String getInstitutionId() {
+        return institutionId;
+    }
+
+    /**
+     * Insert a lead, replacing its previous key if it is already queued
+     */
+    public void offer(QueueKey key) {
+        lock.lock();
+        try {
+            QueueKey previous = index.put(key.leadId(), key);
+            if (previous != null) {
+                ordered.remove(previous);
+            }
+            ordered.add(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Insert a batch of leads under a single lock acquisition
+     */
+    public void offerAll(Collection<QueueKey> keys) {
+        lock.lock();
+        try {
+            for (QueueKey key : keys) {
+                QueueKey previous = index.put(key.leadId(), key);
+                if (previous != null) {
+                    ordered.remove(previous);
+                }
+                ordered.add(key);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Remove and return the head of the queue, or null if empty
+     */
+    public QueueKey poll() {
+        lock.lock();
+        try {
+            QueueKey head = ordered.pollFirst();
+            if (head != null) {
+                index.remove(head.leadId());
+            }
+            return head;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public QueueKey peek() {
+        lock.lock();
+        try {
+            return ordered.first();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean remove(String leadId) {
+        lock.lock();
+        try {
+            QueueKey key = index.remove(leadId);
+            if (key == null) {
+                return false;
+            }
+            ordered.remove(key);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean contains(String leadId) {
+        lock.lock();
+        try {
+            return index.containsKey(leadId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move a lead to a 1-based position by giving it a key between its new neighbours. Returns every
+     * key that changed, the moved one last, or an empty list if the lead is not queued.
+     */
+    public List<QueueKey> moveTo(String leadId, int position) {
+        lock.lock();
+        try {
+            QueueKey current = index.get(leadId);
+            if (current == null) {
+                return List.of();
+            }
+            ordered.remove(current);
+
+            int target = Math.max(0, Math.min(position - 1, ordered.size()));
+            List<QueueKey> changed = new ArrayList<>();
+            QueueKey moved;
+            if (ordered.isEmpty()) {
+                moved = current;
+            } else if (target < ordered.size()) {
+                QueueKey previous = target > 0 ? ordered.get(target - 1) : null;
+                moved = QueueKey.placedBetween(leadId, previous, ordered.get(target));
+                if (moved == null) {
+                    changed.addAll(respace(target));
+                    moved = QueueKey.placedBetween(leadId, ordered.get(target - 1), ordered.get(target));
+                }
+            } else {
+                moved = QueueKey.placedAfter(leadId, ordered.last());
+            }
+
+            ordered.add(moved);
+            index.put(leadId, moved);
+            changed.add(moved);
+            return changed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Spread the sequences of the run of keys sharing a slot with the key at index, called with the lock held
+    private List<QueueKey> respace(int index) {
+        QueueKey anchor = ordered.get(index);
+        int from = index;
+        while (from > 0 && QueueKey.sameSlot(ordered.get(from - 1), anchor)) {
+            from--;
+        }
+        List<QueueKey> run = new ArrayList<>();
+        for (int i = from; i < ordered.size() && QueueKey.sameSlot(ordered.get(i), anchor); i++) {
+            run.add(ordered.get(i));
+        }
+
+        List<QueueKey> respaced = new ArrayList<>(run.size());
+        for (int i = 0; i < run.size(); i++) {
+            QueueKey key = run.get(i);
+            ordered.remove(key);
+            respaced.add(key.withSequence(key.leadId(), (long) i * QueueKey.SEQUENCE_STEP));
+        }
+        for (QueueKey key : respaced) {
+            ordered.add(key);
+            this.index.put(key.leadId(), key);
+        }
+        return respaced;
+    }
+
+    /**
+     * 1-based position of a lead, or null if it is not queued
+     */
+    public Integer positionOf(String leadId) {
+        lock.lock();
+        try {
+            QueueKey key = index.get(leadId);
+            return key == null ? null : ordered.indexOf(key) + 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return ordered.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ordered copy of the first {@code limit} keys
+     */
+    public List<QueueKey> snapshot(int limit) {
+        lock.lock();
+        try {
+            List<QueueKey> keys = new ArrayList<>(Math.min(limit, ordered.size()));
+            for (QueueKey key : ordered) {
+                if (keys.size() >= limit) break;
+                keys.add(key);
+            }
+            return keys;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.admission_crm.lead_management.Service.Queue;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.QueueEntry;
+import com.admission_crm.lead_management.Repository.QueueEntryRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds one in-memory priority queue per institution. A queue is hydrated from the
+ * lead_queue rows of its institution the first time it is touched after startup.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LeadQueueEngine {
+
+    private final QueueEntryRepository queueEntryRepository;
+
+    private final Map<String, InstitutionLeadQueue> queues = new ConcurrentHashMap<>();
+
+    public InstitutionLeadQueue queueFor(String institutionId) {
+        return queues.computeIfAbsent(institutionId, this::hydrate);
+    }
+
+    /**
+     * Drop the in-memory queue so that the next access reloads it from the database
+     */
+    public void evict(String institutionId) {
+        queues.remove(institutionId);
+    }
+
+    private InstitutionLeadQueue hydrate(String institutionId) {
+        InstitutionLeadQueue queue = new InstitutionLeadQueue(institutionId);
+        for (QueueEntry entry : queueEntryRepository.findByInstitutionIdOrderByPriorityDescScoreDescCreatedAtAsc(institutionId)) {
+            queue.offer(QueueKey.of(entry));
+        }
+        log.info("Hydrated queue for institution {} with {} leads", institutionId, queue.size());
+        return queue;
+    }
+}
@@ -0,0 +1,238 @@
+package com.admission_crm.lead_management.Service.Queue;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sorted set backed by a treap whose nodes carry their subtree size. Besides the usual
+ * insert, remove and pollFirst it answers rank ("how many keys sort before this one")
+ * and select ("which key is at position i") in expected O(log n).
+ * <p>
+ * Not thread-safe; callers guard it with their own lock.
+ */
+public class OrderStatisticTree<K extends Comparable<K>> implements Iterable<K> {
+
+    private static final class Node<K> {
+        final K key;
+        final int weight;
+        int size = 1;
+        Node<K> left;
+        Node<K> right;
+
+        Node(K key) {
+            this.key = key;
+            this.weight = ThreadLocalRandom.current().nextInt();
+        }
+    }
+
+    private Node<K> root;
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public boolean contains(K key) {
+        Node<K> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) return true;
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    public boolean add(K key) {
+        if (contains(key)) {
+            return false;
+        }
+        root = insert(root, new Node<>(key));
+        return true;
+    }
+
+    public boolean remove(K key) {
+        boolean[] removed = new boolean[1];
+        root = remove(root, key, removed);
+        return removed[0];
+    }
+
+    /**
+     * 0-based position of the key, or -1 if it is not present
+     */
+    public int indexOf(K key) {
+        int rank = 0;
+        Node<K> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                return rank + size(node.left);
+            }
+            if (cmp < 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Key at the 0-based position
+     */
+    public K get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size());
+        }
+        Node<K> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index == leftSize) {
+                return node.key;
+            } else {
+                index -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    public K first() {
+        if (root == null) return null;
+        Node<K> node = root;
+        while (node.left != null) node = node.left;
+        return node.key;
+    }
+
+    public K last() {
+        if (root == null) return null;
+        Node<K> node = root;
+        while (node.right != null) node = node.right;
+        return node.key;
+    }
+
+    public K pollFirst() {
+        K first = first();
+        if (first != null) {
+            remove(first);
+        }
+        return first;
+    }
+
+    @Override
+    public Iterator<K> iterator() {
+        Deque<Node<K>> stack = new ArrayDeque<>();
+        pushLeft(stack, root);
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !stack.isEmpty();
+            }
+
+            @Override
+            public K next() {
+                if (stack.isEmpty()) throw new NoSuchElementException();
+                Node<K> node = stack.pop();
+                pushLeft(stack, node.right);
+                return node.key;
+            }
+        };
+    }
+
+    // ======================== TREAP INTERNALS ========================
+
+    private static <K> int size(Node<K> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <K> void update(Node<K> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static <K> void pushLeft(Deque<Node<K>> stack, Node<K> node) {
+        while (node != null) {
+            stack.push(node);
+            node = node.left;
+        }
+    }
+
+    private Node<K> insert(Node<K> node, Node<K> fresh) {
+        if (node == null) {
+            return fresh;
+        }
+        if (fresh.weight > node.weight) {
+            Node<K>[] parts = split(node, fresh.key);
+            fresh.left = parts[0];
+            fresh.right = parts[1];
+            update(fresh);
+            return fresh;
+        }
+        if (fresh.key.compareTo(node.key) < 0) {
+            node.left = insert(node.left, fresh);
+        } else {
+            node.right = insert(node.right, fresh);
+        }
+        update(node);
+        return node;
+    }
+
+    private Node<K> remove(Node<K> node, K key, boolean[] removed) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = key.compareTo(node.key);
+        if (cmp == 0) {
+            removed[0] = true;
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = remove(node.left, key, removed);
+        } else {
+            node.right = remove(node.right, key, removed);
+        }
+        update(node);
+        return node;
+    }
+
+    /**
+     * Split into keys strictly before {@code key} and keys at or after it
+     */
+    @SuppressWarnings("unchecked")
+    private Node<K>[] split(Node<K> node, K key) {
+        if (node == null) {
+            return (Node<K>[]) new Node[2];
+        }
+        if (node.key.compareTo(key) < 0) {
+            Node<K>[] parts = split(node.right, key);
+            node.right = parts[0];
+            update(node);
+            parts[0] = node;
+            return parts;
+        }
+        Node<K>[] parts = split(node.left, key);
+        node.left = parts[1];
+        update(node);
+        parts[1] = node;
+        return parts;
+    }
+
+    private Node<K> merge(Node<K> left, Node<K> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.weight > right.weight) {
+            left.right = merge(left.right, right);
+            update(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        update(right);
+        return right;
+    }
+}
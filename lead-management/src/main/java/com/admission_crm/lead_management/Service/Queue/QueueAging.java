@@ -0,0 +1,41 @@
+package com.admission_crm.lead_management.Service.Queue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Aging of queued leads without rewriting them. A lead gains {@link #POINTS_PER_HOUR} for every hour
+ * it waits, so at time t its effective score is {@code base + rate * (t - createdAt)}. Between two
+ * leads that comparison comes out the same as comparing {@code base - rate * createdAt}, which does
+ * not depend on t. That value is the queue sort score: stored once in lead_queue and kept by the
+ * in-memory queue, it gives the aged order at any time without rescoring a row.
+ */
+public final class QueueAging {
+
+    // 12 points after a day and 36 after three. The former step bonus added 15 after a day and
+    // another 25 after three days, 40 in total
+    public static final double POINTS_PER_HOUR = 0.5;
+
+    // Same value as sortScore for a score and a created_at column, for SQL writing lead_queue rows
+    public static final String SORT_SCORE_SQL =
+            "(%s) - " + POINTS_PER_HOUR + " * TIMESTAMPDIFF(SECOND, '1970-01-01 00:00:00', %s) / 3600";
+
+    private QueueAging() {
+    }
+
+    public static double sortScore(double baseScore, LocalDateTime createdAt) {
+        return baseScore - POINTS_PER_HOUR * createdAt.toEpochSecond(ZoneOffset.UTC) / 3600.0;
+    }
+
+    /**
+     * Score including the age bonus at the given time, for display
+     */
+    public static double effectiveScore(double baseScore, LocalDateTime createdAt, LocalDateTime now) {
+        if (createdAt == null) {
+            return baseScore;
+        }
+        long waitedSeconds = Math.max(0, Duration.between(createdAt, now).toSeconds());
+        return baseScore + POINTS_PER_HOUR * waitedSeconds / 3600.0;
+    }
+}
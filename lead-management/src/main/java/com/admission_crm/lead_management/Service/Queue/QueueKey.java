@@ -0,0 +1,88 @@
+package com.admission_crm.lead_management.Service.Queue;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.Lead;
+import com.admission_crm.lead_management.Entity.LeadManagement.QueueEntry;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Comparator;
+
+/**
+ * Sort key of a queued lead. Orders exactly like
+ * {@code LeadRepository.findQueuedLeadsByPriority}: priority DESC, score DESC, createdAt ASC,
+ * sequence ASC, with the lead id as a final tie-breaker so that every key is unique. The score is
+ * the aged sort score of {@link QueueAging}, not the lead score itself. The sequence is 0 except for
+ * manually moved leads, which share their neighbour's other fields and are placed by it alone.
+ */
+public record QueueKey(String leadId, int priority, double score, LocalDateTime createdAt, long sequence)
+        implements Comparable<QueueKey> {
+
+    // Sequence distance to a neighbour, leaves room to halve it 32 times for moves into the same slot
+    static final long SEQUENCE_STEP = 1L << 32;
+
+    public static final Comparator<QueueKey> ORDER = Comparator
+            .comparingInt(QueueKey::priority).reversed()
+            .thenComparing(Comparator.comparingDouble(QueueKey::score).reversed())
+            .thenComparing(QueueKey::createdAt)
+            .thenComparingLong(QueueKey::sequence)
+            .thenComparing(QueueKey::leadId);
+
+    public static QueueKey of(Lead lead) {
+        int priority = lead.getPriority() != null ? lead.getPriority().getValue() : Lead.LeadPriority.LOW.getValue();
+        double baseScore = lead.getLeadScore() != null ? lead.getLeadScore() : 0.0;
+        // At the precision of lead_queue.created_at, so a re-hydrated key equals the one in memory
+        LocalDateTime createdAt = (lead.getCreatedAt() != null ? lead.getCreatedAt() : LocalDateTime.now())
+                .truncatedTo(ChronoUnit.MICROS);
+        return new QueueKey(lead.getId(), priority, QueueAging.sortScore(baseScore, createdAt), createdAt, 0);
+    }
+
+    public static QueueKey of(QueueEntry entry) {
+        return new QueueKey(entry.getLeadId(), entry.getPriority(), entry.getScore(), entry.getCreatedAt(),
+                entry.getSortSequence() != null ? entry.getSortSequence() : 0);
+    }
+
+    public QueueEntry toEntry(String institutionId) {
+        QueueEntry entry = new QueueEntry();
+        entry.setLeadId(leadId);
+        entry.setInstitutionId(institutionId);
+        entry.setPriority(priority);
+        entry.setScore(score);
+        entry.setCreatedAt(createdAt);
+        entry.setSortSequence(sequence);
+        return entry;
+    }
+
+    /**
+     * Key that sorts immediately before {@code next} and after {@code previous} (null at the head),
+     * used for manual queue moves. Null when the sequences of the two have no room left between
+     * them, the caller then respaces them first.
+     */
+    public static QueueKey placedBetween(String leadId, QueueKey previous, QueueKey next) {
+        if (previous == null || !sameSlot(previous, next)) {
+            return next.withSequence(leadId, next.sequence() - SEQUENCE_STEP);
+        }
+        long gap = next.sequence() - previous.sequence();
+        return gap > 1 ? next.withSequence(leadId, previous.sequence() + gap / 2) : null;
+    }
+
+    /**
+     * Key that sorts immediately after {@code previous}, used for manual queue moves to the tail.
+     */
+    public static QueueKey placedAfter(String leadId, QueueKey previous) {
+        return previous.withSequence(leadId, previous.sequence() + SEQUENCE_STEP);
+    }
+
+    // Equal in everything but the sequence and the lead id
+    static boolean sameSlot(QueueKey a, QueueKey b) {
+        return a.priority() == b.priority() && a.score() == b.score() && a.createdAt().equals(b.createdAt());
+    }
+
+    QueueKey withSequence(String leadId, long sequence) {
+        return new QueueKey(leadId, priority, score, createdAt, sequence);
+    }
+
+    @Override
+    public int compareTo(QueueKey other) {
+        return ORDER.compare(this, other);
+    }
+}
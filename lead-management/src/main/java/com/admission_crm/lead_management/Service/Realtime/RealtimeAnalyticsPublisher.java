@@ -0,0 +1,200 @@
+package com.admission_crm.lead_management.Service.Realtime;
+
+import com.admission_crm.lead_management.Payload.LeadStatusSnapshot;
+import com.admission_crm.lead_management.Service.Capacity.CounselorCapacityTracker;
+import com.admission_crm.lead_management.Service.Counter.LeadCounterService;
+import com.admission_crm.lead_management.Service.Event.LeadChangedEvent;
+import com.admission_crm.lead_management.Service.Queue.LeadQueueEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pushes realtime dashboard changes to /topic/institutions/{id}/realtime instead of letting every
+ * dashboard poll for them.
+ * <p>
+ * Committed lead changes only mark their institution dirty. Every coalescing window the state of
+ * each dirty institution that has subscribers is recomputed once, from the lead counters, the
+ * in-memory queue and the capacity tracker, and only the fields that changed are published as one
+ * delta with an increasing sequence number. Clients first subscribe to
+ * /app/institutions/{id}/realtime for a snapshot carrying the current sequence, then apply deltas
+ * from the topic. Deltas carry absolute values, so a delta older than the snapshot is harmless.
+ */
+@Component
+@Slf4j
+public class RealtimeAnalyticsPublisher {
+
+    private static final Pattern REALTIME_TOPIC = Pattern.compile("^/topic/institutions/([^/]+)/realtime$");
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final LeadCounterService counterService;
+    private final LeadQueueEngine queueEngine;
+    private final CounselorCapacityTracker capacityTracker;
+    private final Counter deltaCounter;
+
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Map<String, RealtimeState> published = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> sequences = new ConcurrentHashMap<>();
+
+    // Subscribers per institution, and the topic subscriptions of each session to undo on disconnect
+    private final Map<String, Integer> subscriberCounts = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, String>> sessionSubscriptions = new ConcurrentHashMap<>();
+
+    public RealtimeAnalyticsPublisher(SimpMessagingTemplate messagingTemplate,
+                                      LeadCounterService counterService,
+                                      LeadQueueEngine queueEngine,
+                                      CounselorCapacityTracker capacityTracker,
+                                      MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.counterService = counterService;
+        this.queueEngine = queueEngine;
+        this.capacityTracker = capacityTracker;
+        this.deltaCounter = meterRegistry.counter("realtime.analytics.deltas.published");
+    }
+
+    public static String topicOf(String institutionId) {
+        return "/topic/institutions/" + institutionId + "/realtime";
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLeadChanged(LeadChangedEvent event) {
+        if (event.institutionId() != null) {
+            dirty.add(event.institutionId());
+        }
+    }
+
+    /**
+     * Full current state for a new subscriber
+     */
+    public Map<String, Object> snapshot(String institutionId) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", "snapshot");
+        payload.put("institutionId", institutionId);
+        payload.put("sequence", sequenceOf(institutionId).get());
+        payload.putAll(computeState(institutionId).toSnapshot());
+        payload.put("timestamp", LocalDateTime.now().toString());
+        return payload;
+    }
+
+    /**
+     * Publish one delta per changed institution for everything that happened in the last window
+     */
+    @Scheduled(fixedDelayString = "${realtime.analytics.coalesce-window-ms:1000}")
+    public void publishChanges() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+
+        List<String> institutionIds = new ArrayList<>(dirty);
+        dirty.removeAll(institutionIds);
+
+        for (String institutionId : institutionIds) {
+            if (subscriberCounts.getOrDefault(institutionId, 0) == 0) {
+                // Nobody is watching, the next subscriber gets a fresh snapshot anyway
+                published.remove(institutionId);
+                continue;
+            }
+            try {
+                publish(institutionId);
+            } catch (Exception e) {
+                log.error("Failed to publish realtime analytics of institution {}: ", institutionId, e);
+            }
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String institutionId = institutionOf(accessor.getDestination());
+        if (institutionId == null || accessor.getSessionId() == null || accessor.getSubscriptionId() == null) {
+            return;
+        }
+        sessionSubscriptions.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+                .put(accessor.getSubscriptionId(), institutionId);
+        subscriberCounts.merge(institutionId, 1, Integer::sum);
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessionSubscriptions.get(accessor.getSessionId());
+        if (subscriptions != null && accessor.getSubscriptionId() != null) {
+            release(subscriptions.remove(accessor.getSubscriptionId()));
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = sessionSubscriptions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            subscriptions.values().forEach(this::release);
+        }
+    }
+
+    private void publish(String institutionId) {
+        RealtimeState current = computeState(institutionId);
+        RealtimeState previous = published.put(institutionId, current);
+
+        Map<String, Object> changes = previous != null ? current.deltaFrom(previous) : current.toSnapshot();
+        if (changes.isEmpty()) {
+            return;
+        }
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("type", "delta");
+        payload.put("institutionId", institutionId);
+        payload.put("sequence", sequenceOf(institutionId).incrementAndGet());
+        payload.putAll(changes);
+        payload.put("timestamp", LocalDateTime.now().toString());
+
+        messagingTemplate.convertAndSend(topicOf(institutionId), payload);
+        deltaCounter.increment();
+    }
+
+    private RealtimeState computeState(String institutionId) {
+        LeadStatusSnapshot snapshot = counterService.getSnapshot(institutionId);
+        Map<String, Long> statusCounts = new LinkedHashMap<>();
+        snapshot.getCounts().forEach((status, count) -> statusCounts.put(status.name(), count));
+
+        return new RealtimeState(
+                statusCounts,
+                queueEngine.queueFor(institutionId).size(),
+                capacityTracker.availableCounselors(institutionId).size(),
+                capacityTracker.counselorsOf(institutionId).size()
+        );
+    }
+
+    private AtomicLong sequenceOf(String institutionId) {
+        return sequences.computeIfAbsent(institutionId, id -> new AtomicLong());
+    }
+
+    private void release(String institutionId) {
+        if (institutionId != null) {
+            subscriberCounts.computeIfPresent(institutionId, (id, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    private static String institutionOf(String destination) {
+        if (destination == null) {
+            return null;
+        }
+        Matcher matcher = REALTIME_TOPIC.matcher(destination);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+}
@@ -0,0 +1,53 @@
+package com.admission_crm.lead_management.Service.Realtime;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * What the realtime dashboard of an institution shows: lead counts per status, queue size and
+ * counselor availability
+ */
+record RealtimeState(Map<String, Long> statusCounts, int queueSize, int availableCounselors, int totalCounselors) {
+
+    Map<String, Object> toSnapshot() {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("statusCounts", statusCounts);
+        payload.put("queueSize", queueSize);
+        payload.put("availableCounselors", availableCounselors);
+        payload.put("totalCounselors", totalCounselors);
+        return payload;
+    }
+
+    /**
+     * Fields that differ from the previous state, with their new values. Status counts that
+     * dropped to zero are sent as 0.
+     */
+    Map<String, Object> deltaFrom(RealtimeState previous) {
+        Map<String, Object> delta = new LinkedHashMap<>();
+
+        Map<String, Long> changedCounts = new LinkedHashMap<>();
+        statusCounts.forEach((status, count) -> {
+            if (!Objects.equals(previous.statusCounts.get(status), count)) {
+                changedCounts.put(status, count);
+            }
+        });
+        previous.statusCounts.keySet().stream()
+                .filter(status -> !statusCounts.containsKey(status))
+                .forEach(status -> changedCounts.put(status, 0L));
+        if (!changedCounts.isEmpty()) {
+            delta.put("statusCounts", changedCounts);
+        }
+
+        if (queueSize != previous.queueSize) {
+            delta.put("queueSize", queueSize);
+        }
+        if (availableCounselors != previous.availableCounselors) {
+            delta.put("availableCounselors", availableCounselors);
+        }
+        if (totalCounselors != previous.totalCounselors) {
+            delta.put("totalCounselors", totalCounselors);
+        }
+        return delta;
+    }
+}
@@ -0,0 +1,34 @@
+package com.admission_crm.lead_management.Service.Rescoring;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint of the rescoring job: GET /actuator/rescoring shows progress and throughput,
+ * POST /actuator/rescoring starts a run over all leads
+ */
+@Component
+@Endpoint(id = "rescoring")
+@RequiredArgsConstructor
+public class LeadRescoringEndpoint {
+
+    private final LeadRescoringJob rescoringJob;
+
+    @ReadOperation
+    public RescoringProgress progress() {
+        return rescoringJob.progress();
+    }
+
+    // Answers with the run already in progress instead of starting a second one
+    @WriteOperation
+    public RescoringProgress start() {
+        try {
+            return rescoringJob.start();
+        } catch (IllegalStateException e) {
+            return rescoringJob.progress();
+        }
+    }
+}
@@ -0,0 +1,592 @@
+package com.admission_crm.lead_management.Service.Rescoring;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.Lead;
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
+import com.admission_crm.lead_management.Service.LeadScoringService;
+import com.admission_crm.lead_management.Service.Queue.LeadQueueEngine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Recomputes leadScore for every lead with the current scoring rules and records the rules version
+ * in lead_scores.
+ * <p>
+ * One reader walks the leads table by primary key in keyset chunks of ids and hands each chunk to a
+ * pool of workers. A worker locks its leads with FOR UPDATE, scores them as they are now and writes
+ * them in the same transaction with batched statements: the lead score, the lead_scores row, and
+ * for queued leads the queue sort score shifted by the change, so manual queue moves survive. The
+ * checkpoint advances over the longest run of written chunks, so after a crash the run resumes from
+ * there and at most the chunks in flight are written twice.
+ * <p>
+ * A run starts on startup when the rules version has no completed run yet, or on demand through
+ * the rescoring actuator endpoint. A unique slot admits one running run across all instances. The
+ * owning instance sends a heartbeat independent of the chunks; a run whose heartbeat stopped is
+ * claimed by another instance, and the former owner's workers can no longer commit. A chunk that
+ * loses a deadlock or a lock wait against live traffic is retried a few times before the run fails.
+ * <p>
+ * The upserts need the unique key on lead_scores.lead_id. Older tables may hold several rows per
+ * lead, on which Hibernate cannot add the key, so before the first run the newest row of each lead
+ * is kept and the key is added here.
+ */
+@Component
+@Slf4j
+public class LeadRescoringJob {
+
+    private static final String CHUNK_IDS = "SELECT id FROM leads WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final String LOCK_CHUNK =
+            "SELECT id, institution_id, lead_source, priority, budget_range, qualification, status, lead_score " +
+            "FROM leads WHERE id IN (%s) FOR UPDATE";
+
+    private static final String UPDATE_LEAD_SCORE = "UPDATE leads SET lead_score = ? WHERE id = ?";
+
+    private static final String UPSERT_SCORE =
+            "INSERT INTO lead_scores (id, lead_id, total_score, last_calculated, calculation_version, created_at, updated_at) " +
+            "VALUES (UUID(), ?, ?, ?, ?, NOW(), NOW()) " +
+            "ON DUPLICATE KEY UPDATE total_score = VALUES(total_score), last_calculated = VALUES(last_calculated), " +
+            "calculation_version = VALUES(calculation_version), updated_at = NOW()";
+
+    private static final String SCORE_KEY_EXISTS =
+            "SELECT COUNT(*) FROM information_schema.statistics WHERE table_schema = DATABASE() " +
+            "AND table_name = 'lead_scores' AND index_name = 'uk_lead_scores_lead'";
+
+    // Keeps the most recently updated row of each lead
+    private static final String DELETE_DUPLICATE_SCORES =
+            "DELETE older FROM lead_scores older JOIN lead_scores newer ON newer.lead_id = older.lead_id " +
+            "AND (COALESCE(newer.updated_at, newer.created_at, '1970-01-01') > COALESCE(older.updated_at, older.created_at, '1970-01-01') " +
+            "OR (COALESCE(newer.updated_at, newer.created_at, '1970-01-01') = COALESCE(older.updated_at, older.created_at, '1970-01-01') " +
+            "AND newer.id > older.id))";
+
+    private static final String ADD_SCORE_KEY =
+            "ALTER TABLE lead_scores ADD CONSTRAINT uk_lead_scores_lead UNIQUE (lead_id)";
+
+    private static final String SHIFT_QUEUE_SCORE = "UPDATE lead_queue SET score = score + ? WHERE lead_id = ?";
+
+    // Fails on uk_rescoring_runs_running while another run is RUNNING
+    private static final String INSERT_RUN =
+            "INSERT INTO lead_rescoring_runs (calculation_version, status, checkpoint_lead_id, processed_leads, total_leads, " +
+            "started_at, updated_at, owner, running_slot) VALUES (?, 'RUNNING', '', 0, ?, ?, ?, ?, 1)";
+
+    private static final String SAVE_CHECKPOINT =
+            "UPDATE lead_rescoring_runs SET checkpoint_lead_id = ?, processed_leads = ? WHERE id = ? AND owner = ?";
+
+    private static final String HEARTBEAT =
+            "UPDATE lead_rescoring_runs SET updated_at = NOW() WHERE id = ? AND owner = ? AND status = 'RUNNING'";
+
+    // Checked last in every chunk transaction; the shared lock makes a claim wait for chunks in flight
+    private static final String OWNER_OF_RUN = "SELECT owner FROM lead_rescoring_runs WHERE id = ? FOR SHARE";
+
+    private static final String FINISH_RUN =
+            "UPDATE lead_rescoring_runs SET status = ?, error = ?, running_slot = NULL, finished_at = NOW(), updated_at = NOW() " +
+            "WHERE id = ? AND owner = ?";
+
+    private static final String RUN_COLUMNS =
+            "SELECT id, calculation_version, status, checkpoint_lead_id, processed_leads, total_leads, started_at, finished_at, error " +
+            "FROM lead_rescoring_runs ";
+
+    // Only one instance wins the claim of a stalled run
+    private static final String CLAIM_RUN =
+            "UPDATE lead_rescoring_runs SET owner = ?, running_slot = 1, updated_at = NOW() " +
+            "WHERE id = ? AND status = 'RUNNING' AND updated_at < NOW() - INTERVAL ? SECOND";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LeadScoringService scoringService;
+    private final LeadQueueEngine queueEngine;
+    private final Counter rescoredCounter;
+    private final int chunkSize;
+    private final int parallelism;
+    private final int chunkAttempts;
+    private final long staleAfterMs;
+    private final boolean runOnVersionChange;
+
+    private final String instanceId = UUID.randomUUID().toString();
+    private final ExecutorService runner = Executors.newSingleThreadExecutor(task -> new Thread(task, "lead-rescoring"));
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "lead-rescoring-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicReference<ActiveRun> active = new AtomicReference<>();
+    private volatile boolean scoreKeyPresent;
+
+    public LeadRescoringJob(JdbcTemplate jdbcTemplate,
+                            TransactionTemplate transactionTemplate,
+                            LeadScoringService scoringService,
+                            LeadQueueEngine queueEngine,
+                            MeterRegistry meterRegistry,
+                            @Value("${lead.rescoring.chunk-size:1000}") int chunkSize,
+                            @Value("${lead.rescoring.parallelism:0}") int parallelism,
+                            @Value("${lead.rescoring.chunk-attempts:3}") int chunkAttempts,
+                            @Value("${lead.rescoring.stale-after-ms:120000}") long staleAfterMs,
+                            @Value("${lead.rescoring.run-on-version-change:true}") boolean runOnVersionChange) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.scoringService = scoringService;
+        this.queueEngine = queueEngine;
+        this.rescoredCounter = meterRegistry.counter("lead.rescoring.leads");
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.chunkAttempts = Math.max(1, chunkAttempts);
+        this.staleAfterMs = staleAfterMs;
+        this.runOnVersionChange = runOnVersionChange;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startIfRulesChanged() {
+        resumeStalled();
+        if (!runOnVersionChange || active.get() != null) {
+            return;
+        }
+        Integer completed = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM lead_rescoring_runs WHERE status = 'COMPLETED' AND calculation_version = ?",
+                Integer.class, LeadScoringService.CALCULATION_VERSION);
+        Integer leads = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (SELECT 1 FROM leads LIMIT 1) l", Integer.class);
+        if ((completed == null || completed == 0) && leads != null && leads > 0) {
+            try {
+                start();
+                log.info("Scoring rules version {} has not been applied yet, rescoring all leads",
+                        LeadScoringService.CALCULATION_VERSION);
+            } catch (IllegalStateException e) {
+                log.info("Rescoring for version {} not started: {}", LeadScoringService.CALCULATION_VERSION, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Resume a run whose instance stopped sending heartbeats, after a crash or shutdown
+     */
+    @Scheduled(initialDelayString = "${lead.rescoring.stale-after-ms:120000}",
+            fixedDelayString = "${lead.rescoring.stale-after-ms:120000}")
+    public synchronized void resumeStalled() {
+        if (active.get() != null || !ensureScoreKey()) {
+            return;
+        }
+        // Compared on the database clock, which also writes the heartbeats
+        long staleSeconds = Math.max(1, staleAfterMs / 1000);
+        List<RunRow> stalled = jdbcTemplate.query(
+                RUN_COLUMNS + "WHERE status = 'RUNNING' AND updated_at < NOW() - INTERVAL ? SECOND ORDER BY id",
+                this::runRow, staleSeconds);
+        for (RunRow run : stalled) {
+            int claimed;
+            try {
+                claimed = jdbcTemplate.update(CLAIM_RUN, instanceId, run.id(), staleSeconds);
+            } catch (DuplicateKeyException e) {
+                // Another run holds the running slot
+                continue;
+            }
+            if (claimed == 1) {
+                log.info("Resuming rescoring run {} after lead {}", run.id(), run.checkpointLeadId());
+                launch(new ActiveRun(run.id(), run.calculationVersion(), run.checkpointLeadId(),
+                        run.processedLeads(), run.totalLeads(), run.startedAt()));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Start rescoring all leads with the current rules
+     */
+    public synchronized RescoringProgress start() {
+        if (active.get() != null) {
+            throw new IllegalStateException("A rescoring run is already in progress");
+        }
+        if (!ensureScoreKey()) {
+            throw new IllegalStateException("lead_scores has no unique key on lead_id");
+        }
+
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM leads", Long.class);
+        LocalDateTime now = LocalDateTime.now();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(INSERT_RUN, Statement.RETURN_GENERATED_KEYS);
+                statement.setString(1, LeadScoringService.CALCULATION_VERSION);
+                statement.setObject(2, total);
+                statement.setTimestamp(3, Timestamp.valueOf(now));
+                statement.setTimestamp(4, Timestamp.valueOf(now));
+                statement.setString(5, instanceId);
+                return statement;
+            }, keyHolder);
+        } catch (DuplicateKeyException e) {
+            throw new IllegalStateException("A rescoring run is already in progress");
+        }
+
+        ActiveRun run = new ActiveRun(keyHolder.getKey().longValue(), LeadScoringService.CALCULATION_VERSION, "",
+                0, total, now);
+        launch(run);
+        return run.progress();
+    }
+
+    public RescoringProgress progress() {
+        ActiveRun run = active.get();
+        if (run != null) {
+            return run.progress();
+        }
+        return jdbcTemplate.query(RUN_COLUMNS + "ORDER BY id DESC LIMIT 1", this::runRow).stream()
+                .findFirst()
+                .map(RunRow::progress)
+                .orElse(RescoringProgress.NEVER_RUN);
+    }
+
+    private boolean ensureScoreKey() {
+        if (scoreKeyPresent) {
+            return true;
+        }
+        try {
+            if (!scoreKeyExists()) {
+                int removed = jdbcTemplate.update(DELETE_DUPLICATE_SCORES);
+                if (removed > 0) {
+                    log.info("Removed {} duplicate lead_scores rows before adding uk_lead_scores_lead", removed);
+                }
+                jdbcTemplate.execute(ADD_SCORE_KEY);
+            }
+            scoreKeyPresent = true;
+        } catch (DataAccessException e) {
+            // Another instance may have added the key at the same time
+            scoreKeyPresent = scoreKeyExists();
+            if (!scoreKeyPresent) {
+                log.error("Could not add uk_lead_scores_lead, rescoring is disabled: {}", e.getMessage());
+            }
+        }
+        return scoreKeyPresent;
+    }
+
+    private boolean scoreKeyExists() {
+        Integer indexes = jdbcTemplate.queryForObject(SCORE_KEY_EXISTS, Integer.class);
+        return indexes != null && indexes > 0;
+    }
+
+    // The run stays RUNNING with its checkpoint and is resumed by the next instance to start
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+        heartbeats.shutdownNow();
+    }
+
+    private void launch(ActiveRun run) {
+        active.set(run);
+        long interval = Math.max(1, staleAfterMs / 4);
+        run.heartbeat = heartbeats.scheduleWithFixedDelay(() -> beat(run), interval, interval, TimeUnit.MILLISECONDS);
+        runner.execute(() -> execute(run));
+    }
+
+    // Keeps the run claimed even while a chunk waits on locks, and notices when another instance took it over
+    private void beat(ActiveRun run) {
+        try {
+            if (jdbcTemplate.update(HEARTBEAT, run.runId, instanceId) == 0) {
+                run.lostOwnership();
+            }
+        } catch (Exception e) {
+            log.warn("Rescoring run {} heartbeat failed: {}", run.runId, e.getMessage());
+        }
+    }
+
+    private void execute(ActiveRun run) {
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism);
+        int maxInFlight = parallelism * 2;
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        boolean interrupted = false;
+        try {
+            String after = run.checkpointLeadId;
+            long sequence = 0;
+            while (run.failure == null && !run.lost) {
+                List<String> ids = jdbcTemplate.queryForList(CHUNK_IDS, String.class, after, chunkSize);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                after = ids.get(ids.size() - 1);
+
+                long chunk = sequence++;
+                String lastId = after;
+                inFlight.acquire();
+                workers.execute(() -> {
+                    try {
+                        writeChunk(ids, run);
+                        run.written(chunk, lastId, ids.size());
+                    } catch (Exception e) {
+                        run.failure = e;
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+            inFlight.acquire(maxInFlight);
+
+            if (run.lost) {
+                log.warn("Rescoring run {} was taken over by another instance, stopping here", run.runId);
+            } else if (run.failure != null) {
+                log.error("Rescoring run {} failed after lead {}: ", run.runId, run.checkpointLeadId, run.failure);
+                finish(run, "FAILED", String.valueOf(run.failure.getMessage()));
+            } else {
+                finish(run, "COMPLETED", null);
+                log.info("Rescoring run {} completed: {} leads with rules version {} at {} leads/s",
+                        run.runId, run.processed.get(), run.calculationVersion, String.format("%.0f", run.leadsPerSecond()));
+            }
+        } catch (InterruptedException e) {
+            interrupted = true;
+            Thread.currentThread().interrupt();
+            log.info("Rescoring run {} interrupted at lead {}, it will be resumed", run.runId, run.checkpointLeadId);
+        } catch (Exception e) {
+            log.error("Rescoring run {} failed: ", run.runId, e);
+            finish(run, "FAILED", String.valueOf(e.getMessage()));
+        } finally {
+            run.heartbeat.cancel(false);
+            if (interrupted) {
+                workers.shutdownNow();
+            } else {
+                workers.shutdown();
+            }
+            // Queues hydrated before the run hold the old sort scores
+            run.queuedInstitutions.forEach(queueEngine::evict);
+            active.set(null);
+        }
+    }
+
+    // A deadlock or lock wait timeout rolls the whole chunk back, so it can simply run again
+    private void writeChunk(List<String> ids, ActiveRun run) throws InterruptedException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(ids, run));
+                return;
+            } catch (TransientDataAccessException e) {
+                if (attempt >= chunkAttempts || run.lost) {
+                    throw e;
+                }
+                log.warn("Rescoring chunk from lead {} hit {}, retrying ({}/{})",
+                        ids.get(0), e.getClass().getSimpleName(), attempt, chunkAttempts);
+                Thread.sleep(100L * attempt);
+            }
+        }
+    }
+
+    // Runs inside the chunk transaction. The leads are read again under lock, so a change committed
+    // since the chunk ids were read is scored as it is now and cannot be overwritten
+    private void write(List<String> ids, ActiveRun run) {
+        List<LeadRow> rows = jdbcTemplate.query(
+                String.format(LOCK_CHUNK, String.join(", ", Collections.nCopies(ids.size(), "?"))),
+                this::leadRow, ids.toArray());
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> leadUpdates = new ArrayList<>(rows.size());
+        List<Object[]> scoreUpserts = new ArrayList<>(rows.size());
+        List<Object[]> queueShifts = new ArrayList<>();
+
+        for (LeadRow row : rows) {
+            double score = scoringService.calculateLeadScore(row.toLead());
+            scoreUpserts.add(new Object[]{row.id(), (int) Math.round(score), now, run.calculationVersion});
+
+            double previous = row.leadScore() != null ? row.leadScore() : 0.0;
+            if (row.leadScore() == null || score != previous) {
+                leadUpdates.add(new Object[]{score, row.id()});
+                if (row.status() == LeadStatus.QUEUED) {
+                    queueShifts.add(new Object[]{score - previous, row.id()});
+                    run.queuedInstitutions.add(row.institutionId());
+                }
+            }
+        }
+
+        if (!leadUpdates.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_LEAD_SCORE, leadUpdates);
+        }
+        if (!scoreUpserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPSERT_SCORE, scoreUpserts);
+        }
+        if (!queueShifts.isEmpty()) {
+            jdbcTemplate.batchUpdate(SHIFT_QUEUE_SCORE, queueShifts);
+        }
+
+        // Rolls the chunk back if another instance claimed the run meanwhile
+        String owner = jdbcTemplate.queryForObject(OWNER_OF_RUN, String.class, run.runId);
+        if (!instanceId.equals(owner)) {
+            run.lostOwnership();
+            throw new IllegalStateException("Rescoring run " + run.runId + " is owned by another instance");
+        }
+    }
+
+    private void finish(ActiveRun run, String status, String error) {
+        run.status = status;
+        run.finishedAt = LocalDateTime.now();
+        jdbcTemplate.update(FINISH_RUN, status, error != null && error.length() > 500 ? error.substring(0, 500) : error,
+                run.runId, instanceId);
+    }
+
+    private LeadRow leadRow(ResultSet rs, int rowNum) throws SQLException {
+        double score = rs.getDouble(8);
+        return new LeadRow(
+                rs.getString(1),
+                rs.getString(2),
+                enumValue(Lead.LeadSource.class, rs.getString(3)),
+                enumValue(Lead.LeadPriority.class, rs.getString(4)),
+                rs.getString(5),
+                rs.getString(6),
+                enumValue(LeadStatus.class, rs.getString(7)),
+                rs.wasNull() ? null : score
+        );
+    }
+
+    private RunRow runRow(ResultSet rs, int rowNum) throws SQLException {
+        Timestamp finishedAt = rs.getTimestamp(8);
+        long total = rs.getLong(6);
+        return new RunRow(
+                rs.getLong(1),
+                rs.getString(2),
+                rs.getString(3),
+                rs.getString(4),
+                rs.getLong(5),
+                rs.wasNull() ? null : total,
+                rs.getTimestamp(7).toLocalDateTime(),
+                finishedAt != null ? finishedAt.toLocalDateTime() : null,
+                rs.getString(9)
+        );
+    }
+
+    private static <E extends Enum<E>> E enumValue(Class<E> type, String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Enum.valueOf(type, value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private record LeadRow(String id,
+                           String institutionId,
+                           Lead.LeadSource leadSource,
+                           Lead.LeadPriority priority,
+                           String budgetRange,
+                           String qualification,
+                           LeadStatus status,
+                           Double leadScore) {
+
+        // Only the fields the scoring rules read
+        Lead toLead() {
+            Lead lead = new Lead();
+            lead.setId(id);
+            lead.setLeadSource(leadSource);
+            lead.setPriority(priority != null ? priority : Lead.LeadPriority.LOW);
+            lead.setBudgetRange(budgetRange);
+            lead.setQualification(qualification);
+            return lead;
+        }
+    }
+
+    private record RunRow(long id,
+                          String calculationVersion,
+                          String status,
+                          String checkpointLeadId,
+                          long processedLeads,
+                          Long totalLeads,
+                          LocalDateTime startedAt,
+                          LocalDateTime finishedAt,
+                          String error) {
+
+        RescoringProgress progress() {
+            return new RescoringProgress(id, calculationVersion, status, processedLeads, totalLeads,
+                    checkpointLeadId, startedAt, finishedAt, null, null, error);
+        }
+    }
+
+    // A run executing on this instance
+    private final class ActiveRun {
+        private final long runId;
+        private final String calculationVersion;
+        private final Long totalLeads;
+        private final LocalDateTime startedAt;
+        private final long resumedAtNanos = System.nanoTime();
+        private final long processedBeforeResume;
+        private final AtomicLong processed;
+        private final Set<String> queuedInstitutions = ConcurrentHashMap.newKeySet();
+        // Written chunks waiting for an earlier one before the checkpoint can pass them
+        private final SortedMap<Long, WrittenChunk> pending = new TreeMap<>();
+        private long nextChunk;
+        private long checkpointedLeads;
+        private volatile String checkpointLeadId;
+        private volatile String status = "RUNNING";
+        private volatile LocalDateTime finishedAt;
+        private volatile Exception failure;
+        private volatile boolean lost;
+        private volatile ScheduledFuture<?> heartbeat;
+
+        ActiveRun(long runId, String calculationVersion, String checkpointLeadId, long processed,
+                  Long totalLeads, LocalDateTime startedAt) {
+            this.runId = runId;
+            this.calculationVersion = calculationVersion;
+            this.checkpointLeadId = checkpointLeadId;
+            this.processedBeforeResume = processed;
+            this.processed = new AtomicLong(processed);
+            this.checkpointedLeads = processed;
+            this.totalLeads = totalLeads;
+            this.startedAt = startedAt;
+        }
+
+        void written(long chunk, String lastLeadId, int leads) {
+            processed.addAndGet(leads);
+            rescoredCounter.increment(leads);
+
+            synchronized (this) {
+                pending.put(chunk, new WrittenChunk(lastLeadId, leads));
+                boolean advanced = false;
+                WrittenChunk next;
+                while ((next = pending.remove(nextChunk)) != null) {
+                    checkpointLeadId = next.lastLeadId();
+                    checkpointedLeads += next.leads();
+                    nextChunk++;
+                    advanced = true;
+                }
+                if (advanced) {
+                    jdbcTemplate.update(SAVE_CHECKPOINT, checkpointLeadId, checkpointedLeads, runId, instanceId);
+                }
+            }
+        }
+
+        void lostOwnership() {
+            lost = true;
+        }
+
+        double leadsPerSecond() {
+            double seconds = (System.nanoTime() - resumedAtNanos) / 1e9;
+            return seconds > 0 ? (processed.get() - processedBeforeResume) / seconds : 0.0;
+        }
+
+        RescoringProgress progress() {
+            double rate = leadsPerSecond();
+            Long remaining = totalLeads != null && rate > 0 && "RUNNING".equals(status)
+                    ? (long) (Math.max(0, totalLeads - processed.get()) / rate)
+                    : null;
+            return new RescoringProgress(runId, calculationVersion, status, processed.get(), totalLeads,
+                    checkpointLeadId, startedAt, finishedAt, rate, remaining,
+                    failure != null ? failure.getMessage() : null);
+        }
+    }
+
+    private record WrittenChunk(String lastLeadId, int leads) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.admission_crm.lead_management.Service.Rescoring;
+
+import java.time.LocalDateTime;
+
+/**
+ * State of the current or latest rescoring run. Throughput and the estimate are only known on the
+ * instance executing the run.
+ */
+public record RescoringProgress(Long runId,
+                                String calculationVersion,
+                                String status,
+                                long processedLeads,
+                                Long totalLeads,
+                                String checkpointLeadId,
+                                LocalDateTime startedAt,
+                                LocalDateTime finishedAt,
+                                Double leadsPerSecond,
+                                Long estimatedSecondsRemaining,
+                                String error) {
+
+    public static final RescoringProgress NEVER_RUN =
+            new RescoringProgress(null, null, "NEVER_RUN", 0, null, null, null, null, null, null, null);
+}
@@ -0,0 +1,103 @@
+package com.admission_crm.lead_management.Service.Rollup;
+
+import com.admission_crm.lead_management.Service.Aggregate.LeadAggregateRecount;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds lead_rollups from the leads table. Runs once on startup when the table is still empty, so
+ * existing leads are covered, and nightly afterwards to repair rows that drifted through changes
+ * made outside the application.
+ */
+@Component
+@Slf4j
+public class LeadRollupBackfill extends LeadAggregateRecount<LeadRollupBackfill.Bucket> {
+
+    private static final String RECOUNT =
+            "SELECT DATE(created_at), HOUR(created_at), lead_source, status, COUNT(*) FROM leads " +
+            "WHERE institution_id = ? AND created_at IS NOT NULL AND status IS NOT NULL " +
+            "GROUP BY DATE(created_at), HOUR(created_at), lead_source, status";
+
+    private static final String UPSERT_ABSOLUTE =
+            "INSERT INTO lead_rollups (rollup_key, institution_id, bucket_day, bucket_hour, source, status, count, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, NOW()) " +
+            "ON DUPLICATE KEY UPDATE count = VALUES(count), updated_at = NOW()";
+
+    private final boolean backfillOnStartup;
+
+    public LeadRollupBackfill(JdbcTemplate jdbcTemplate,
+                              TransactionTemplate transactionTemplate,
+                              @Value("${lead.rollups.backfill-on-startup:true}") boolean backfillOnStartup) {
+        super(jdbcTemplate, transactionTemplate, "lead_rollups", "rollup_key");
+        this.backfillOnStartup = backfillOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (!backfillOnStartup) {
+            return;
+        }
+        Integer rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (SELECT 1 FROM lead_rollups LIMIT 1) r",
+                Integer.class);
+        if (rows == null || rows == 0) {
+            log.info("Lead rollups are empty, backfilling from the leads table");
+            rebuildAll();
+        }
+    }
+
+    @Scheduled(cron = "${lead.rollups.rebuild-cron:0 30 3 * * *}")
+    public void rebuildAll() {
+        List<String> institutionIds = institutionIds();
+
+        long started = System.currentTimeMillis();
+        int changed = recountAll(institutionIds);
+
+        log.info("Lead rollups rebuilt for {} institutions in {} ms, {} rows changed",
+                institutionIds.size(), System.currentTimeMillis() - started, changed);
+    }
+
+    /**
+     * Recount one institution and overwrite every rollup row that differs. Returns the number of changed rows.
+     */
+    public int rebuild(String institutionId) {
+        return recount(institutionId);
+    }
+
+    @Override
+    protected Map<String, Bucket> count(String institutionId) {
+        Map<String, Bucket> actual = new HashMap<>();
+        jdbcTemplate.query(RECOUNT, rs -> {
+            LocalDateTime hour = rs.getDate(1).toLocalDate().atTime(rs.getInt(2), 0);
+            String source = rs.getString(3) != null ? rs.getString(3) : LeadRollupService.UNKNOWN_SOURCE;
+            Bucket bucket = new Bucket(hour, source, rs.getString(4), rs.getLong(5));
+            actual.put(LeadRollupService.rollupKey(institutionId, hour, source, bucket.status), bucket);
+        }, institutionId);
+        return actual;
+    }
+
+    @Override
+    protected void write(String institutionId, String key, Bucket bucket) {
+        jdbcTemplate.update(UPSERT_ABSOLUTE, key, institutionId, Date.valueOf(bucket.hour.toLocalDate()),
+                bucket.hour.getHour(), bucket.source, bucket.status, bucket.count);
+    }
+
+    @Override
+    protected void clear(String key) {
+        jdbcTemplate.update("DELETE FROM lead_rollups WHERE rollup_key = ?", key);
+    }
+
+    record Bucket(LocalDateTime hour, String source, String status, long count) implements Row {
+    }
+}
@@ -0,0 +1,146 @@
+package com.admission_crm.lead_management.Service.Rollup;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.CountedLead;
+import com.admission_crm.lead_management.Entity.LeadManagement.Lead;
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
+import com.admission_crm.lead_management.Service.Aggregate.LeadDeltaAggregate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+/**
+ * Hourly lead rollups in lead_rollups: leads of an institution per creation hour, source and current
+ * status. Lead changes report deltas through the lead entity listener, written right before commit as
+ * described in {@link LeadDeltaAggregate}. Time-based analytics read at most one row per hour of the
+ * requested window instead of every lead in it.
+ */
+@Service
+public class LeadRollupService extends LeadDeltaAggregate<LeadRollupService.RollupKey> {
+
+    // Source bucket of leads without a source
+    public static final String UNKNOWN_SOURCE = "UNKNOWN";
+
+    private static final String UPSERT_DELTA =
+            "INSERT INTO lead_rollups (rollup_key, institution_id, bucket_day, bucket_hour, source, status, count, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, NOW()) " +
+            "ON DUPLICATE KEY UPDATE count = count + VALUES(count), updated_at = NOW()";
+
+    private static final String COUNTS_BY_HOUR =
+            "SELECT bucket_day, bucket_hour, SUM(count) FROM lead_rollups " +
+            "WHERE institution_id = ? AND (bucket_day > ? OR (bucket_day = ? AND bucket_hour >= ?)) " +
+            "GROUP BY bucket_day, bucket_hour ORDER BY bucket_day, bucket_hour";
+
+    private static final String COUNTS_BY_SOURCE_AND_STATUS =
+            "SELECT source, status, SUM(count) FROM lead_rollups " +
+            "WHERE institution_id = ? AND (bucket_day > ? OR (bucket_day = ? AND bucket_hour >= ?)) " +
+            "GROUP BY source, status";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LeadRollupService(JdbcTemplate jdbcTemplate) {
+        super(jdbcTemplate, UPSERT_DELTA);
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Leads created per hour since the hour of {@code from}, in time order. Hours without leads are left out.
+     */
+    public SortedMap<LocalDateTime, Long> countsByHour(String institutionId, LocalDateTime from) {
+        LocalDateTime fromHour = from.truncatedTo(ChronoUnit.HOURS);
+        SortedMap<LocalDateTime, Long> counts = new TreeMap<>();
+        jdbcTemplate.query(COUNTS_BY_HOUR, rs -> {
+            long count = rs.getLong(3);
+            if (count > 0) {
+                counts.put(rs.getDate(1).toLocalDate().atTime(rs.getInt(2), 0), count);
+            }
+        }, institutionId, Date.valueOf(fromHour.toLocalDate()), Date.valueOf(fromHour.toLocalDate()), fromHour.getHour());
+        return counts;
+    }
+
+    /**
+     * Leads created since the hour of {@code from} per source and current status
+     */
+    public Map<String, Map<LeadStatus, Long>> countsBySourceAndStatus(String institutionId, LocalDateTime from) {
+        LocalDateTime fromHour = from.truncatedTo(ChronoUnit.HOURS);
+        Map<String, Map<LeadStatus, Long>> counts = new LinkedHashMap<>();
+        jdbcTemplate.query(COUNTS_BY_SOURCE_AND_STATUS, rs -> {
+            long count = rs.getLong(3);
+            if (count <= 0) {
+                return;
+            }
+            try {
+                counts.computeIfAbsent(rs.getString(1), source -> new EnumMap<>(LeadStatus.class))
+                        .merge(LeadStatus.valueOf(rs.getString(2)), count, Long::sum);
+            } catch (IllegalArgumentException e) {
+                // Status no longer exists, the next backfill drops the row
+            }
+        }, institutionId, Date.valueOf(fromHour.toLocalDate()), Date.valueOf(fromHour.toLocalDate()), fromHour.getHour());
+        return counts;
+    }
+
+    @Override
+    protected boolean moves(CountedLead before, CountedLead after) {
+        return !Objects.equals(before.institutionId(), after.institutionId())
+                || before.status() != after.status()
+                || before.source() != after.source()
+                || !Objects.equals(hourOf(before.createdAt()), hourOf(after.createdAt()));
+    }
+
+    @Override
+    protected void apply(CountedLead lead, long delta) {
+        if (lead.institutionId() == null || lead.createdAt() == null || lead.status() == null) {
+            return;
+        }
+        add(new RollupKey(lead.institutionId(), hourOf(lead.createdAt()), sourceName(lead.source()),
+                lead.status().name()), delta);
+    }
+
+    /**
+     * Status transitions done with bulk JPQL updates, which bypass the entity listener
+     */
+    public void recordStatusChange(String institutionId, LocalDateTime createdAt, Lead.LeadSource source,
+                                   LeadStatus from, LeadStatus to) {
+        if (institutionId == null || createdAt == null || from == to) {
+            return;
+        }
+        add(new RollupKey(institutionId, hourOf(createdAt), sourceName(source), from.name()), -1);
+        add(new RollupKey(institutionId, hourOf(createdAt), sourceName(source), to.name()), 1);
+    }
+
+    static String rollupKey(String institutionId, LocalDateTime hour, String source, String status) {
+        return institutionId + ":" + hour.toLocalDate() + ":" + hour.getHour() + ":" + source + ":" + status;
+    }
+
+    static String sourceName(Lead.LeadSource source) {
+        return source != null ? source.name() : UNKNOWN_SOURCE;
+    }
+
+    private static LocalDateTime hourOf(LocalDateTime createdAt) {
+        return createdAt != null ? createdAt.truncatedTo(ChronoUnit.HOURS) : null;
+    }
+
+    @Override
+    protected String rowKey(RollupKey key) {
+        return rollupKey(key.institutionId(), key.hour(), key.source(), key.status());
+    }
+
+    @Override
+    protected void bind(PreparedStatement ps, RollupKey key, long delta) throws SQLException {
+        ps.setString(1, rowKey(key));
+        ps.setString(2, key.institutionId());
+        ps.setDate(3, Date.valueOf(key.hour().toLocalDate()));
+        ps.setInt(4, key.hour().getHour());
+        ps.setString(5, key.source());
+        ps.setString(6, key.status());
+        ps.setLong(7, delta);
+    }
+
+    record RollupKey(String institutionId, LocalDateTime hour, String source, String status) {
+    }
+}
@@ -0,0 +1,127 @@
+package com.admission_crm.lead_management.Service.Search;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Typeahead terms of one institution's leads. Every term (full name, last name, email, phone digits)
+ * maps to the leads having it, in a sorted map, so a prefix is one range scan. Equal terms share a
+ * single entry and string. Holds at most maxLeads leads; beyond that the earliest indexed are evicted.
+ * Reads are lock free, writes are serialized per institution.
+ */
+class InstitutionSuggestions {
+
+    private final int maxLeads;
+    private final ConcurrentSkipListMap<String, String[]> terms = new ConcurrentSkipListMap<>();
+    private final Map<String, LeadSuggestion> leads = new ConcurrentHashMap<>();
+    // Indexing order, oldest first, drives eviction; only touched by writers
+    private final LinkedHashSet<String> order = new LinkedHashSet<>();
+
+    InstitutionSuggestions(int maxLeads) {
+        this.maxLeads = maxLeads;
+    }
+
+    synchronized void put(LeadSuggestion lead) {
+        LeadSuggestion previous = leads.put(lead.leadId(), lead);
+        if (previous != null) {
+            termsOf(previous).forEach(term -> unlink(term, previous.leadId()));
+        } else {
+            order.add(lead.leadId());
+        }
+        termsOf(lead).forEach(term -> link(term, lead.leadId()));
+
+        while (leads.size() > maxLeads && !order.isEmpty()) {
+            remove(order.iterator().next());
+        }
+    }
+
+    synchronized void remove(String leadId) {
+        order.remove(leadId);
+        LeadSuggestion removed = leads.remove(leadId);
+        if (removed != null) {
+            termsOf(removed).forEach(term -> unlink(term, leadId));
+        }
+    }
+
+    /**
+     * Up to limit leads with a term starting with the prefix, in term order
+     */
+    List<LeadSuggestion> suggest(String prefix, int limit) {
+        ConcurrentNavigableMap<String, String[]> range = terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        Set<String> seen = new LinkedHashSet<>();
+        for (String[] leadIds : range.values()) {
+            for (String leadId : leadIds) {
+                seen.add(leadId);
+                if (seen.size() == limit) {
+                    return resolve(seen);
+                }
+            }
+        }
+        return resolve(seen);
+    }
+
+    int size() {
+        return leads.size();
+    }
+
+    private List<LeadSuggestion> resolve(Set<String> leadIds) {
+        List<LeadSuggestion> suggestions = new ArrayList<>(leadIds.size());
+        for (String leadId : leadIds) {
+            LeadSuggestion lead = leads.get(leadId);
+            if (lead != null) {
+                suggestions.add(lead);
+            }
+        }
+        return suggestions;
+    }
+
+    private void link(String term, String leadId) {
+        terms.compute(term, (key, leadIds) -> {
+            if (leadIds == null) {
+                return new String[]{leadId};
+            }
+            for (String existing : leadIds) {
+                if (existing.equals(leadId)) {
+                    return leadIds;
+                }
+            }
+            String[] grown = Arrays.copyOf(leadIds, leadIds.length + 1);
+            grown[leadIds.length] = leadId;
+            return grown;
+        });
+    }
+
+    private void unlink(String term, String leadId) {
+        terms.computeIfPresent(term, (key, leadIds) -> {
+            String[] remaining = Arrays.stream(leadIds).filter(id -> !id.equals(leadId)).toArray(String[]::new);
+            return remaining.length > 0 ? remaining : null;
+        });
+    }
+
+    static Set<String> termsOf(LeadSuggestion lead) {
+        Set<String> terms = new HashSet<>(6);
+        String firstName = SuggestTerms.normalize(lead.firstName());
+        String lastName = SuggestTerms.normalize(lead.lastName());
+        if (!firstName.isEmpty() || !lastName.isEmpty()) {
+            terms.add((firstName + " " + lastName).trim());
+        }
+        if (!lastName.isEmpty()) {
+            terms.add(lastName);
+        }
+        String email = SuggestTerms.normalize(lead.email());
+        if (!email.isEmpty()) {
+            terms.add(email);
+        }
+        String digits = SuggestTerms.digits(lead.phone());
+        if (!digits.isEmpty()) {
+            terms.add(digits);
+            // Typed without the country code
+            if (digits.length() > SuggestTerms.NATIONAL_NUMBER_LENGTH) {
+                terms.add(digits.substring(digits.length() - SuggestTerms.NATIONAL_NUMBER_LENGTH));
+            }
+        }
+        return terms;
+    }
+}
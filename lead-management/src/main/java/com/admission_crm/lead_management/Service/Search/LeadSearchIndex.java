@@ -0,0 +1,235 @@
+package com.admission_crm.lead_management.Service.Search;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+
+/**
+ * Lead search on a MySQL FULLTEXT index with the ngram parser over first name, last name, email and
+ * phone digits. Every query word becomes a required phrase of ngrams, which matches it anywhere
+ * inside a field like the former LIKE '%term%' did, but is answered from the index and ranked by
+ * relevance. InnoDB maintains the index with every committed lead change.
+ * <p>
+ * The index is created on startup when missing, and can be rebuilt on demand in the background.
+ * While it is missing, or for words shorter than the ngram size, {@link #search} returns null and
+ * callers fall back to the LIKE query.
+ */
+@Component
+@Slf4j
+public class LeadSearchIndex {
+
+    private static final String INDEX_NAME = "ft_leads_search";
+
+    private static final String MATCH = "MATCH(first_name, last_name, email, phone_digits) AGAINST (? IN BOOLEAN MODE)";
+
+    private static final String INDEX_EXISTS =
+            "SELECT COUNT(*) FROM information_schema.statistics " +
+            "WHERE table_schema = DATABASE() AND table_name = 'leads' AND index_name = '" + INDEX_NAME + "'";
+
+    private static final String CREATE_INDEX =
+            "ALTER TABLE leads ADD FULLTEXT INDEX " + INDEX_NAME + " (first_name, last_name, email, phone_digits) WITH PARSER ngram";
+
+    private static final String DROP_INDEX = "ALTER TABLE leads DROP INDEX " + INDEX_NAME;
+
+    private static final String BACKFILL_PHONE_DIGITS =
+            "UPDATE leads SET phone_digits = REGEXP_REPLACE(phone, '[^0-9]', '') " +
+            "WHERE phone_digits IS NULL AND phone IS NOT NULL LIMIT ?";
+
+    // Characters with a meaning in boolean mode split a search term into separate words
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[\\s+\\-<>()~*\"@]+");
+
+    private static final int BACKFILL_BATCH_SIZE = 10_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(task -> new Thread(task, "lead-search-index"));
+
+    private volatile boolean ready;
+    private volatile int ngramSize = 2;
+    private volatile boolean rebuilding;
+    private volatile Long lastRebuildMillis;
+    private volatile String lastRebuildError;
+
+    public LeadSearchIndex(JdbcTemplate jdbcTemplate,
+                           @Value("${lead.search.fulltext-enabled:true}") boolean enabled) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndex() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Integer size = jdbcTemplate.queryForObject("SELECT @@ngram_token_size", Integer.class);
+            if (size != null) {
+                ngramSize = size;
+            }
+            backfillPhoneDigits();
+
+            if (!indexExists()) {
+                log.info("Creating lead search index, leads stay readable but writes wait until it is built");
+                try {
+                    createIndex();
+                } catch (Exception e) {
+                    // Another instance starting at the same time may have created it first
+                    if (!indexExists()) {
+                        throw e;
+                    }
+                }
+            }
+            ready = true;
+        } catch (Exception e) {
+            log.warn("Lead search index unavailable, searching with LIKE: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drop and recreate the index in the background, e.g. after changing the ngram size or stopword
+     * settings. Searches use LIKE until it is back.
+     */
+    public synchronized void startRebuild() {
+        if (rebuilding) {
+            throw new IllegalStateException("The lead search index is already being rebuilt");
+        }
+        rebuilding = true;
+        rebuilder.execute(this::rebuild);
+    }
+
+    public SearchIndexStatus status() {
+        return new SearchIndexStatus(ready, rebuilding, lastRebuildMillis, lastRebuildError);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        rebuilder.shutdownNow();
+    }
+
+    private void rebuild() {
+        long started = System.currentTimeMillis();
+        try {
+            ready = false;
+            if (indexExists()) {
+                jdbcTemplate.execute(DROP_INDEX);
+            }
+            backfillPhoneDigits();
+            createIndex();
+
+            lastRebuildMillis = System.currentTimeMillis() - started;
+            lastRebuildError = null;
+            log.info("Lead search index rebuilt in {} ms", lastRebuildMillis);
+        } catch (Exception e) {
+            lastRebuildError = e.getMessage();
+            log.error("Lead search index rebuild failed, searching with LIKE until it is rebuilt: ", e);
+        } finally {
+            // Whatever state the rebuild left, search uses the index exactly when it exists
+            try {
+                ready = indexExists();
+            } catch (Exception e) {
+                ready = false;
+            }
+            rebuilding = false;
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ranked lead ids matching every word of the search term, or null when the index cannot answer
+     */
+    public LeadSearchResult search(String searchTerm, String institutionId, LeadStatus status, Pageable pageable) {
+        String query = toBooleanQuery(searchTerm);
+        if (!ready || query == null) {
+            return null;
+        }
+
+        StringBuilder filter = new StringBuilder(" FROM leads WHERE ").append(MATCH);
+        List<Object> params = new ArrayList<>();
+        params.add(query);
+        if (institutionId != null) {
+            filter.append(" AND institution_id = ?");
+            params.add(institutionId);
+        }
+        if (status != null) {
+            filter.append(" AND status = ?");
+            params.add(status.name());
+        }
+
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*)" + filter, Long.class, params.toArray());
+        if (total == null || total == 0 || pageable.getOffset() >= total) {
+            return new LeadSearchResult(List.of(), total != null ? total : 0);
+        }
+
+        List<Object> pageParams = new ArrayList<>(params);
+        pageParams.add(query);
+        pageParams.add(pageable.getPageSize());
+        pageParams.add(pageable.getOffset());
+        List<String> ids = jdbcTemplate.queryForList(
+                "SELECT id" + filter + " ORDER BY " + MATCH + " DESC, id LIMIT ? OFFSET ?",
+                String.class, pageParams.toArray());
+        return new LeadSearchResult(ids, total);
+    }
+
+    // +"word" for every word long enough to form an ngram; null when no word is
+    private String toBooleanQuery(String searchTerm) {
+        if (searchTerm == null) {
+            return null;
+        }
+        StringBuilder query = new StringBuilder();
+        for (String word : WORD_SEPARATORS.split(searchTerm.trim().toLowerCase())) {
+            if (word.length() < ngramSize) {
+                continue;
+            }
+            if (!query.isEmpty()) {
+                query.append(' ');
+            }
+            query.append("+\"").append(word).append('"');
+        }
+        return query.isEmpty() ? null : query.toString();
+    }
+
+    private boolean indexExists() {
+        Integer existing = jdbcTemplate.queryForObject(INDEX_EXISTS, Integer.class);
+        return existing != null && existing > 0;
+    }
+
+    private void createIndex() {
+        // Stopwords would drop every ngram containing e.g. "a" or "in" from names, the setting is taken at creation
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET SESSION innodb_ft_enable_stopword = OFF");
+                try {
+                    statement.execute(CREATE_INDEX);
+                } finally {
+                    statement.execute("SET SESSION innodb_ft_enable_stopword = ON");
+                }
+            }
+            return null;
+        });
+    }
+
+    private void backfillPhoneDigits() {
+        int updated;
+        do {
+            updated = jdbcTemplate.update(BACKFILL_PHONE_DIGITS, BACKFILL_BATCH_SIZE);
+        } while (updated == BACKFILL_BATCH_SIZE);
+    }
+}
@@ -0,0 +1,9 @@
+package com.admission_crm.lead_management.Service.Search;
+
+import java.util.List;
+
+/**
+ * One page of lead ids in relevance order, and the number of matching leads
+ */
+public record LeadSearchResult(List<String> leadIds, long total) {
+}
@@ -0,0 +1,181 @@
+package com.admission_crm.lead_management.Service.Search;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.Lead;
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory prefix index behind the lead typeahead, one {@link InstitutionSuggestions} per
+ * institution, so a keystroke costs a range scan of a sorted map instead of a LIKE scan and a count.
+ * <p>
+ * Built from the leads table on startup and nightly, newest leads last so that an institution over
+ * max-leads-per-institution keeps its most recent ones. In between, committed creates, updates and
+ * deletes reported by the lead entity listener are applied as they happen; changes that commit
+ * while a rebuild runs are replayed onto the rebuilt index, in order and before any later change.
+ */
+@Component
+@Slf4j
+public class LeadSuggestIndex {
+
+    private static final String ALL_LEADS =
+            "SELECT id, institution_id, first_name, last_name, email, phone, status FROM leads " +
+            "WHERE institution_id IS NOT NULL ORDER BY created_at, id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int maxLeadsPerInstitution;
+    private final int minPrefixLength;
+    private final int maxLimit;
+
+    private volatile Map<String, InstitutionSuggestions> institutions = new ConcurrentHashMap<>();
+    private volatile Queue<Change> changesDuringRebuild;
+    // Changes apply under the read lock, the swap to a rebuilt index and its replay under the write lock
+    private final ReadWriteLock handoff = new ReentrantReadWriteLock();
+
+    public LeadSuggestIndex(JdbcTemplate jdbcTemplate,
+                            @Value("${lead.suggest.max-leads-per-institution:100000}") int maxLeadsPerInstitution,
+                            @Value("${lead.suggest.min-prefix-length:2}") int minPrefixLength,
+                            @Value("${lead.suggest.max-limit:50}") int maxLimit) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxLeadsPerInstitution = maxLeadsPerInstitution;
+        this.minPrefixLength = minPrefixLength;
+        this.maxLimit = maxLimit;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${lead.suggest.rebuild-cron:0 45 3 * * *}")
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        handoff.writeLock().lock();
+        try {
+            changesDuringRebuild = new ConcurrentLinkedQueue<>();
+        } finally {
+            handoff.writeLock().unlock();
+        }
+
+        Map<String, InstitutionSuggestions> rebuilt = new ConcurrentHashMap<>();
+        int[] indexed = {0};
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(ALL_LEADS);
+            statement.setFetchSize(Integer.MIN_VALUE);
+            return statement;
+        }, rs -> {
+            String status = rs.getString(7);
+            LeadSuggestion lead = new LeadSuggestion(rs.getString(1), rs.getString(2), rs.getString(3),
+                    rs.getString(4), rs.getString(5), rs.getString(6), status != null ? LeadStatus.valueOf(status) : null);
+            rebuilt.computeIfAbsent(lead.institutionId(), id -> newInstitution()).put(lead);
+            indexed[0]++;
+        });
+
+        // Missed changes land before any later one, and none is applied to the old index only
+        handoff.writeLock().lock();
+        try {
+            Queue<Change> missed = changesDuringRebuild;
+            Change change;
+            while ((change = missed.poll()) != null) {
+                applyTo(rebuilt, change);
+            }
+            institutions = rebuilt;
+            changesDuringRebuild = null;
+        } finally {
+            handoff.writeLock().unlock();
+        }
+
+        log.info("Lead suggest index built: {} leads of {} institutions in {} ms",
+                indexed[0], rebuilt.size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Leads of the institution with a name, last name, email or phone starting with the prefix
+     */
+    public List<LeadSuggestion> suggest(String institutionId, String prefix, int limit) {
+        String term = SuggestTerms.prefix(prefix);
+        if (term.length() < minPrefixLength) {
+            return List.of();
+        }
+        InstitutionSuggestions suggestions = institutions.get(institutionId);
+        if (suggestions == null) {
+            return List.of();
+        }
+        return suggestions.suggest(term, Math.min(Math.max(limit, 1), maxLimit));
+    }
+
+    /**
+     * Index a created or updated lead once its transaction commits
+     */
+    public void recordChange(Lead lead) {
+        if (lead.getInstitutionId() == null) {
+            return;
+        }
+        Change change = new Change(LeadSuggestion.of(lead), false);
+        afterCommit(() -> apply(change));
+    }
+
+    public void recordRemoved(Lead lead) {
+        if (lead.getInstitutionId() == null) {
+            return;
+        }
+        Change change = new Change(LeadSuggestion.of(lead), true);
+        afterCommit(() -> apply(change));
+    }
+
+    private void apply(Change change) {
+        handoff.readLock().lock();
+        try {
+            applyTo(institutions, change);
+            Queue<Change> pending = changesDuringRebuild;
+            if (pending != null) {
+                pending.add(change);
+            }
+        } finally {
+            handoff.readLock().unlock();
+        }
+    }
+
+    private void applyTo(Map<String, InstitutionSuggestions> target, Change change) {
+        LeadSuggestion lead = change.lead();
+        if (change.removed()) {
+            InstitutionSuggestions suggestions = target.get(lead.institutionId());
+            if (suggestions != null) {
+                suggestions.remove(lead.leadId());
+            }
+        } else {
+            target.computeIfAbsent(lead.institutionId(), id -> newInstitution()).put(lead);
+        }
+    }
+
+    private InstitutionSuggestions newInstitution() {
+        return new InstitutionSuggestions(maxLeadsPerInstitution);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record Change(LeadSuggestion lead, boolean removed) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.admission_crm.lead_management.Service.Search;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.Lead;
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
+
+/**
+ * What the typeahead shows for a lead, kept in memory by {@link LeadSuggestIndex}
+ */
+public record LeadSuggestion(String leadId,
+                             String institutionId,
+                             String firstName,
+                             String lastName,
+                             String email,
+                             String phone,
+                             LeadStatus status) {
+
+    public static LeadSuggestion of(Lead lead) {
+        return new LeadSuggestion(lead.getId(), lead.getInstitutionId(), lead.getFirstName(), lead.getLastName(),
+                lead.getEmail(), lead.getPhone(), lead.getStatus());
+    }
+}
@@ -0,0 +1,7 @@
+package com.admission_crm.lead_management.Service.Search;
+
+/**
+ * State of the lead search index: whether searches use it, and how the last rebuild went
+ */
+public record SearchIndexStatus(boolean ready, boolean rebuilding, Long lastRebuildMillis, String lastRebuildError) {
+}
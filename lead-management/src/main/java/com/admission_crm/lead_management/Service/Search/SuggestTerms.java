@@ -0,0 +1,50 @@
+package com.admission_crm.lead_management.Service.Search;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalization shared by indexed terms and typed prefixes, so both sides compare equal
+ */
+final class SuggestTerms {
+
+    static final int NATIONAL_NUMBER_LENGTH = 10;
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern PHONE_LIKE = Pattern.compile("[+\\d\\s().-]+");
+
+    private SuggestTerms() {
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        return WHITESPACE.matcher(value.trim().toLowerCase(Locale.ROOT)).replaceAll(" ");
+    }
+
+    static String digits(String value) {
+        if (value == null) {
+            return "";
+        }
+        StringBuilder digits = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    /**
+     * The term a typed prefix is looked up with: digits only when it looks like a phone number
+     */
+    static String prefix(String typed) {
+        String normalized = normalize(typed);
+        if (PHONE_LIKE.matcher(normalized).matches() && !digits(normalized).isEmpty()) {
+            return digits(normalized);
+        }
+        return normalized;
+    }
+}
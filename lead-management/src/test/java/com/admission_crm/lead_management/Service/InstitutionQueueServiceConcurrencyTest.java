@@ -0,0 +1,149 @@
+package com.admission_crm.lead_management.Service;
+
+import com.admission_crm.lead_management.Entity.LeadManagement.Lead;
+import com.admission_crm.lead_management.Entity.LeadManagement.LeadStatus;
+import com.admission_crm.lead_management.Entity.LeadManagement.QueueEntry;
+import com.admission_crm.lead_management.Repository.InstitutionRepository;
+import com.admission_crm.lead_management.Repository.LeadRepository;
+import com.admission_crm.lead_management.Repository.QueueEntryRepository;
+import com.admission_crm.lead_management.Service.Capacity.CounselorCapacityTracker;
+import com.admission_crm.lead_management.Service.Counter.LeadCounterService;
+import com.admission_crm.lead_management.Service.Rollup.LeadRollupService;
+import com.admission_crm.lead_management.Service.Queue.LeadQueueEngine;
+import com.admission_crm.lead_management.Service.Queue.QueueKey;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Stress test for the in-memory side of the dequeue path: 50 counselors poll one institution's
+ * queue at the same time and no lead may be handed out twice. The repository is a stub that
+ * behaves like the conditional claim, so a lost claim must be skipped; the claim UPDATE itself is
+ * not exercised against a database here.
+ */
+class InstitutionQueueServiceConcurrencyTest {
+
+    private static final String INSTITUTION_ID = "institution-1";
+    private static final int QUEUED_LEADS = 2_000;
+    private static final int PULLERS = 50;
+
+    private final Map<String, Lead> leads = new ConcurrentHashMap<>();
+    private LeadRepository leadRepository;
+    private InstitutionRepository institutionRepository;
+    private QueueEntryRepository queueEntryRepository;
+
+    @BeforeEach
+    void setUp() {
+        leadRepository = mock(LeadRepository.class);
+        institutionRepository = mock(InstitutionRepository.class);
+        queueEntryRepository = mock(QueueEntryRepository.class);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < QUEUED_LEADS; i++) {
+            Lead lead = new Lead();
+            lead.setId("lead-" + i);
+            lead.setInstitutionId(INSTITUTION_ID);
+            lead.setStatus(LeadStatus.QUEUED);
+            lead.setPriority(Lead.LeadPriority.values()[i % Lead.LeadPriority.values().length]);
+            lead.setLeadScore((double) (i % 100));
+            lead.setCreatedAt(now.minusMinutes(i));
+            leads.put(lead.getId(), lead);
+        }
+
+        when(institutionRepository.existsById(INSTITUTION_ID)).thenReturn(true);
+        when(queueEntryRepository.findByInstitutionIdOrderByPriorityDescScoreDescCreatedAtAsc(INSTITUTION_ID))
+                .thenAnswer(invocation -> {
+                    List<QueueEntry> entries = new ArrayList<>();
+                    leads.values().forEach(lead -> entries.add(QueueKey.of(lead).toEntry(INSTITUTION_ID)));
+                    return entries;
+                });
+        when(leadRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(leads.get(invocation.<String>getArgument(0))));
+
+        // Behaves like the conditional UPDATE: only the first claim of a QUEUED lead succeeds
+        when(leadRepository.claimQueuedLead(anyString(), anyString(), any(), eq(LeadStatus.QUEUED), eq(LeadStatus.ASSIGNED)))
+                .thenAnswer(invocation -> {
+                    Lead lead = leads.get(invocation.<String>getArgument(0));
+                    synchronized (lead) {
+                        if (lead.getStatus() != LeadStatus.QUEUED) {
+                            return 0;
+                        }
+                        lead.setStatus(LeadStatus.ASSIGNED);
+                        lead.setAssignedCounselor(invocation.getArgument(1));
+                        return 1;
+                    }
+                });
+    }
+
+    @Test
+    void concurrentPollsNeverHandOutTheSameLead() throws Exception {
+        InstitutionQueueService queueService = newQueueService();
+
+        List<String> handedOut = pullConcurrently(List.of(queueService));
+
+        assertEquals(QUEUED_LEADS, handedOut.size());
+        assertEquals(QUEUED_LEADS, new HashSet<>(handedOut).size());
+    }
+
+    @Test
+    void lostClaimsAcrossInstancesAreSkipped() throws Exception {
+        // Two service instances with their own in-memory queues both hold every lead, only the stubbed claim decides
+        List<InstitutionQueueService> instances = List.of(newQueueService(), newQueueService());
+
+        List<String> handedOut = pullConcurrently(instances);
+
+        assertEquals(QUEUED_LEADS, handedOut.size());
+        assertEquals(QUEUED_LEADS, new HashSet<>(handedOut).size());
+    }
+
+    private InstitutionQueueService newQueueService() {
+        return new InstitutionQueueService(
+                institutionRepository,
+                leadRepository,
+                queueEntryRepository,
+                new LeadQueueEngine(queueEntryRepository),
+                new LeadScoringService(),
+                mock(LeadCounterService.class),
+                mock(CounselorCapacityTracker.class),
+                mock(LeadRollupService.class),
+                mock(ApplicationEventPublisher.class)
+        );
+    }
+
+    private List<String> pullConcurrently(List<InstitutionQueueService> instances) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(PULLERS);
+        CountDownLatch start = new CountDownLatch(1);
+        Queue<String> handedOut = new ConcurrentLinkedQueue<>();
+        List<Future<?>> pullers = new ArrayList<>();
+
+        for (int i = 0; i < PULLERS; i++) {
+            InstitutionQueueService queueService = instances.get(i % instances.size());
+            String counselorId = "counselor-" + i;
+            pullers.add(executor.submit(() -> {
+                start.await();
+                Lead lead;
+                while ((lead = queueService.getNextLeadFromQueue(INSTITUTION_ID, counselorId)) != null) {
+                    handedOut.add(lead.getId());
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> puller : pullers) {
+            puller.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        return new ArrayList<>(handedOut);
+    }
+}
@@ -0,0 +1,160 @@
+package com.admission_crm.lead_management.Service.Notification;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Load test for the notification fan-out: 5,000 sessions, 1% of them stalled. The publisher must
+ * neither block nor hold back delivery to the healthy sessions, and stalled sessions get evicted.
+ */
+class NotificationDispatcherLoadTest {
+
+    private static final int SESSIONS = 5_000;
+    private static final int SLOW_SESSIONS = 50;
+    private static final int MESSAGES = 100;
+    private static final long SLOW_SEND_MILLIS = 5_000;
+    private static final long MAX_LAG_MILLIS = 1_500;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private NotificationDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void slowSessionsNeitherBlockThePublisherNorDelayOtherSessions() throws Exception {
+        // Queues hold every message, so healthy sessions never drop one however the senders are scheduled
+        dispatcher = new NotificationDispatcher(meterRegistry, MESSAGES + 1, 8, MAX_LAG_MILLIS);
+
+        int fastSessions = SESSIONS - SLOW_SESSIONS;
+        CountDownLatch delivered = new CountDownLatch(fastSessions * (MESSAGES + 1));
+        AtomicBoolean outOfOrder = new AtomicBoolean();
+        List<AtomicInteger> received = new ArrayList<>();
+        Set<String> closed = ConcurrentHashMap.newKeySet();
+
+        for (int i = 0; i < SESSIONS; i++) {
+            String user = "user-" + i;
+            boolean slow = i % (SESSIONS / SLOW_SESSIONS) == 0;
+            AtomicInteger count = new AtomicInteger();
+            if (!slow) {
+                received.add(count);
+            }
+
+            WebSocketSession session = mock(WebSocketSession.class, withSettings().stubOnly());
+            when(session.isOpen()).thenAnswer(invocation -> !closed.contains(user));
+            doAnswer(invocation -> {
+                if (slow) {
+                    Thread.sleep(SLOW_SEND_MILLIS);
+                    return null;
+                }
+                String text = invocation.<TextMessage>getArgument(0).getPayload();
+                if (!text.equals("message-" + count.get())) {
+                    outOfOrder.set(true);
+                }
+                count.incrementAndGet();
+                delivered.countDown();
+                return null;
+            }).when(session).sendMessage(any());
+            doAnswer(invocation -> closed.add(user)).when(session).close(any(CloseStatus.class));
+
+            dispatcher.register(user, session);
+        }
+
+        long started = System.nanoTime();
+        for (int i = 0; i < MESSAGES; i++) {
+            dispatcher.broadcast("message-" + i);
+        }
+        long publishMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+
+        // Publishing only enqueues, it never waits for a stalled send
+        assertTrue(publishMillis < SLOW_SEND_MILLIS, "publishing took " + publishMillis + " ms");
+
+        // Once the stalled sessions lag behind, the next message evicts them
+        Thread.sleep(Math.max(0, MAX_LAG_MILLIS + 100 - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started)));
+        dispatcher.broadcast("message-" + MESSAGES);
+
+        assertTrue(delivered.await(60, TimeUnit.SECONDS), "healthy sessions did not receive every message");
+        assertFalse(outOfOrder.get());
+        received.forEach(count -> assertEquals(MESSAGES + 1, count.get()));
+
+        assertEquals(SLOW_SESSIONS, meterRegistry.counter("notifications.sessions.evicted").count());
+        assertEquals(fastSessions, dispatcher.sessionCount());
+        assertEquals(SLOW_SESSIONS, closed.size());
+        assertTrue(meterRegistry.counter("notifications.messages.dropped").count() > 0);
+        assertEquals((double) fastSessions * (MESSAGES + 1), meterRegistry.counter("notifications.messages.sent").count());
+    }
+
+    @Test
+    void sessionWhoseQueueKeepsOverflowingIsEvicted() throws Exception {
+        dispatcher = new NotificationDispatcher(meterRegistry, 4, 2, 60_000);
+
+        CountDownLatch sending = new CountDownLatch(1);
+        WebSocketSession stalled = mock(WebSocketSession.class);
+        when(stalled.isOpen()).thenReturn(true);
+        doAnswer(invocation -> {
+            sending.countDown();
+            Thread.sleep(SLOW_SEND_MILLIS);
+            return null;
+        }).when(stalled).sendMessage(any());
+        dispatcher.register("stalled@example.com", stalled);
+
+        dispatcher.broadcast("message-0");
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        // Four fit in the queue, the next three overflow and the third overflow evicts
+        for (int i = 1; i <= 7; i++) {
+            dispatcher.broadcast("message-" + i);
+        }
+
+        assertEquals(0, dispatcher.sessionCount());
+        assertEquals(1, meterRegistry.counter("notifications.sessions.evicted").count());
+        verify(stalled, timeout(5_000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    @Test
+    void messagesPublishedInATransactionAreSentOnlyAfterCommit() throws Exception {
+        dispatcher = new NotificationDispatcher(meterRegistry, 16, 8, 60_000);
+
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.isOpen()).thenReturn(true);
+        CountDownLatch sent = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            sent.countDown();
+            return null;
+        }).when(session).sendMessage(any());
+        dispatcher.register("counselor@example.com", session);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            dispatcher.broadcast("lead created");
+            assertFalse(sent.await(200, TimeUnit.MILLISECONDS));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertTrue(sent.await(5, TimeUnit.SECONDS));
+        verify(session).sendMessage(new TextMessage("lead created"));
+    }
+}